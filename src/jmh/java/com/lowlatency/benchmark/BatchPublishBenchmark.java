@@ -0,0 +1,97 @@
+package com.lowlatency.benchmark;
+
+import com.lowlatency.LowLatencyEngine;
+import com.lowlatency.core.Event;
+import com.lowlatency.core.EventBatchTranslator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * publishEvents at batch sizes 1/8/64 against one-at-a-time publishEvent.
+ * Every invocation publishes the same 64 events, so scores are directly comparable per event.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchPublishBenchmark {
+    
+    private static final int EVENTS_PER_INVOCATION = 64;
+    
+    @Param({"1", "8", "64"})
+    public int batchSize;
+    
+    @Param({"BUSY_SPIN", "YIELDING"})
+    public LowLatencyEngine.WaitStrategyType waitStrategy;
+    
+    private LowLatencyEngine engine;
+    private EventBatchTranslator<double[]> translator;
+    private int symbolId;
+    private double[] prices;
+    private double[][] batches;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        engine = LowLatencyEngine.builder()
+            .waitStrategy(waitStrategy)
+            .inMemoryStorage()
+            .build();
+        
+        symbolId = engine.registerSymbol("AAPL");
+        String symbol = engine.getSymbolRegistry().symbol(symbolId);
+        translator = (event, index, source) -> {
+            event.assignSymbol(symbolId, symbol);
+            event.setPrice(source[index]);
+            event.setQuantity(100);
+            event.setType(Event.EventType.TRADE);
+        };
+        
+        prices = new double[EVENTS_PER_INVOCATION];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = 150.0 + i * 0.01;
+        }
+        batches = new double[EVENTS_PER_INVOCATION / batchSize][];
+        for (int b = 0; b < batches.length; b++) {
+            batches[b] = new double[batchSize];
+            System.arraycopy(prices, b * batchSize, batches[b], 0, batchSize);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_INVOCATION)
+    public void publishEvents() {
+        for (double[] batch : batches) {
+            engine.publishEvents(batchSize, batch, translator);
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_INVOCATION)
+    public void publishEventOneByOne() {
+        for (double price : prices) {
+            engine.publishEvent(symbolId, price, 100, Event.EventType.TRADE);
+        }
+    }
+}
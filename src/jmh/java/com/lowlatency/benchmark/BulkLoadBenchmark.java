@@ -0,0 +1,97 @@
+package com.lowlatency.benchmark;
+
+import com.lowlatency.storage.BulkProgressListener;
+import com.lowlatency.storage.ChronicleMapStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Start-of-day load of keyCount reference-data entries into an empty map: one put() per key
+ * against importFrom() of an export file with parallelism fork-join workers, plus the
+ * exportTo() that writes that file.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkLoadBenchmark {
+    
+    @Param({"1000000"})
+    public int keyCount;
+    
+    @Param({"1", "4"})
+    public int parallelism;
+    
+    private ChronicleMapStorage<String, String> source;
+    private ChronicleMapStorage<String, String> target;
+    private ForkJoinPool pool;
+    private Path exportFile;
+    private String[] keys;
+    private String[] values;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        keys = new String[keyCount];
+        values = new String[keyCount];
+        source = ChronicleMapStorage.createInMemory(String.class, String.class, keyCount);
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "SYM" + i;
+            values[i] = "lot=100,tick=0.01,ccy=USD,venue=" + (i % 16);
+            source.put(keys[i], values[i]);
+        }
+        target = ChronicleMapStorage.createInMemory(String.class, String.class, keyCount);
+        pool = new ForkJoinPool(parallelism);
+        exportFile = Files.createTempFile("bulk-load-bench", ".bin");
+        source.exportTo(exportFile.toString(), pool, BulkProgressListener.NONE);
+    }
+    
+    @Setup(Level.Iteration)
+    public void clearTarget() {
+        target.clear();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        source.close();
+        target.close();
+        Files.deleteIfExists(exportFile);
+    }
+    
+    @Benchmark
+    public long putPerKey() {
+        for (int i = 0; i < keyCount; i++) {
+            target.put(keys[i], values[i]);
+        }
+        return target.size();
+    }
+    
+    @Benchmark
+    public long importFrom() throws IOException {
+        return target.importFrom(exportFile.toString(), pool, BulkProgressListener.NONE);
+    }
+    
+    @Benchmark
+    public long exportTo() throws IOException {
+        return source.exportTo(exportFile.toString(), pool, BulkProgressListener.NONE);
+    }
+}
@@ -0,0 +1,94 @@
+package com.lowlatency.benchmark;
+
+import com.lowlatency.storage.ChronicleMapStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ChronicleMapStorage get/put for in-memory vs persisted maps over a fixed, pre-populated key set.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChronicleMapStorageBenchmark {
+    
+    private static final int KEY_COUNT = 100_000;
+    
+    @Param({"IN_MEMORY", "PERSISTED"})
+    public String mode;
+    
+    private ChronicleMapStorage<String, String> storage;
+    private Path mapFile;
+    private String[] keys;
+    private String[] values;
+    private int index;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        keys = new String[KEY_COUNT];
+        values = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "key" + i;
+            values[i] = "value" + i;
+        }
+        
+        if ("PERSISTED".equals(mode)) {
+            mapFile = Files.createTempFile("chronicle-bench", ".dat");
+            Files.delete(mapFile);
+            storage = ChronicleMapStorage.create(String.class, String.class, KEY_COUNT * 2L, mapFile.toString());
+        } else {
+            storage = ChronicleMapStorage.createInMemory(String.class, String.class, KEY_COUNT * 2L);
+        }
+        
+        for (int i = 0; i < KEY_COUNT; i++) {
+            storage.put(keys[i], values[i]);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storage.close();
+        if (mapFile != null) {
+            Files.deleteIfExists(mapFile);
+        }
+    }
+    
+    private int nextIndex() {
+        int i = index + 1;
+        if (i == KEY_COUNT) {
+            i = 0;
+        }
+        index = i;
+        return i;
+    }
+    
+    @Benchmark
+    public String get() {
+        return storage.get(keys[nextIndex()]);
+    }
+    
+    @Benchmark
+    public String put() {
+        int i = nextIndex();
+        return storage.put(keys[i], values[i]);
+    }
+}
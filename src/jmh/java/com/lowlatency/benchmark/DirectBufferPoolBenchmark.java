@@ -0,0 +1,85 @@
+package com.lowlatency.benchmark;
+
+import com.lowlatency.pool.DirectBufferPool;
+import com.lowlatency.pool.PooledBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getting a direct buffer, writing its first and last long, and giving it up: a fresh
+ * ByteBuffer.allocateDirect left to the GC vs a DirectBufferPool allocate/release.
+ * Prints the pool's reserved and used bytes at the end of each trial.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DirectBufferPoolBenchmark {
+    
+    @Param({"256", "4096", "65536"})
+    public int size;
+    
+    private DirectBufferPool pool;
+    
+    @Setup
+    public void setUp() {
+        pool = new DirectBufferPool(64, 64 * 1024, 1024 * 1024, 64L * 1024 * 1024);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%n%d bytes: %s%n", size, pool.stats());
+    }
+    
+    private static long touch(ByteBuffer buffer) {
+        buffer.putLong(0, 1L);
+        buffer.putLong(buffer.limit() - Long.BYTES, 2L);
+        return buffer.getLong(0);
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public long allocateDirect1Thread() {
+        return touch(ByteBuffer.allocateDirect(size));
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public long pooled1Thread() {
+        PooledBuffer pooled = pool.allocate(size);
+        long value = touch(pooled.buffer());
+        pooled.release();
+        return value;
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public long allocateDirect4Threads() {
+        return touch(ByteBuffer.allocateDirect(size));
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public long pooled4Threads() {
+        PooledBuffer pooled = pool.allocate(size);
+        long value = touch(pooled.buffer());
+        pooled.release();
+        return value;
+    }
+}
@@ -0,0 +1,90 @@
+package com.lowlatency.benchmark;
+
+import com.lowlatency.storage.ChronicleMapStorage;
+import com.lowlatency.storage.StorageDurability;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persisted put cost per durability mode. Every batchSize-th put ends a batch with commitBatch(),
+ * so under GROUP_COMMIT the msync shows up in the sampled tail; PERIODIC_SYNC msyncs every 100 ms
+ * on its own thread. Prints the msync count and mean msync time at the end of each trial.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DurabilityBenchmark {
+    
+    private static final int KEY_COUNT = 100_000;
+    private static final long SYNC_INTERVAL_MILLIS = 100;
+    
+    @Param({"OS_MANAGED", "PERIODIC_SYNC", "GROUP_COMMIT"})
+    public StorageDurability durability;
+    
+    @Param({"1", "64"})
+    public int batchSize;
+    
+    private ChronicleMapStorage<String, String> storage;
+    private Path mapFile;
+    private String[] keys;
+    private String[] values;
+    private int index;
+    private int batched;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        keys = new String[KEY_COUNT];
+        values = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "key" + i;
+            values[i] = "value" + i;
+        }
+        mapFile = Files.createTempFile("durability-bench", ".dat");
+        Files.delete(mapFile);
+        storage = ChronicleMapStorage.create(String.class, String.class, KEY_COUNT * 2L, mapFile.toString(),
+                durability, SYNC_INTERVAL_MILLIS);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        long syncs = storage.getSyncCount();
+        System.out.printf("%n%s batch %d: %d msyncs, mean %.1f us%n", durability, batchSize, syncs,
+                syncs == 0 ? 0.0 : storage.getSyncTimeNanos() / 1000.0 / syncs);
+        storage.close();
+        Files.deleteIfExists(mapFile);
+    }
+    
+    @Benchmark
+    public String put() {
+        int i = index + 1;
+        if (i == KEY_COUNT) {
+            i = 0;
+        }
+        index = i;
+        String previous = storage.put(keys[i], values[i]);
+        if (++batched == batchSize) {
+            batched = 0;
+            storage.commitBatch();
+        }
+        return previous;
+    }
+}
@@ -0,0 +1,69 @@
+package com.lowlatency.benchmark;
+
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lowlatency.LowLatencyEngine;
+import com.lowlatency.core.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publish-side cost of LowLatencyEngine.publishEvent across producer types and wait strategies.
+ * Once the ring is full the publisher is throttled by the handler, so sustained throughput tracks consumption.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EngineBenchmark {
+    
+    @Param({"MULTI", "SINGLE"})
+    public ProducerType producerType;
+    
+    @Param({"BLOCKING", "YIELDING", "BUSY_SPIN"})
+    public LowLatencyEngine.WaitStrategyType waitStrategy;
+    
+    private LowLatencyEngine engine;
+    private int symbolId;
+    private double price;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        engine = LowLatencyEngine.builder()
+            .producerType(producerType)
+            .waitStrategy(waitStrategy)
+            .inMemoryStorage()
+            .build();
+        symbolId = engine.registerSymbol("AAPL");
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+    
+    @Benchmark
+    public void publishEvent() {
+        engine.publishEvent(symbolId, price += 0.01, 100, Event.EventType.TRADE);
+    }
+    
+    @Benchmark
+    public void publishEventBySymbol() {
+        engine.publishEvent("AAPL", price += 0.01, 100, Event.EventType.TRADE);
+    }
+}
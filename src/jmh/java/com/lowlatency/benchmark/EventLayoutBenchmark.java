@@ -0,0 +1,92 @@
+package com.lowlatency.benchmark;
+
+import com.lowlatency.LowLatencyEngine;
+import com.lowlatency.core.Event;
+import com.lowlatency.core.LowLatencyEventFactory;
+import com.lowlatency.core.OffHeapEventFactory;
+import com.lowlatency.core.SymbolRegistry;
+import com.lmax.disruptor.EventFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap vs off-heap ring slot layout: end-to-end publish through the engine, and a raw
+ * sequential scan over a 64K-slot ring the way a consumer reads it.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventLayoutBenchmark {
+    
+    private static final int RING_SIZE = 1024 * 64;
+    
+    @Param({"HEAP", "OFF_HEAP"})
+    public LowLatencyEngine.EventLayout layout;
+    
+    private LowLatencyEngine engine;
+    private int symbolId;
+    private double price;
+    private Event[] ring;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        engine = LowLatencyEngine.builder()
+            .ringBufferSize(RING_SIZE)
+            .waitStrategy(LowLatencyEngine.WaitStrategyType.YIELDING)
+            .eventLayout(layout)
+            .inMemoryStorage()
+            .build();
+        symbolId = engine.registerSymbol("AAPL");
+        
+        SymbolRegistry registry = new SymbolRegistry(16);
+        int scanSymbol = registry.register("MSFT");
+        EventFactory<Event> factory = layout == LowLatencyEngine.EventLayout.OFF_HEAP
+            ? new OffHeapEventFactory(RING_SIZE, registry)
+            : new LowLatencyEventFactory();
+        ring = new Event[RING_SIZE];
+        for (int i = 0; i < RING_SIZE; i++) {
+            ring[i] = factory.newInstance();
+            ring[i].setId(i);
+            ring[i].assignSymbol(scanSymbol, "MSFT");
+            ring[i].setPrice(100.0 + i * 0.01);
+            ring[i].setQuantity(i % 1000);
+            ring[i].setType(Event.EventType.TRADE);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+    
+    @Benchmark
+    public void publishEvent() {
+        engine.publishEvent(symbolId, price += 0.01, 100, Event.EventType.TRADE);
+    }
+    
+    @Benchmark
+    public double scanRing() {
+        double notional = 0;
+        for (Event event : ring) {
+            notional += event.getPrice() * event.getQuantity();
+        }
+        return notional;
+    }
+}
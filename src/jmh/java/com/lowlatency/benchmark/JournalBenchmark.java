@@ -0,0 +1,70 @@
+package com.lowlatency.benchmark;
+
+import com.lowlatency.core.Event;
+import com.lowlatency.journal.EventJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost the journaling stage adds per event: one append, with a batch end every 64 events.
+ * Sampled percentiles include segment rolls, since segments are pre-faulted in the background.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JournalBenchmark {
+    
+    private Path directory;
+    private EventJournal journal;
+    private Event event;
+    private long sequence;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-bench");
+        journal = EventJournal.open(directory);
+        event = new Event();
+        event.assignSymbol(0, "AAPL");
+        event.setType(Event.EventType.ORDER);
+        event.setSide(Event.Side.BUY);
+        event.setAction(Event.OrderAction.NEW);
+        event.setPrice(150.0);
+        event.setQuantity(100);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    @Benchmark
+    public void append() {
+        long seq = sequence++;
+        event.setOrderId(seq);
+        event.setTimestamp(seq);
+        journal.onEvent(event, seq, (seq & 63) == 63);
+    }
+}
@@ -0,0 +1,74 @@
+package com.lowlatency.benchmark;
+
+import com.lowlatency.storage.ChronicleMapStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "All keys with prefix X" over keys like "batch" + i: sorted index seek vs a full scan of the map's
+ * key set. The prefix matches 11 keys at every keyCount, so the indexed cost should barely move.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeyRangeBenchmark {
+    
+    @Param({"100000", "1000000"})
+    public int keyCount;
+    
+    private ChronicleMapStorage<String, String> storage;
+    private String prefix;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storage = ChronicleMapStorage.createInMemory(String.class, String.class, keyCount * 2L);
+        for (int i = 0; i < keyCount; i++) {
+            storage.put("batch" + i, "value" + i);
+        }
+        storage.enableSortedIndex();
+        prefix = "batch" + (keyCount / 10 - 1);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.close();
+    }
+    
+    @Benchmark
+    public long prefixIndexed(Blackhole blackhole) {
+        return storage.forEachKeyWithPrefix(prefix, key -> {
+            blackhole.consume(key);
+            return true;
+        });
+    }
+    
+    @Benchmark
+    public long prefixScan(Blackhole blackhole) {
+        long matches = 0;
+        for (String key : storage.getMap().keySet()) {
+            if (key.startsWith(prefix)) {
+                blackhole.consume(key);
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,106 @@
+package com.lowlatency.benchmark;
+
+import com.lowlatency.core.Event;
+import com.lowlatency.matching.MatchingEngine;
+import com.lowlatency.matching.OrderBook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state latency of the matching engine on the handler thread, without the ring buffer.
+ * The book is pre-populated with 20 levels a side so every operation runs against realistic depth.
+ */
+@BenchmarkMode({Mode.SampleTime, Mode.Throughput})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatchingEngineBenchmark {
+    
+    private static final int SYMBOL_ID = 0;
+    private static final int DEPTH = 20;
+    
+    private MatchingEngine matchingEngine;
+    private Event restingOrder;
+    private Event aggressiveOrder;
+    private Event cancelOrder;
+    private long nextOrderId;
+    private long restingTicks;
+    
+    @Setup(Level.Iteration)
+    public void setUp(Blackhole blackhole) {
+        matchingEngine = new MatchingEngine(1, 4096, 256, 0.01, (trade, restingOrderId) -> blackhole.consume(trade));
+        restingOrder = order(Event.Side.SELL, Event.OrderAction.NEW);
+        aggressiveOrder = order(Event.Side.BUY, Event.OrderAction.NEW);
+        cancelOrder = order(null, Event.OrderAction.CANCEL);
+        
+        // Static depth far from the touch: bids 90.00.., asks 110.00..
+        for (int i = 0; i < DEPTH; i++) {
+            submit(Event.Side.BUY, 90.0 - i * 0.01, 100);
+            submit(Event.Side.SELL, 110.0 + i * 0.01, 100);
+        }
+    }
+    
+    private Event order(Event.Side side, Event.OrderAction action) {
+        Event event = new Event();
+        event.assignSymbol(SYMBOL_ID, "BENCH");
+        event.setType(Event.EventType.ORDER);
+        event.setSide(side);
+        event.setAction(action);
+        event.setQuantity(100);
+        return event;
+    }
+    
+    private void submit(Event.Side side, double price, long quantity) {
+        Event event = order(side, Event.OrderAction.NEW);
+        event.setOrderId(++nextOrderId);
+        event.setPrice(price);
+        event.setQuantity(quantity);
+        matchingEngine.onOrder(event);
+    }
+    
+    /**
+     * Rest a sell inside the spread, then cross it with a buy: one new level, one fill, one level removal
+     */
+    @Benchmark
+    public OrderBook.Result restThenCross() {
+        restingTicks = (restingTicks + 1) % 10;
+        double price = 100.0 + restingTicks * 0.01;
+        
+        restingOrder.setOrderId(++nextOrderId);
+        restingOrder.setPrice(price);
+        matchingEngine.onOrder(restingOrder);
+        
+        aggressiveOrder.setOrderId(++nextOrderId);
+        aggressiveOrder.setPrice(price);
+        return matchingEngine.onOrder(aggressiveOrder);
+    }
+    
+    /**
+     * Rest a sell inside the spread and cancel it
+     */
+    @Benchmark
+    public OrderBook.Result restThenCancel() {
+        restingTicks = (restingTicks + 1) % 10;
+        
+        restingOrder.setOrderId(++nextOrderId);
+        restingOrder.setPrice(100.0 + restingTicks * 0.01);
+        matchingEngine.onOrder(restingOrder);
+        
+        cancelOrder.setOrderId(nextOrderId);
+        return matchingEngine.onOrder(cancelOrder);
+    }
+}
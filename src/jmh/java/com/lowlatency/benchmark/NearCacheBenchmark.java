@@ -0,0 +1,100 @@
+package com.lowlatency.benchmark;
+
+import com.lowlatency.storage.ChronicleMapStorage;
+import com.lowlatency.storage.NearCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reference-data lookups drawn from a Zipf(1.0) distribution over 100K keys, straight from the
+ * map (cacheCapacity 0) vs through a NearCache. Prints the hit rate at the end of each trial.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NearCacheBenchmark {
+    
+    private static final int KEY_COUNT = 100_000;
+    private static final int SAMPLE_COUNT = 1 << 20;
+    private static final double ZIPF_EXPONENT = 1.0;
+    
+    @Param({"0", "1024", "8192"})
+    public int cacheCapacity;
+    
+    private ChronicleMapStorage<String, String> storage;
+    private NearCache<String, String> nearCache;
+    private String[] keys;
+    private int[] samples;
+    private int index;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storage = ChronicleMapStorage.createInMemory(String.class, String.class, KEY_COUNT * 2L);
+        keys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = "instrument:" + i;
+            storage.put(keys[i], "lot=100;tick=0.01;currency=USD;venue=XNAS;id=" + i);
+        }
+        if (cacheCapacity > 0) {
+            nearCache = new NearCache<>(cacheCapacity, storage::get);
+        }
+        samples = zipfSamples();
+    }
+    
+    /**
+     * Inverse-CDF sampling: rank r is drawn with probability proportional to 1 / r^s
+     */
+    private static int[] zipfSamples() {
+        double[] cdf = new double[KEY_COUNT];
+        double sum = 0;
+        for (int rank = 1; rank <= KEY_COUNT; rank++) {
+            sum += 1.0 / Math.pow(rank, ZIPF_EXPONENT);
+            cdf[rank - 1] = sum;
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        int[] samples = new int[SAMPLE_COUNT];
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            int pos = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            samples[i] = Math.min(pos < 0 ? -pos - 1 : pos, KEY_COUNT - 1);
+        }
+        return samples;
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (nearCache != null) {
+            System.out.printf("%nNear-cache capacity %d: hit rate %.3f%n", cacheCapacity, nearCache.stats().getHitRate());
+        }
+        storage.close();
+    }
+    
+    @Benchmark
+    public String lookup() {
+        int i = index + 1;
+        if (i == SAMPLE_COUNT) {
+            i = 0;
+        }
+        index = i;
+        String key = keys[samples[i]];
+        return nearCache != null ? nearCache.get(key) : storage.get(key);
+    }
+}
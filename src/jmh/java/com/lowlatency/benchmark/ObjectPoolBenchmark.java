@@ -0,0 +1,99 @@
+package com.lowlatency.benchmark;
+
+import com.lowlatency.pool.ObjectPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ObjectPool acquire/release round trip under increasing contention, 1 to 32 threads, against
+ * the ConcurrentLinkedQueue the pool used to be built on (one node allocated per offer).
+ * Add -prof gc for bytes/op; use -t on the JMH command line for other thread counts.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ObjectPoolBenchmark {
+    
+    @Param({"striped", "queue"})
+    public String implementation;
+    
+    private ObjectPool<StringBuilder> pool;
+    private ConcurrentLinkedQueue<StringBuilder> queue;
+    
+    @Setup
+    public void setUp() {
+        pool = new ObjectPool<>(() -> new StringBuilder(256), 500, 1000);
+        queue = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < 500; i++) {
+            queue.offer(new StringBuilder(256));
+        }
+    }
+    
+    private StringBuilder roundTrip() {
+        if ("queue".equals(implementation)) {
+            StringBuilder sb = queue.poll();
+            if (sb == null) {
+                sb = new StringBuilder(256);
+            }
+            sb.setLength(0);
+            queue.offer(sb);
+            return sb;
+        }
+        StringBuilder sb = pool.acquire();
+        sb.setLength(0);
+        pool.release(sb);
+        return sb;
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public StringBuilder acquireRelease1Thread() {
+        return roundTrip();
+    }
+    
+    @Benchmark
+    @Threads(2)
+    public StringBuilder acquireRelease2Threads() {
+        return roundTrip();
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public StringBuilder acquireRelease4Threads() {
+        return roundTrip();
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public StringBuilder acquireRelease8Threads() {
+        return roundTrip();
+    }
+    
+    @Benchmark
+    @Threads(16)
+    public StringBuilder acquireRelease16Threads() {
+        return roundTrip();
+    }
+    
+    @Benchmark
+    @Threads(32)
+    public StringBuilder acquireRelease32Threads() {
+        return roundTrip();
+    }
+}
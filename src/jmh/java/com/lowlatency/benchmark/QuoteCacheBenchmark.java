@@ -0,0 +1,112 @@
+package com.lowlatency.benchmark;
+
+import com.lowlatency.marketdata.Quote;
+import com.lowlatency.marketdata.QuoteCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One writer updating quotes while 1, 3 or 7 readers poll them. Writer and reader scores show how
+ * much each side slows the other; -tg 1,N overrides the reader count of a single group.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class QuoteCacheBenchmark {
+    
+    /** 1 concentrates all traffic on one slot; larger values spread it across cache lines */
+    @Param({"1", "64"})
+    public int symbols;
+    
+    private QuoteCache cache;
+    
+    @Setup
+    public void setUp() {
+        cache = new QuoteCache(symbols);
+        for (int i = 0; i < symbols; i++) {
+            cache.update(i, 100.0, 100, 100.01, 100, 0, 0);
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class WriterState {
+        long sequence;
+        int symbolId;
+    }
+    
+    @State(Scope.Thread)
+    public static class ReaderState {
+        final Quote quote = new Quote();
+        int symbolId;
+    }
+    
+    private void writeNext(WriterState state) {
+        long n = ++state.sequence;
+        state.symbolId = state.symbolId + 1 == symbols ? 0 : state.symbolId + 1;
+        cache.update(state.symbolId, 100.0 + (n & 0xFF) * 0.01, n, 100.01 + (n & 0xFF) * 0.01, n, n, n);
+    }
+    
+    private double readNext(ReaderState state) {
+        state.symbolId = state.symbolId + 1 == symbols ? 0 : state.symbolId + 1;
+        cache.read(state.symbolId, state.quote);
+        return state.quote.getMid();
+    }
+    
+    @Benchmark
+    @Group("oneWriterOneReader")
+    @GroupThreads(1)
+    public void write1(WriterState state) {
+        writeNext(state);
+    }
+    
+    @Benchmark
+    @Group("oneWriterOneReader")
+    @GroupThreads(1)
+    public double read1(ReaderState state) {
+        return readNext(state);
+    }
+    
+    @Benchmark
+    @Group("oneWriterThreeReaders")
+    @GroupThreads(1)
+    public void write3(WriterState state) {
+        writeNext(state);
+    }
+    
+    @Benchmark
+    @Group("oneWriterThreeReaders")
+    @GroupThreads(3)
+    public double read3(ReaderState state) {
+        return readNext(state);
+    }
+    
+    @Benchmark
+    @Group("oneWriterSevenReaders")
+    @GroupThreads(1)
+    public void write7(WriterState state) {
+        writeNext(state);
+    }
+    
+    @Benchmark
+    @Group("oneWriterSevenReaders")
+    @GroupThreads(7)
+    public double read7(ReaderState state) {
+        return readNext(state);
+    }
+}
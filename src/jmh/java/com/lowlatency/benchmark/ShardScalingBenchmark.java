@@ -0,0 +1,95 @@
+package com.lowlatency.benchmark;
+
+import com.lowlatency.LowLatencyEngine;
+import com.lowlatency.core.Event;
+import com.lowlatency.core.EventBatchTranslator;
+import com.lmax.disruptor.dsl.ProducerType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end order throughput with the engine handler split into 1/2/4/8 symbol shards.
+ * Each invocation publishes a batch of rest/cancel pairs across 64 symbols and waits until every
+ * shard has consumed it. Scaling needs at least shards + 1 free cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardScalingBenchmark {
+    
+    private static final int SYMBOLS = 64;
+    private static final int EVENTS_PER_INVOCATION = 4096;
+    
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+    
+    private LowLatencyEngine engine;
+    private EventBatchTranslator<long[]> translator;
+    private final long[] orderIdBase = new long[1];
+    private long published;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        engine = LowLatencyEngine.builder()
+            .producerType(ProducerType.SINGLE)
+            .waitStrategy(LowLatencyEngine.WaitStrategyType.YIELDING)
+            .inMemoryStorage()
+            .maxSymbols(SYMBOLS)
+            .shards(shards)
+            .build();
+        
+        int[] symbolIds = new int[SYMBOLS];
+        String[] symbols = new String[SYMBOLS];
+        for (int i = 0; i < SYMBOLS; i++) {
+            symbolIds[i] = engine.registerSymbol("SYM" + i);
+            symbols[i] = engine.getSymbolRegistry().symbol(symbolIds[i]);
+        }
+        // Even index rests an order, the following odd index cancels it
+        translator = (event, index, source) -> {
+            int pair = index >> 1;
+            int symbol = pair % SYMBOLS;
+            event.assignSymbol(symbolIds[symbol], symbols[symbol]);
+            event.setType(Event.EventType.ORDER);
+            event.setOrderId(source[0] + pair);
+            event.setSide(Event.Side.BUY);
+            event.setAction((index & 1) == 0 ? Event.OrderAction.NEW : Event.OrderAction.CANCEL);
+            event.setPrice(100.0 - (pair & 15) * 0.01);
+            event.setQuantity(100);
+        };
+        published = engine.getProcessedEventCount();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        engine.close();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_INVOCATION)
+    public void restAndCancel() {
+        engine.publishEvents(EVENTS_PER_INVOCATION, orderIdBase, translator);
+        orderIdBase[0] += EVENTS_PER_INVOCATION / 2;
+        published += EVENTS_PER_INVOCATION;
+        while (engine.getProcessedEventCount() < published) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.lowlatency.benchmark;
+
+import com.lowlatency.storage.ChronicleMapStorage;
+import com.lowlatency.storage.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Net quantity across every position in a keyCount-entry map: iterating getMap() on one thread
+ * against segment-parallel aggregate() deserializing each Position, and reading the quantity
+ * straight from the serialized bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StorageScanBenchmark {
+    
+    // quantity follows the int symbolId in Position's layout
+    private static final int QUANTITY_OFFSET = Integer.BYTES;
+    
+    @Param({"10000000"})
+    public int keyCount;
+    
+    @Param({"1", "4"})
+    public int parallelism;
+    
+    private ChronicleMapStorage<Long, Position> storage;
+    private ForkJoinPool pool;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storage = ChronicleMapStorage.createInMemory(long.class, Position.class, keyCount);
+        Position position = new Position();
+        for (int i = 0; i < keyCount; i++) {
+            position.setSymbolId(i);
+            position.setQuantity(i % 2 == 0 ? 100 : -100);
+            position.setAveragePrice(100.0 + i % 50);
+            storage.put((long) i, position);
+        }
+        pool = new ForkJoinPool(parallelism);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+        storage.close();
+    }
+    
+    @Benchmark
+    public long mapIteration() {
+        long total = 0;
+        for (Position position : storage.getMap().values()) {
+            total += position.getQuantity();
+        }
+        return total;
+    }
+    
+    @Benchmark
+    public long aggregateDeserialized() {
+        return storage.aggregate(pool, () -> new long[1],
+                (total, entry) -> total[0] += entry.value().getQuantity(), StorageScanBenchmark::add)[0];
+    }
+    
+    @Benchmark
+    public long aggregateBytes() {
+        return storage.aggregate(pool, () -> new long[1],
+                (total, entry) -> total[0] += entry.valueBytes().readLong(entry.valueOffset() + QUANTITY_OFFSET),
+                StorageScanBenchmark::add)[0];
+    }
+    
+    private static long[] add(long[] left, long[] right) {
+        left[0] += right[0];
+        return left;
+    }
+}
@@ -0,0 +1,131 @@
+package com.lowlatency.benchmark;
+
+import com.lowlatency.storage.ChronicleMapStorage;
+import com.lowlatency.storage.Position;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Position records stored as String/String vs long keys with a fixed-width Position value,
+ * plus allocating get/put against getUsing and in-place update on the typed map.
+ * Add -prof gc to see the allocation difference.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TypedStorageBenchmark {
+    
+    private static final int KEY_COUNT = 100_000;
+    
+    private ChronicleMapStorage<String, String> stringStorage;
+    private ChronicleMapStorage<Long, Position> typedStorage;
+    private String[] stringKeys;
+    private final Position position = new Position();
+    private final Position reusable = new Position();
+    private int index;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        stringStorage = ChronicleMapStorage.createInMemory(String.class, String.class, KEY_COUNT * 2L);
+        typedStorage = ChronicleMapStorage.createInMemory(long.class, Position.class, KEY_COUNT * 2L);
+        
+        stringKeys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            stringKeys[i] = "position:" + i;
+            fill(i);
+            stringStorage.put(stringKeys[i], encode(position));
+            typedStorage.put((long) i, position);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stringStorage.close();
+        typedStorage.close();
+    }
+    
+    private int nextIndex() {
+        int i = index + 1;
+        if (i == KEY_COUNT) {
+            i = 0;
+        }
+        index = i;
+        return i;
+    }
+    
+    private void fill(int i) {
+        position.setSymbolId(i);
+        position.setQuantity(i * 100L);
+        position.setAveragePrice(100.0 + i * 0.01);
+        position.setRealizedPnl(i * 0.5);
+        position.setTimestamp(System.nanoTime());
+    }
+    
+    private static String encode(Position p) {
+        return p.getSymbolId() + "|" + p.getQuantity() + "|" + p.getAveragePrice() + "|" 
+                + p.getRealizedPnl() + "|" + p.getTimestamp();
+    }
+    
+    private static long decodeQuantity(String encoded) {
+        int start = encoded.indexOf('|') + 1;
+        return Long.parseLong(encoded, start, encoded.indexOf('|', start), 10);
+    }
+    
+    @Benchmark
+    public long getString() {
+        return decodeQuantity(stringStorage.get(stringKeys[nextIndex()]));
+    }
+    
+    @Benchmark
+    public long getTyped() {
+        return typedStorage.get((long) nextIndex()).getQuantity();
+    }
+    
+    @Benchmark
+    public Object putString() {
+        int i = nextIndex();
+        fill(i);
+        return stringStorage.put(stringKeys[i], encode(position));
+    }
+    
+    @Benchmark
+    public Object putTyped() {
+        int i = nextIndex();
+        fill(i);
+        return typedStorage.put((long) i, position);
+    }
+    
+    @Benchmark
+    public long getTypedUsing() {
+        return typedStorage.getUsing((long) nextIndex(), reusable).getQuantity();
+    }
+    
+    @Benchmark
+    public Object incrementGetPut() {
+        long key = nextIndex();
+        Position current = typedStorage.get(key);
+        current.setQuantity(current.getQuantity() + 1);
+        return typedStorage.put(key, current);
+    }
+    
+    @Benchmark
+    public boolean incrementInPlace() {
+        return typedStorage.update((long) nextIndex(), reusable, p -> p.setQuantity(p.getQuantity() + 1));
+    }
+}
@@ -0,0 +1,90 @@
+package com.lowlatency.benchmark;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+import com.lowlatency.storage.ChronicleMapStorage;
+import com.lowlatency.storage.WriteBehindStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caller-side cost of a persisted put: synchronous vs write-behind with per-batch coalescing.
+ * Writes cycle over hotKeys keys, so fewer keys means more coalescing.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriteBehindBenchmark {
+    
+    @Param({"SYNC", "WRITE_BEHIND"})
+    public String mode;
+    
+    @Param({"1000", "100000"})
+    public int hotKeys;
+    
+    private ChronicleMapStorage<String, String> storage;
+    private WriteBehindStorage<String, String> writeBehind;
+    private Path mapFile;
+    private String[] keys;
+    private String[] values;
+    private int index;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        keys = new String[hotKeys];
+        values = new String[hotKeys];
+        for (int i = 0; i < hotKeys; i++) {
+            keys[i] = "key" + i;
+            values[i] = "value" + i;
+        }
+        mapFile = Files.createTempFile("write-behind-bench", ".dat");
+        Files.delete(mapFile);
+        storage = ChronicleMapStorage.create(String.class, String.class, hotKeys * 2L, mapFile.toString());
+        if ("WRITE_BEHIND".equals(mode)) {
+            writeBehind = WriteBehindStorage.start(storage, 64 * 1024, DaemonThreadFactory.INSTANCE, 
+                    new BlockingWaitStrategy());
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+        storage.close();
+        Files.deleteIfExists(mapFile);
+    }
+    
+    @Benchmark
+    public long put() {
+        int i = index + 1;
+        if (i == hotKeys) {
+            i = 0;
+        }
+        index = i;
+        if (writeBehind != null) {
+            return writeBehind.put(keys[i], values[i]);
+        }
+        storage.put(keys[i], values[i]);
+        return WriteBehindStorage.APPLIED;
+    }
+}
@@ -1,17 +1,59 @@
 package com.lowlatency;
 
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.EventFactory;
 import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
 import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
 import com.lmax.disruptor.util.DaemonThreadFactory;
 import com.lowlatency.core.Event;
+import com.lowlatency.core.EventBatchTranslator;
+import com.lowlatency.core.LatencySnapshot;
 import com.lowlatency.core.LowLatencyEventFactory;
 import com.lowlatency.core.LowLatencyEventHandler;
+import com.lowlatency.core.OffHeapEventFactory;
+import com.lowlatency.core.SymbolRegistry;
+import com.lowlatency.journal.EventJournal;
+import com.lowlatency.journal.JournalReader;
+import com.lowlatency.marketdata.Quote;
+import com.lowlatency.marketdata.TradeStats;
+import com.lowlatency.matching.MatchingEngine;
+import com.lowlatency.matching.TradeListener;
+import com.lowlatency.pipeline.Pipeline;
+import com.lowlatency.pipeline.PipelineMonitor;
+import com.lowlatency.pipeline.StageStats;
 import com.lowlatency.pool.ObjectPool;
+import com.lowlatency.pool.ObjectPoolStats;
+import com.lowlatency.snapshot.SnapshotStore;
+import com.lowlatency.storage.BulkProgressListener;
 import com.lowlatency.storage.ChronicleMapStorage;
+import com.lowlatency.storage.NearCache;
+import com.lowlatency.storage.NearCacheStats;
+import com.lowlatency.storage.StorageDurability;
+import com.lowlatency.storage.StorageEntry;
+import com.lowlatency.storage.WriteBehindStorage;
 import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * Main low-latency processing engine combining Disruptor, Chronicle Map, and Object Pooling
@@ -22,86 +64,495 @@ public class LowLatencyEngine implements AutoCloseable {
     private static final int RING_BUFFER_SIZE = 1024 * 64; // Must be power of 2
     private static final int OBJECT_POOL_SIZE = 1000;
     private static final long STORAGE_ENTRIES = 1_000_000;
+    private static final String STORAGE_FILE = "low-latency-data.dat";
+    private static final String MAIN_HANDLER = "MainHandler";
+    private static final int MAX_SYMBOLS = 4096;
+    private static final String JOURNAL_STAGE = "journal";
+    private static final int REPLAY_BATCH = 1024;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final long STORAGE_CAPACITY_CHECK_MILLIS = 1000;
     
     private final Disruptor<Event> disruptor;
     private final RingBuffer<Event> ringBuffer;
     private final ObjectPool<StringBuilder> stringBuilderPool;
     private final ChronicleMapStorage<String, String> storage;
+    // Null when getData always reads the map
+    private final NearCache<String, String> nearCache;
+    // Null when storeData writes synchronously
+    private final WriteBehindStorage<String, String> writeBehind;
+    private final SymbolRegistry symbolRegistry;
+    private final LowLatencyEventHandler[] eventHandlers;
+    // Last handler in the topology; with SEQUENTIAL it sees the full end-to-end latency
     private final LowLatencyEventHandler eventHandler;
+    private final int shardCount;
+    private final int ringBufferSize;
+    private final PipelineMonitor pipelineMonitor;
+    private final EventJournal journal;
+    private final SnapshotStore snapshotStore;
+    private final ScheduledExecutorService snapshotScheduler;
+    // Journal position covered by the snapshot loaded at startup; replay starts after it
+    private final long restoredPosition;
     
     public LowLatencyEngine() throws IOException {
-        log.info("Initializing LowLatencyEngine with ringBufferSize={}, objectPoolSize={}, storageEntries={}", 
-                RING_BUFFER_SIZE, OBJECT_POOL_SIZE, STORAGE_ENTRIES);
+        this(builder());
+    }
+    
+    private LowLatencyEngine(Builder builder) throws IOException {
+        log.info("Initializing LowLatencyEngine with ringBufferSize={}, producerType={}, waitStrategy={}, eventLayout={}, " 
+                + "objectPoolSize={}, storageEntries={}, storageFile={}, maxSymbols={}, shards={}", 
+                builder.ringBufferSize, builder.producerType, builder.waitStrategy, builder.eventLayout, 
+                builder.objectPoolSize, builder.storageEntries, builder.storageFile, builder.maxSymbols, builder.shards);
+        
+        this.symbolRegistry = new SymbolRegistry(builder.maxSymbols);
         
         // Initialize object pool for StringBuilder reuse
         log.debug("Initializing StringBuilder object pool");
         this.stringBuilderPool = new ObjectPool<>(
             () -> new StringBuilder(256), 
-            OBJECT_POOL_SIZE / 2, 
-            OBJECT_POOL_SIZE
+            builder.objectPoolSize / 2, 
+            builder.objectPoolSize
         );
         
         // Initialize Chronicle Map storage
         log.debug("Initializing Chronicle Map storage");
-        this.storage = ChronicleMapStorage.create(
-            String.class, 
-            String.class, 
-            STORAGE_ENTRIES, 
-            "low-latency-data.dat"
-        );
-        
-        // Initialize Disruptor
-        log.debug("Initializing LMAX Disruptor with ring buffer size: {}", RING_BUFFER_SIZE);
-        ThreadFactory threadFactory = DaemonThreadFactory.INSTANCE;
-        this.disruptor = new Disruptor<>(new LowLatencyEventFactory(), RING_BUFFER_SIZE, threadFactory);
-        
-        // Set up event handler
-        log.debug("Setting up event handler: MainHandler");
-        this.eventHandler = new LowLatencyEventHandler("MainHandler");
-        this.disruptor.handleEventsWith(eventHandler);
-        
-        // Start the disruptor
-        log.info("Starting LMAX Disruptor");
-        this.disruptor.start();
-        this.ringBuffer = disruptor.getRingBuffer();
+        if (builder.storageFile != null) {
+            this.storage = ChronicleMapStorage.create(
+                String.class, 
+                String.class, 
+                builder.storageEntries, 
+                builder.storageFile,
+                builder.storageDurability,
+                builder.storageSyncIntervalMillis
+            );
+        } else {
+            this.storage = ChronicleMapStorage.createInMemory(String.class, String.class, builder.storageEntries);
+        }
+        // Anything that fails from here on must not leak the map, its timers or the threads started so far
+        Deque<AutoCloseable> opened = new ArrayDeque<>();
+        opened.push(storage);
+        try {
+            if (builder.sortedStorageIndex) {
+                storage.enableSortedIndex();
+            }
+            if (builder.storageGrowthThreshold > 0) {
+                storage.enableAutoGrowth(builder.storageGrowthThreshold, builder.storageGrowthFactor, 
+                        STORAGE_CAPACITY_CHECK_MILLIS);
+            }
+            this.nearCache = builder.nearCacheCapacity > 0 ? new NearCache<>(builder.nearCacheCapacity, storage::get) : null;
+            if (builder.writeBehindBufferSize > 0) {
+                // Invalidate only once the map has the new value, or a concurrent miss could re-cache the old one
+                this.writeBehind = WriteBehindStorage.start(storage, builder.writeBehindBufferSize, 
+                        builder.threadFactory, builder.waitStrategy.create(), 
+                        nearCache != null ? nearCache::invalidate : key -> { });
+                opened.push(writeBehind);
+            } else {
+                this.writeBehind = null;
+            }
+            
+            // Initialize Disruptor
+            log.debug("Initializing LMAX Disruptor with ring buffer size: {}", builder.ringBufferSize);
+            EventFactory<Event> eventFactory = builder.eventLayout == EventLayout.OFF_HEAP
+                ? new OffHeapEventFactory(builder.ringBufferSize, symbolRegistry)
+                : new LowLatencyEventFactory();
+            this.disruptor = new Disruptor<>(
+                eventFactory, 
+                builder.ringBufferSize, 
+                builder.threadFactory, 
+                builder.producerType, 
+                builder.waitStrategy.create()
+            );
+            
+            // Set up event handlers
+            this.shardCount = builder.shards;
+            if (shardCount > 1) {
+                log.debug("Setting up {} sharded handlers for {}", shardCount, builder.handlerNames.get(0));
+                this.eventHandlers = new LowLatencyEventHandler[shardCount];
+                for (int i = 0; i < shardCount; i++) {
+                    eventHandlers[i] = new LowLatencyEventHandler(
+                        builder.handlerNames.get(0) + "-" + i, 
+                        builder.maxSymbols, 
+                        builder.maxOrdersPerBook, 
+                        builder.maxLevelsPerSide, 
+                        builder.tickSize, 
+                        builder.tradeListener, 
+                        i, 
+                        shardCount
+                    );
+                }
+            } else {
+                log.debug("Setting up event handlers: {} ({})", builder.handlerNames, builder.topology);
+                this.eventHandlers = new LowLatencyEventHandler[builder.handlerNames.size()];
+                for (int i = 0; i < eventHandlers.length; i++) {
+                    eventHandlers[i] = new LowLatencyEventHandler(
+                        builder.handlerNames.get(i), 
+                        builder.maxSymbols, 
+                        builder.maxOrdersPerBook, 
+                        builder.maxLevelsPerSide, 
+                        builder.tickSize, 
+                        builder.tradeListener
+                    );
+                }
+            }
+            this.eventHandler = eventHandlers[eventHandlers.length - 1];
+            if (builder.snapshotDirectory != null) {
+                this.snapshotStore = SnapshotStore.open(Path.of(builder.snapshotDirectory), eventHandlers.length, symbolRegistry);
+                opened.push(snapshotStore);
+                this.restoredPosition = restoreSnapshot(snapshotStore.loadLatest());
+                for (int i = 0; i < eventHandlers.length; i++) {
+                    eventHandlers[i].attachSnapshotStore(snapshotStore, i);
+                }
+            } else {
+                this.snapshotStore = null;
+                this.restoredPosition = 0;
+            }
+            if (builder.journalDirectory != null) {
+                this.journal = EventJournal.open(Path.of(builder.journalDirectory), builder.journalSegmentSize, 
+                        builder.journalForceOnBatchEnd);
+                opened.push(journal);
+            } else {
+                this.journal = null;
+            }
+            Pipeline pipeline;
+            if (builder.pipeline != null) {
+                pipeline = builder.pipeline;
+            } else if (journal != null) {
+                // Business logic only sees events once they are in the journal
+                pipeline = Pipeline.builder().stage(JOURNAL_STAGE, journal).engineStage().build();
+            } else {
+                pipeline = Pipeline.builder().engineStage().build();
+            }
+            log.debug("Wiring pipeline: {}", pipeline);
+            this.pipelineMonitor = pipeline.wire(disruptor, eventHandlers, 
+                    shardCount == 1 && builder.topology == HandlerTopology.SEQUENTIAL);
+            
+            // Start the disruptor
+            log.info("Starting LMAX Disruptor");
+            this.disruptor.start();
+            opened.push(disruptor::halt);
+            this.ringBuffer = disruptor.getRingBuffer();
+            this.ringBufferSize = builder.ringBufferSize;
+            
+            if (snapshotStore != null && builder.snapshotIntervalMillis > 0) {
+                this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "snapshot-scheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                snapshotScheduler.scheduleAtFixedRate(this::requestSnapshot, 
+                        builder.snapshotIntervalMillis, builder.snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+            } else {
+                this.snapshotScheduler = null;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("LowLatencyEngine failed to start, closing what was already opened: {}", e.toString());
+            while (!opened.isEmpty()) {
+                try {
+                    opened.pop().close();
+                } catch (Exception suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
         
         log.info("LowLatencyEngine initialized successfully");
     }
     
+    public static Builder builder() {
+        return new Builder();
+    }
+    
     /**
-     * Publish an event to the ring buffer
+     * Load handler state and the symbol table from a snapshot before the handlers start
      */
-    public void publishEvent(String symbol, double price, long quantity, Event.EventType type) {
-        log.trace("Publishing event: symbol={}, price={}, quantity={}, type={}", symbol, price, quantity, type);
+    private long restoreSnapshot(SnapshotStore.Snapshot snapshot) {
+        if (snapshot == null) {
+            return 0;
+        }
+        List<String> symbols = snapshot.getSymbols();
+        for (int id = 0; id < symbols.size(); id++) {
+            if (symbolRegistry.register(symbols.get(id)) != id) {
+                throw new IllegalStateException("Symbol registry does not match snapshot at " + symbols.get(id));
+            }
+        }
+        for (int i = 0; i < eventHandlers.length; i++) {
+            eventHandlers[i].readSnapshot(snapshot.getStates()[i]);
+        }
+        log.info("Restored snapshot at journal position {}", snapshot.getPosition());
+        return snapshot.getPosition();
+    }
+    
+    /**
+     * Register a symbol up front (e.g. at subscription time) and get its dense ID
+     */
+    public int registerSymbol(CharSequence symbol) {
+        return symbolRegistry.register(symbol);
+    }
+    
+    public SymbolRegistry getSymbolRegistry() {
+        return symbolRegistry;
+    }
+    
+    /**
+     * Publish an event to the ring buffer. Unknown symbols are registered on first use,
+     * which is the only case that allocates.
+     */
+    public void publishEvent(CharSequence symbol, double price, long quantity, Event.EventType type) {
+        int symbolId = symbol != null ? symbolRegistry.resolve(symbol) : SymbolRegistry.NO_SYMBOL;
+        publishEvent(symbolId, price, quantity, type);
+    }
+    
+    /**
+     * Publish an event for an ASCII symbol slice, e.g. straight out of a decoded packet.
+     *
+     * @throws IllegalArgumentException if the symbol was never registered
+     */
+    public void publishEvent(byte[] symbol, int offset, int length, double price, long quantity, Event.EventType type) {
+        int symbolId = symbolRegistry.lookup(symbol, offset, length);
+        if (symbolId == SymbolRegistry.NO_SYMBOL) {
+            throw new IllegalArgumentException("Unregistered symbol: " + new String(symbol, offset, length, StandardCharsets.US_ASCII));
+        }
+        publishEvent(symbolId, price, quantity, type);
+    }
+    
+    /**
+     * Publish an event for a symbol ID obtained from registerSymbol
+     */
+    public void publishEvent(int symbolId, double price, long quantity, Event.EventType type) {
+        // Guarded: the varargs array and boxing would otherwise allocate on every publish
+        if (log.isTraceEnabled()) {
+            log.trace("Publishing event: symbolId={}, price={}, quantity={}, type={}", symbolId, price, quantity, type);
+        }
         long sequence = ringBuffer.next();
         try {
             Event event = ringBuffer.get(sequence);
             event.setId(sequence);
-            event.setSymbol(symbol);
+            event.assignSymbol(symbolId, symbolRegistry.symbol(symbolId));
             event.setPrice(price);
             event.setQuantity(quantity);
             event.setTimestamp(System.nanoTime());
             event.setType(type);
-            log.trace("Event published with sequence: {}", sequence);
+            event.setOrderId(0);
+            event.setSide(null);
+            event.setAction(null);
         } finally {
             ringBuffer.publish(sequence);
         }
     }
     
     /**
-     * Store data using Chronicle Map
+     * Publish a one-sided top-of-book update: BUY sets the bid, SELL the ask
      */
-    public void storeData(String key, String value) {
+    public void publishQuote(int symbolId, Event.Side side, double price, long size) {
+        if (log.isTraceEnabled()) {
+            log.trace("Publishing quote: symbolId={}, side={}, price={}, size={}", symbolId, side, price, size);
+        }
+        long sequence = ringBuffer.next();
+        try {
+            Event event = ringBuffer.get(sequence);
+            event.setId(sequence);
+            event.assignSymbol(symbolId, symbolRegistry.symbol(symbolId));
+            event.setPrice(price);
+            event.setQuantity(size);
+            event.setTimestamp(System.nanoTime());
+            event.setType(Event.EventType.QUOTE);
+            event.setOrderId(0);
+            event.setSide(side);
+            event.setAction(null);
+        } finally {
+            ringBuffer.publish(sequence);
+        }
+    }
+    
+    /**
+     * Publish an order action for the matching engine; fills come back as TRADE events
+     */
+    public void publishOrder(int symbolId, long orderId, Event.Side side, Event.OrderAction action, 
+                             double price, long quantity) {
+        if (log.isTraceEnabled()) {
+            log.trace("Publishing order: symbolId={}, orderId={}, side={}, action={}, price={}, quantity={}", 
+                    symbolId, orderId, side, action, price, quantity);
+        }
+        long sequence = ringBuffer.next();
+        try {
+            Event event = ringBuffer.get(sequence);
+            event.setId(sequence);
+            event.assignSymbol(symbolId, symbolRegistry.symbol(symbolId));
+            event.setPrice(price);
+            event.setQuantity(quantity);
+            event.setTimestamp(System.nanoTime());
+            event.setType(Event.EventType.ORDER);
+            event.setOrderId(orderId);
+            event.setSide(side);
+            event.setAction(action);
+        } finally {
+            ringBuffer.publish(sequence);
+        }
+    }
+    
+    /**
+     * Publish a batch of events, claiming each run of slots with a single next(n) and
+     * publishing it with a single publish(lo, hi). Batches larger than the ring are split.
+     * All events in a run share one timestamp. Translators should set the symbol with
+     * Event.assignSymbol using IDs from getSymbolRegistry().
+     */
+    public <A> void publishEvents(int count, A source, EventBatchTranslator<A> translator) {
+        if (log.isTraceEnabled()) {
+            log.trace("Publishing batch of {} events", count);
+        }
+        int offset = 0;
+        while (offset < count) {
+            int runSize = Math.min(count - offset, ringBufferSize);
+            long hi = ringBuffer.next(runSize);
+            long lo = hi - (runSize - 1);
+            try {
+                long timestamp = System.nanoTime();
+                for (long sequence = lo; sequence <= hi; sequence++) {
+                    Event event = ringBuffer.get(sequence);
+                    event.setId(sequence);
+                    event.setTimestamp(timestamp);
+                    translator.translateTo(event, offset++, source);
+                }
+            } finally {
+                ringBuffer.publish(lo, hi);
+            }
+            if (log.isTraceEnabled()) {
+                log.trace("Batch published with sequences: {}..{}", lo, hi);
+            }
+        }
+    }
+    
+    /**
+     * Feed a journal back through the ring at full speed, in claimed runs like publishEvents.
+     * Events already covered by the snapshot loaded at startup are skipped, so recovery time
+     * depends on the snapshot interval rather than the journal's length.
+     * Symbols are re-resolved by name, so the registry does not need to match the one that wrote it.
+     * Replayed events are not journaled again. Intended for startup, before live publishing.
+     *
+     * @return events replayed
+     */
+    public long replayJournal(String directory) throws IOException {
+        try (JournalReader reader = JournalReader.open(Path.of(directory))) {
+            if (restoredPosition > 0) {
+                long skipped = reader.skip(restoredPosition);
+                log.info("Skipped {} journaled events covered by the snapshot", skipped);
+            }
+            return replay(reader);
+        }
+    }
+    
+    /**
+     * Ask every handler to snapshot its state once it has processed everything published so far.
+     * Handlers copy their state on their own thread and a background thread writes it out.
+     * Publishes a marker event, so with ProducerType.SINGLE call it only from the publishing thread;
+     * any thread may call it under MULTI.
+     *
+     * @throws IllegalStateException if snapshots are not configured
+     */
+    public void requestSnapshot() {
+        if (snapshotStore == null) {
+            throw new IllegalStateException("Snapshots are not configured");
+        }
+        long sequence = ringBuffer.next();
+        try {
+            Event event = ringBuffer.get(sequence);
+            event.setId(sequence);
+            event.assignSymbol(SymbolRegistry.NO_SYMBOL, null);
+            event.setPrice(0);
+            event.setQuantity(0);
+            event.setTimestamp(0);
+            event.setType(Event.EventType.SNAPSHOT);
+            event.setOrderId(0);
+            event.setSide(null);
+            event.setAction(null);
+        } finally {
+            ringBuffer.publish(sequence);
+        }
+    }
+    
+    /**
+     * Journal position of the snapshot loaded at startup, 0 if none
+     */
+    public long getRestoredSnapshotPosition() {
+        return restoredPosition;
+    }
+    
+    /**
+     * Complete snapshots written since startup
+     */
+    public long getSnapshotCount() {
+        return snapshotStore != null ? snapshotStore.getSnapshotCount() : 0;
+    }
+    
+    private long replay(JournalReader reader) throws IOException {
+        log.info("Replaying journal");
+        Event[] batch = new Event[Math.min(REPLAY_BATCH, ringBufferSize)];
+        for (int i = 0; i < batch.length; i++) {
+            batch[i] = new Event();
+        }
+        long replayed = 0;
+        int count;
+        while ((count = reader.read(batch)) > 0) {
+            long hi = ringBuffer.next(count);
+            long lo = hi - (count - 1);
+            try {
+                long timestamp = System.nanoTime();
+                for (int i = 0; i < count; i++) {
+                    Event source = batch[i];
+                    Event event = ringBuffer.get(lo + i);
+                    event.copyFrom(source);
+                    event.setId(lo + i);
+                    event.setTimestamp(timestamp);
+                    if (source.getSymbol() != null) {
+                        event.assignSymbol(symbolRegistry.resolve(source.getSymbol()), source.getSymbol());
+                    }
+                }
+            } finally {
+                if (journal != null) {
+                    journal.skipThrough(hi);
+                }
+                ringBuffer.publish(lo, hi);
+            }
+            replayed += count;
+        }
+        log.info("Replayed {} journaled events", replayed);
+        return replayed;
+    }
+    
+    /**
+     * Store data using Chronicle Map. With write-behind the put is only queued; pass the returned
+     * ticket to awaitStored to wait for it. Synchronous stores return WriteBehindStorage.APPLIED.
+     */
+    public long storeData(String key, String value) {
         log.trace("Storing data: {} -> {}", key, value);
+        if (writeBehind != null) {
+            return writeBehind.put(key, value);
+        }
         storage.put(key, value);
+        // A synchronous store is a batch of one
+        storage.commitBatch();
+        if (nearCache != null) {
+            nearCache.invalidate(key);
+        }
+        return WriteBehindStorage.APPLIED;
     }
     
     /**
-     * Retrieve data from Chronicle Map
+     * Wait until the storeData call that returned this ticket is in the map
+     *
+     * @return false if the timeout elapsed first
+     * @throws IllegalStateException if the write-behind batch holding it failed to apply or commit
+     */
+    public boolean awaitStored(long ticket, long timeout, TimeUnit unit) {
+        return writeBehind == null || writeBehind.awaitDurable(ticket, timeout, unit);
+    }
+    
+    /**
+     * Retrieve data from Chronicle Map, through the near-cache if configured
      */
     public String getData(String key) {
         log.trace("Retrieving data for key: {}", key);
-        String value = storage.get(key);
+        String value = nearCache != null ? nearCache.get(key) : storage.get(key);
         log.trace("Retrieved value: {} for key: {}", value, key);
         return value;
     }
@@ -124,27 +575,226 @@ public class LowLatencyEngine implements AutoCloseable {
     }
     
     /**
-     * Get processing statistics
+     * Get processing statistics: events fully processed by every handler
      */
     public long getProcessedEventCount() {
-        return eventHandler.getProcessedCount();
+        long processed = Long.MAX_VALUE;
+        for (LowLatencyEventHandler handler : eventHandlers) {
+            processed = Math.min(processed, handler.getProcessedCount());
+        }
+        return processed;
+    }
+    
+    /**
+     * Publish-to-handle latency percentiles since the last call; resets the interval.
+     * Reports the last handler in the topology, or all shards merged when sharded.
+     */
+    public LatencySnapshot snapshotAndResetLatency() {
+        if (shardCount == 1) {
+            return eventHandler.snapshotAndResetLatency();
+        }
+        Histogram merged = new Histogram(3);
+        for (LowLatencyEventHandler shard : eventHandlers) {
+            shard.snapshotAndResetLatencyInto(merged);
+        }
+        return LatencySnapshot.of(merged);
+    }
+    
+    /**
+     * Publish-to-handle latency percentiles for a single named handler; resets its interval
+     */
+    public LatencySnapshot snapshotAndResetLatency(String handlerName) {
+        for (LowLatencyEventHandler handler : eventHandlers) {
+            if (handler.getHandlerName().equals(handlerName)) {
+                return handler.snapshotAndResetLatency();
+            }
+        }
+        throw new IllegalArgumentException("Unknown handler: " + handlerName);
+    }
+    
+    /**
+     * Processed count, lag and throughput per pipeline stage since the previous call
+     */
+    public List<StageStats> snapshotStageStats() {
+        return pipelineMonitor.snapshot();
+    }
+    
+    /**
+     * Published events the named pipeline stage has not completed yet
+     */
+    public long getStageLag(String stageName) {
+        return pipelineMonitor.getLag(stageName);
+    }
+    
+    /**
+     * Fills produced by the matching engine of the last handler, summed over shards when sharded
+     */
+    public long getTradeCount() {
+        if (shardCount == 1) {
+            return eventHandler.getMatchingEngine().getTradeCount();
+        }
+        long trades = 0;
+        for (LowLatencyEventHandler shard : eventHandlers) {
+            trades += shard.getMatchingEngine().getTradeCount();
+        }
+        return trades;
+    }
+    
+    /**
+     * Copy the symbol's OHLC/VWAP/volume into a caller-owned instance. Safe from any thread,
+     * never blocks the handler. Returns false if the symbol has not traded.
+     */
+    public boolean readTradeStats(int symbolId, TradeStats into) {
+        return handlerFor(symbolId).getTradeAnalytics().read(symbolId, into);
+    }
+    
+    /**
+     * Copy the symbol's latest bid/ask into a caller-owned instance. Safe from any thread at any rate;
+     * readers never block the handler. Returns false if the symbol was never quoted.
+     */
+    public boolean readQuote(int symbolId, Quote into) {
+        return handlerFor(symbolId).getQuoteCache().read(symbolId, into);
+    }
+    
+    /**
+     * Handler holding the symbol's state: its shard when sharded, otherwise the last handler
+     */
+    private LowLatencyEventHandler handlerFor(int symbolId) {
+        return shardCount == 1 ? eventHandler : eventHandlers[LowLatencyEventHandler.shardOf(symbolId, shardCount)];
     }
     
     public int getStringBuilderPoolSize() {
         return stringBuilderPool.size();
     }
     
+    /**
+     * StringBuilder pool acquires, misses, discards and idle water marks, for sizing objectPoolSize
+     */
+    public ObjectPoolStats getStringBuilderPoolStats() {
+        return stringBuilderPool.stats();
+    }
+    
     public long getStorageSize() {
         return storage.size();
     }
     
+    /**
+     * Visit stored keys starting with prefix in key order until visitor returns false.
+     * Needs sortedStorageIndex(); runs in O(log n + matches) rather than scanning the map.
+     *
+     * @return number of keys visited
+     */
+    public long forEachStoredKeyWithPrefix(String prefix, Predicate<String> visitor) {
+        return storage.forEachKeyWithPrefix(prefix, visitor);
+    }
+    
+    /**
+     * Visit stored keys in [fromInclusive, toExclusive) in key order until visitor returns false.
+     * Needs sortedStorageIndex(); a null bound is open.
+     *
+     * @return number of keys visited
+     */
+    public long forEachStoredKeyInRange(String fromInclusive, String toExclusive, Predicate<String> visitor) {
+        return storage.forEachKeyInRange(fromInclusive, toExclusive, visitor);
+    }
+    
+    /**
+     * Count stored entries matching filter, scanning storage segments in parallel. Stores still
+     * queued by write-behind are not seen.
+     */
+    public long countStoredEntries(Predicate<? super StorageEntry<String, String>> filter) {
+        return storage.count(filter);
+    }
+    
+    /**
+     * Keys of the stored entries matching filter, in no particular order
+     */
+    public List<String> filterStoredKeys(Predicate<? super StorageEntry<String, String>> filter) {
+        return storage.filterKeys(filter);
+    }
+    
+    /**
+     * Entries the storage map is currently sized for; grows with storageAutoGrowth()
+     */
+    public long getStorageCapacity() {
+        return storage.getEntries();
+    }
+    
+    /**
+     * Write every stored entry to a bulk file, segment-parallel on the common fork-join pool,
+     * once queued write-behind stores are applied
+     *
+     * @return number of entries exported
+     */
+    public long exportStorage(String fileName) throws IOException {
+        applyQueuedStores();
+        return storage.exportTo(fileName);
+    }
+    
+    /**
+     * Load a file written by exportStorage() in parallel instead of one storeData() per key,
+     * overwriting existing keys. The near-cache is dropped afterwards.
+     *
+     * @return number of entries imported
+     */
+    public long importStorage(String fileName, BulkProgressListener progress) throws IOException {
+        applyQueuedStores();
+        long imported = storage.importFrom(fileName, ForkJoinPool.commonPool(), progress);
+        if (nearCache != null) {
+            nearCache.invalidateAll();
+        }
+        return imported;
+    }
+    
+    private void applyQueuedStores() throws IOException {
+        if (writeBehind != null && !writeBehind.flush(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            throw new IOException("Queued stores not applied within " + SHUTDOWN_TIMEOUT_SECONDS + "s");
+        }
+    }
+    
+    /**
+     * Near-cache hits, misses and evictions since startup
+     *
+     * @throws IllegalStateException if the engine was built without nearCache()
+     */
+    public NearCacheStats getNearCacheStats() {
+        if (nearCache == null) {
+            throw new IllegalStateException("Near-cache is not configured");
+        }
+        return nearCache.stats();
+    }
+    
     @Override
     public void close() {
         log.info("Shutting down LowLatencyEngine");
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
         if (disruptor != null) {
-            log.debug("Halting and shutting down Disruptor");
+            log.debug("Draining and shutting down Disruptor");
+            // Let every stage finish what has been published so nothing is lost. Disruptor.shutdown()
+            // ignores consumers whose threads have not started yet, so wait on the sequences directly.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT_SECONDS);
+            while (!pipelineMonitor.isDrained()) {
+                if (System.nanoTime() > deadline) {
+                    log.warn("Disruptor did not drain within {}s, halting", SHUTDOWN_TIMEOUT_SECONDS);
+                    break;
+                }
+                LockSupport.parkNanos(100_000);
+            }
             disruptor.halt();
-            disruptor.shutdown();
+        }
+        if (journal != null) {
+            log.debug("Closing event journal");
+            journal.close();
+        }
+        if (snapshotStore != null) {
+            log.debug("Closing snapshot store");
+            snapshotStore.close();
+        }
+        if (writeBehind != null) {
+            log.debug("Flushing write-behind storage");
+            writeBehind.close();
         }
         if (storage != null) {
             log.debug("Closing Chronicle Map storage");
@@ -153,31 +803,357 @@ public class LowLatencyEngine implements AutoCloseable {
         log.info("LowLatencyEngine shutdown completed");
     }
     
+    /**
+     * Disruptor wait strategies, from lowest latency/highest CPU to highest latency/lowest CPU
+     */
+    public enum WaitStrategyType {
+        BUSY_SPIN(BusySpinWaitStrategy::new),
+        YIELDING(YieldingWaitStrategy::new),
+        SLEEPING(SleepingWaitStrategy::new),
+        BLOCKING(BlockingWaitStrategy::new);
+        
+        private final Supplier<WaitStrategy> factory;
+        
+        WaitStrategyType(Supplier<WaitStrategy> factory) {
+            this.factory = factory;
+        }
+        
+        public WaitStrategy create() {
+            return factory.get();
+        }
+    }
+    
+    /**
+     * How ring buffer slots are stored
+     */
+    public enum EventLayout {
+        /** One heap Event object per slot */
+        HEAP,
+        /** Fixed-width records in one contiguous direct buffer, read through OffHeapEvent flyweights */
+        OFF_HEAP
+    }
+    
+    /**
+     * How configured handlers are wired onto the ring buffer
+     */
+    public enum HandlerTopology {
+        /** Every handler sees every event independently */
+        PARALLEL,
+        /** Each handler sees an event only after the previous handler has processed it */
+        SEQUENTIAL
+    }
+    
+    /**
+     * Engine configuration. Defaults match the no-arg constructor: 64K ring, MULTI producer, BLOCKING wait.
+     */
+    public static final class Builder {
+        private int ringBufferSize = RING_BUFFER_SIZE;
+        private ProducerType producerType = ProducerType.MULTI;
+        private WaitStrategyType waitStrategy = WaitStrategyType.BLOCKING;
+        private ThreadFactory threadFactory = DaemonThreadFactory.INSTANCE;
+        private int objectPoolSize = OBJECT_POOL_SIZE;
+        private String storageFile = STORAGE_FILE;
+        private long storageEntries = STORAGE_ENTRIES;
+        private List<String> handlerNames = List.of(MAIN_HANDLER);
+        private HandlerTopology topology = HandlerTopology.PARALLEL;
+        private int maxSymbols = MAX_SYMBOLS;
+        private EventLayout eventLayout = EventLayout.HEAP;
+        private int maxOrdersPerBook = MatchingEngine.DEFAULT_MAX_ORDERS_PER_BOOK;
+        private int maxLevelsPerSide = MatchingEngine.DEFAULT_MAX_LEVELS_PER_SIDE;
+        private double tickSize = MatchingEngine.DEFAULT_TICK_SIZE;
+        private TradeListener tradeListener;
+        private Pipeline pipeline;
+        private int shards = 1;
+        private String journalDirectory;
+        private int journalSegmentSize = EventJournal.DEFAULT_SEGMENT_SIZE;
+        private boolean journalForceOnBatchEnd;
+        private String snapshotDirectory;
+        private long snapshotIntervalMillis;
+        private int writeBehindBufferSize;
+        private int nearCacheCapacity;
+        private StorageDurability storageDurability = StorageDurability.OS_MANAGED;
+        private long storageSyncIntervalMillis;
+        private double storageGrowthThreshold;
+        private double storageGrowthFactor;
+        private boolean sortedStorageIndex;
+        
+        private Builder() {
+        }
+        
+        /**
+         * Ring buffer slots, must be a power of 2
+         */
+        public Builder ringBufferSize(int ringBufferSize) {
+            if (ringBufferSize < 1 || Integer.bitCount(ringBufferSize) != 1) {
+                throw new IllegalArgumentException("ringBufferSize must be a power of 2: " + ringBufferSize);
+            }
+            this.ringBufferSize = ringBufferSize;
+            return this;
+        }
+        
+        /**
+         * Use SINGLE only when exactly one thread ever publishes; it skips the sequencer CAS
+         */
+        public Builder producerType(ProducerType producerType) {
+            this.producerType = producerType;
+            return this;
+        }
+        
+        public Builder waitStrategy(WaitStrategyType waitStrategy) {
+            this.waitStrategy = waitStrategy;
+            return this;
+        }
+        
+        public Builder threadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+        
+        public Builder objectPoolSize(int objectPoolSize) {
+            if (objectPoolSize < 1) {
+                throw new IllegalArgumentException("objectPoolSize must be positive: " + objectPoolSize);
+            }
+            this.objectPoolSize = objectPoolSize;
+            return this;
+        }
+        
+        /**
+         * Chronicle Map file to persist to, or null for an in-memory map
+         */
+        public Builder storageFile(String storageFile) {
+            this.storageFile = storageFile;
+            return this;
+        }
+        
+        public Builder inMemoryStorage() {
+            return storageFile(null);
+        }
+        
+        /**
+         * When the persisted map is msync'd. GROUP_COMMIT syncs after every synchronous storeData, or
+         * once per applied batch with writeBehindStorage(). syncIntervalMillis is only used by PERIODIC_SYNC.
+         */
+        public Builder storageDurability(StorageDurability durability, long syncIntervalMillis) {
+            if (durability == StorageDurability.PERIODIC_SYNC && syncIntervalMillis < 1) {
+                throw new IllegalArgumentException("syncIntervalMillis must be positive: " + syncIntervalMillis);
+            }
+            this.storageDurability = durability;
+            this.storageSyncIntervalMillis = syncIntervalMillis;
+            return this;
+        }
+        
+        /**
+         * Once storage holds threshold * storageEntries entries, migrate online to a map growthFactor
+         * times larger. Checked every second; reads and writes continue during the migration.
+         */
+        public Builder storageAutoGrowth(double threshold, double growthFactor) {
+            if (threshold <= 0 || threshold > 1 || growthFactor <= 1) {
+                throw new IllegalArgumentException("Invalid storage auto-growth: threshold=" + threshold 
+                        + ", growthFactor=" + growthFactor);
+            }
+            this.storageGrowthThreshold = threshold;
+            this.storageGrowthFactor = growthFactor;
+            return this;
+        }
+        
+        /**
+         * Keep a sorted off-heap index of storage keys for forEachStoredKeyWithPrefix and
+         * forEachStoredKeyInRange. Each new or removed key then also takes the index lock.
+         */
+        public Builder sortedStorageIndex() {
+            this.sortedStorageIndex = true;
+            return this;
+        }
+        
+        public Builder storageEntries(long storageEntries) {
+            if (storageEntries < 1) {
+                throw new IllegalArgumentException("storageEntries must be positive: " + storageEntries);
+            }
+            this.storageEntries = storageEntries;
+            return this;
+        }
+        
+        /**
+         * Queue storeData writes to a persistence thread that coalesces repeated keys per batch.
+         * getData then only sees a write once it has been applied; use awaitStored to wait for it.
+         */
+        public Builder writeBehindStorage(int bufferSize) {
+            if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+                throw new IllegalArgumentException("bufferSize must be a power of 2: " + bufferSize);
+            }
+            this.writeBehindBufferSize = bufferSize;
+            return this;
+        }
+        
+        /**
+         * Cache up to this many deserialized values in front of the map for getData (CLOCK eviction).
+         * storeData invalidates the cached key once the map holds the new value.
+         */
+        public Builder nearCache(int capacity) {
+            if (capacity < 1) {
+                throw new IllegalArgumentException("capacity must be positive: " + capacity);
+            }
+            this.nearCacheCapacity = capacity;
+            return this;
+        }
+        
+        public Builder eventLayout(EventLayout eventLayout) {
+            this.eventLayout = eventLayout;
+            return this;
+        }
+        
+        /**
+         * Upper bound on distinct symbols; per-symbol state is sized from this
+         */
+        public Builder maxSymbols(int maxSymbols) {
+            if (maxSymbols < 1) {
+                throw new IllegalArgumentException("maxSymbols must be positive: " + maxSymbols);
+            }
+            this.maxSymbols = maxSymbols;
+            return this;
+        }
+        
+        /**
+         * Order book sizing; books are preallocated per symbol on its first order
+         */
+        public Builder orderBook(int maxOrdersPerBook, int maxLevelsPerSide, double tickSize) {
+            if (maxOrdersPerBook < 1 || maxLevelsPerSide < 1 || tickSize <= 0) {
+                throw new IllegalArgumentException("Invalid order book sizing: maxOrdersPerBook=" + maxOrdersPerBook 
+                        + ", maxLevelsPerSide=" + maxLevelsPerSide + ", tickSize=" + tickSize);
+            }
+            this.maxOrdersPerBook = maxOrdersPerBook;
+            this.maxLevelsPerSide = maxLevelsPerSide;
+            this.tickSize = tickSize;
+            return this;
+        }
+        
+        /**
+         * Called on the handler thread for every fill
+         */
+        public Builder tradeListener(TradeListener tradeListener) {
+            this.tradeListener = tradeListener;
+            return this;
+        }
+        
+        /**
+         * One LowLatencyEventHandler per name, wired according to the topology
+         */
+        public Builder handlers(HandlerTopology topology, String... handlerNames) {
+            if (handlerNames.length == 0) {
+                throw new IllegalArgumentException("At least one handler is required");
+            }
+            this.topology = topology;
+            this.handlerNames = new ArrayList<>(List.of(handlerNames));
+            return this;
+        }
+        
+        /**
+         * Split the engine's handler into this many parallel consumers, each owning the symbols that
+         * map to it. Per-symbol order is kept; the trade listener is then called from several threads.
+         * Requires a single handler name.
+         */
+        public Builder shards(int shards) {
+            if (shards < 1) {
+                throw new IllegalArgumentException("shards must be positive: " + shards);
+            }
+            this.shards = shards;
+            return this;
+        }
+        
+        /**
+         * Journal every event to this directory in a stage ahead of the engine handlers
+         */
+        public Builder journal(String directory) {
+            return journal(directory, EventJournal.DEFAULT_SEGMENT_SIZE, false);
+        }
+        
+        /**
+         * Journal with a custom segment size; forceOnBatchEnd msyncs every batch for power-loss durability
+         */
+        public Builder journal(String directory, int segmentSize, boolean forceOnBatchEnd) {
+            this.journalDirectory = directory;
+            this.journalSegmentSize = segmentSize;
+            this.journalForceOnBatchEnd = forceOnBatchEnd;
+            return this;
+        }
+        
+        /**
+         * Load the latest snapshot from this directory at startup and write a new one every interval
+         * (0 for requestSnapshot() only). Pair with journal() so replayJournal() can fill in the tail.
+         * A non-zero interval publishes markers from a timer thread and so needs ProducerType.MULTI.
+         */
+        public Builder snapshots(String directory, long intervalMillis) {
+            if (intervalMillis < 0) {
+                throw new IllegalArgumentException("intervalMillis must not be negative: " + intervalMillis);
+            }
+            this.snapshotDirectory = directory;
+            this.snapshotIntervalMillis = intervalMillis;
+            return this;
+        }
+        
+        /**
+         * Extra consumer stages around the engine's handlers, e.g. journal before and egress after.
+         * The engine stage runs the handlers configured by handlers(); default is the engine stage alone.
+         */
+        public Builder pipeline(Pipeline pipeline) {
+            this.pipeline = pipeline;
+            return this;
+        }
+        
+        public LowLatencyEngine build() throws IOException {
+            if (shards > 1 && handlerNames.size() > 1) {
+                throw new IllegalArgumentException("Sharding requires a single handler, got " + handlerNames);
+            }
+            if (storageFile == null && storageDurability != StorageDurability.OS_MANAGED) {
+                throw new IllegalArgumentException("storageDurability " + storageDurability + " needs a storageFile");
+            }
+            if (snapshotDirectory != null && snapshotIntervalMillis > 0 && producerType == ProducerType.SINGLE) {
+                // The timer thread would be a second producer on a single-producer sequencer
+                throw new IllegalArgumentException("Periodic snapshots need ProducerType.MULTI; "
+                        + "use interval 0 and call requestSnapshot() from the publishing thread");
+            }
+            if (journalDirectory != null && pipeline != null) {
+                throw new IllegalArgumentException("journal() wires its own stage; add an EventJournal to the pipeline instead");
+            }
+            return new LowLatencyEngine(this);
+        }
+    }
+    
     /**
      * Example usage and performance test
      */
     public static void main(String[] args) throws IOException, InterruptedException {
         log.info("Starting LowLatencyEngine performance test");
         
-        try (LowLatencyEngine engine = new LowLatencyEngine()) {
+        // Single publisher thread below, so skip the multi-producer CAS and avoid lock-based waiting
+        try (LowLatencyEngine engine = LowLatencyEngine.builder()
+                .producerType(ProducerType.SINGLE)
+                .waitStrategy(WaitStrategyType.YIELDING)
+                .build()) {
+            
+            // Resolve symbols once, the hot loops below publish by ID
+            int aapl = engine.registerSymbol("AAPL");
+            int msft = engine.registerSymbol("MSFT");
             
             // Warm up
             log.info("Starting warmup phase with 10,000 events");
             for (int i = 0; i < 10000; i++) {
-                engine.publishEvent("AAPL", 150.0 + i * 0.01, 100, Event.EventType.TRADE);
+                engine.publishEvent(aapl, 150.0 + i * 0.01, 100, Event.EventType.TRADE);
                 engine.storeData("key" + i, "value" + i);
             }
             
-            Thread.sleep(1000); // Let events process
+            awaitProcessed(engine, 10000);
+            engine.snapshotAndResetLatency();
             log.info("Warmup completed");
             
-            // Performance test
+            // Performance test: time runs until the handler has consumed every event, not just until publish returns
             log.info("Starting performance test with 1,000,000 events");
+            long startCount = engine.getProcessedEventCount();
             long startTime = System.nanoTime();
             int eventCount = 1_000_000;
             
             for (int i = 0; i < eventCount; i++) {
-                engine.publishEvent("MSFT", 300.0 + i * 0.001, 50, Event.EventType.QUOTE);
+                engine.publishEvent(msft, 300.0 + i * 0.001, 50, Event.EventType.QUOTE);
                 
                 if (i % 10000 == 0) {
                     engine.storeData("batch" + i, "data" + i);
@@ -187,7 +1163,7 @@ public class LowLatencyEngine implements AutoCloseable {
                 }
             }
             
-            Thread.sleep(2000); // Let all events process
+            awaitProcessed(engine, startCount + eventCount);
             
             long endTime = System.nanoTime();
             long duration = endTime - startTime;
@@ -198,14 +1174,19 @@ public class LowLatencyEngine implements AutoCloseable {
             double avgLatencyNs = (double) duration / eventCount;
             
             log.info("Performance test completed:");
-            log.info("- Processed {} events in {:.2f} ms", eventCount, durationMs);
-            log.info("- Throughput: {:.0f} events/second", throughput);
-            log.info("- Average latency: {:.2f} nanoseconds per event", avgLatencyNs);
+            log.info("- Processed {} events in {} ms", eventCount, String.format("%.2f", durationMs));
+            log.info("- Throughput: {} events/second", String.format("%.0f", throughput));
+            log.info("- Average cost: {} nanoseconds per event", String.format("%.2f", avgLatencyNs));
+            
+            LatencySnapshot latency = engine.snapshotAndResetLatency();
+            log.info("- Publish-to-handle latency (ns): p50={}, p99={}, p99.9={}, max={}", 
+                    latency.getP50(), latency.getP99(), latency.getP999(), latency.getMax());
             
             // Final statistics
             log.info("Final statistics:");
             log.info("- Total processed events: {}", engine.getProcessedEventCount());
             log.info("- StringBuilder pool size: {}", engine.getStringBuilderPoolSize());
+            log.info("- StringBuilder pool: {}", engine.getStringBuilderPoolStats());
             log.info("- Storage entries: {}", engine.getStorageSize());
             
         } catch (Exception e) {
@@ -215,4 +1196,20 @@ public class LowLatencyEngine implements AutoCloseable {
         
         log.info("Performance test completed successfully");
     }
+    
+    /**
+     * Spin until the handler has processed the given number of events.
+     * Use the JMH suite under src/jmh for real measurements; this only keeps main() honest.
+     */
+    private static void awaitProcessed(LowLatencyEngine engine, long expected) {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (engine.getProcessedEventCount() < expected) {
+            if (System.nanoTime() > deadline) {
+                log.warn("Timed out waiting for events: processed={}, expected={}", 
+                        engine.getProcessedEventCount(), expected);
+                return;
+            }
+            Thread.onSpinWait();
+        }
+    }
 }
\ No newline at end of file
@@ -13,39 +13,71 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class Event {
     private long id;
-    private String symbol;
+    private int symbolId = SymbolRegistry.NO_SYMBOL; // dense ID from SymbolRegistry, index for per-symbol arrays
+    private String symbol; // canonical instance owned by the registry, never allocated per event
     private double price;
     private long quantity;
     private long timestamp;
     private EventType type;
+    // ORDER fields; for TRADE events emitted by matching they describe the aggressor
+    private long orderId;
+    private Side side;
+    private OrderAction action;
     
     public enum EventType {
-        TRADE, QUOTE, ORDER
+        TRADE, QUOTE, ORDER,
+        /** Control marker: handlers snapshot their state on reaching it; never journaled */
+        SNAPSHOT
+    }
+    
+    public enum Side {
+        BUY, SELL
+    }
+    
+    public enum OrderAction {
+        NEW, CANCEL, REPLACE
+    }
+    
+    /**
+     * Set the symbol ID together with its canonical String from SymbolRegistry
+     */
+    public void assignSymbol(int symbolId, String symbol) {
+        this.symbolId = symbolId;
+        this.symbol = symbol;
     }
     
     public void reset() {
         log.trace("Resetting event with id: {}", this.id);
         this.id = 0;
+        this.symbolId = SymbolRegistry.NO_SYMBOL;
         this.symbol = null;
         this.price = 0.0;
         this.quantity = 0;
         this.timestamp = 0;
         this.type = null;
+        this.orderId = 0;
+        this.side = null;
+        this.action = null;
     }
     
     public void copyFrom(Event other) {
         log.trace("Copying event from id: {} to id: {}", other.id, this.id);
         this.id = other.id;
+        this.symbolId = other.symbolId;
         this.symbol = other.symbol;
         this.price = other.price;
         this.quantity = other.quantity;
         this.timestamp = other.timestamp;
         this.type = other.type;
+        this.orderId = other.orderId;
+        this.side = other.side;
+        this.action = other.action;
     }
     
     @Override
     public String toString() {
-        return String.format("Event{id=%d, symbol='%s', price=%.2f, quantity=%d, timestamp=%d, type=%s}",
-                id, symbol, price, quantity, timestamp, type);
+        return String.format("Event{id=%d, symbolId=%d, symbol='%s', price=%.2f, quantity=%d, timestamp=%d, type=%s, " 
+                + "orderId=%d, side=%s, action=%s}",
+                id, symbolId, symbol, price, quantity, timestamp, type, orderId, side, action);
     }
 }
\ No newline at end of file
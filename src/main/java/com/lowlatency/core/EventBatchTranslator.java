@@ -0,0 +1,17 @@
+package com.lowlatency.core;
+
+/**
+ * Fills one ring buffer slot of a batch claimed by LowLatencyEngine.publishEvents.
+ * The engine sets id and timestamp; implementations set symbol, price, quantity and type.
+ * Slots are reused, so any other field the consumer reads (e.g. order fields) must be set as well.
+ */
+@FunctionalInterface
+public interface EventBatchTranslator<A> {
+    
+    /**
+     * @param event reusable slot to overwrite
+     * @param index position within the batch, 0-based
+     * @param source caller-supplied batch source, e.g. a decoded packet
+     */
+    void translateTo(Event event, int index, A source);
+}
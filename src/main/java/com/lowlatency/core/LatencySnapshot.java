@@ -0,0 +1,32 @@
+package com.lowlatency.core;
+
+import lombok.Value;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Immutable view of publish-to-handle latency percentiles, all values in nanoseconds
+ */
+@Value
+public class LatencySnapshot {
+    
+    public static final LatencySnapshot EMPTY = new LatencySnapshot(0, 0, 0, 0, 0);
+    
+    long count;
+    long p50;
+    long p99;
+    long p999;
+    long max;
+    
+    public static LatencySnapshot of(Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return EMPTY;
+        }
+        return new LatencySnapshot(
+            histogram.getTotalCount(),
+            histogram.getValueAtPercentile(50.0),
+            histogram.getValueAtPercentile(99.0),
+            histogram.getValueAtPercentile(99.9),
+            histogram.getMaxValue()
+        );
+    }
+}
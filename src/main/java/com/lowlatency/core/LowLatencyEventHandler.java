@@ -1,35 +1,144 @@
 package com.lowlatency.core;
 
 import com.lmax.disruptor.EventHandler;
+import com.lowlatency.marketdata.QuoteCache;
+import com.lowlatency.marketdata.TradeAnalytics;
+import com.lowlatency.matching.MatchingEngine;
+import com.lowlatency.matching.TradeListener;
+import com.lowlatency.snapshot.SnapshotStore;
+import lombok.AccessLevel;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SingleWriterRecorder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
 
 /**
  * High-performance event handler for processing events from the ring buffer
  */
 @Slf4j
-@RequiredArgsConstructor
 @Getter
 public class LowLatencyEventHandler implements EventHandler<Event> {
     
+    // Latencies above this are clamped so recording never resizes (and never allocates)
+    private static final long MAX_TRACKED_LATENCY_NS = TimeUnit.SECONDS.toNanos(10);
+    private static final int DEFAULT_MAX_SYMBOLS = 4096;
+    
     private final String handlerName;
-    private long processedCount = 0;
+    private final int shard;
+    private final int shardCount;
+    private volatile long processedCount = 0; // single writer, read by monitoring threads
+    // Non-control events applied since the journal began (owned or not); the position snapshots record
+    private volatile long journalPosition = 0;
+    
+    @Getter(AccessLevel.NONE)
+    private final SingleWriterRecorder latencyRecorder = new SingleWriterRecorder(1, MAX_TRACKED_LATENCY_NS, 3);
+    @Getter(AccessLevel.NONE)
+    private Histogram intervalHistogram;
+    
+    private final MatchingEngine matchingEngine;
+    private final TradeAnalytics tradeAnalytics;
+    private final QuoteCache quoteCache;
+    @Getter(AccessLevel.NONE)
+    private final TradeListener tradeListener;
+    @Getter(AccessLevel.NONE)
+    private SnapshotStore snapshotStore;
+    @Getter(AccessLevel.NONE)
+    private int snapshotPart;
+    
+    public LowLatencyEventHandler(String handlerName) {
+        this(handlerName, DEFAULT_MAX_SYMBOLS, MatchingEngine.DEFAULT_MAX_ORDERS_PER_BOOK, 
+             MatchingEngine.DEFAULT_MAX_LEVELS_PER_SIDE, MatchingEngine.DEFAULT_TICK_SIZE, null);
+    }
+    
+    public LowLatencyEventHandler(String handlerName, int maxSymbols, int maxOrdersPerBook, int maxLevelsPerSide, 
+                                  double tickSize, TradeListener tradeListener) {
+        this(handlerName, maxSymbols, maxOrdersPerBook, maxLevelsPerSide, tickSize, tradeListener, 0, 1);
+    }
+    
+    /**
+     * One shard of a sharded consumer group: every shard sees the whole ring but only processes
+     * the symbols that map to it, so per-symbol order is kept and shards share no state
+     */
+    public LowLatencyEventHandler(String handlerName, int maxSymbols, int maxOrdersPerBook, int maxLevelsPerSide, 
+                                  double tickSize, TradeListener tradeListener, int shard, int shardCount) {
+        if (shardCount < 1 || shard < 0 || shard >= shardCount) {
+            throw new IllegalArgumentException("Invalid shard " + shard + " of " + shardCount);
+        }
+        this.handlerName = handlerName;
+        this.shard = shard;
+        this.shardCount = shardCount;
+        this.tradeListener = tradeListener;
+        this.tradeAnalytics = new TradeAnalytics(maxSymbols);
+        this.quoteCache = new QuoteCache(maxSymbols);
+        // Fills come back through processTrade so trade processing sees matched trades too
+        this.matchingEngine = new MatchingEngine(maxSymbols, maxOrdersPerBook, maxLevelsPerSide, tickSize, this::onMatchedTrade);
+    }
     
     @Override
     public void onEvent(Event event, long sequence, boolean endOfBatch) throws Exception {
-        log.debug("Processing event {} with sequence {}, endOfBatch: {}", event.getId(), sequence, endOfBatch);
+        // Logging on this path is guarded: varargs arrays and boxed IDs would allocate per event
+        if (log.isDebugEnabled()) {
+            log.debug("Processing event {} with sequence {}, endOfBatch: {}", event.getId(), sequence, endOfBatch);
+        }
         
         // Process the event - this is where your business logic goes
-        processEvent(event);
+        if (event.getType() == Event.EventType.SNAPSHOT) {
+            takeSnapshot();
+        } else {
+            if (shardCount == 1 || shardOf(event.getSymbolId(), shardCount) == shard) {
+                processEvent(event);
+                recordLatency(event);
+            }
+            journalPosition++;
+        }
+        // Counted either way: the count tracks how far this consumer has got through the ring
         processedCount++;
         
         if (endOfBatch) {
-            log.debug("End of batch reached, processed {} events total", processedCount);
+            if (log.isDebugEnabled()) {
+                log.debug("End of batch reached, processed {} events total", processedCount);
+            }
             onBatchEnd();
         }
     }
     
+    /**
+     * Shard that owns a symbol. Symbol IDs are dense, so the ID itself spreads symbols evenly;
+     * events without a symbol go to shard 0.
+     */
+    public static int shardOf(int symbolId, int shardCount) {
+        return symbolId < 0 ? 0 : symbolId % shardCount;
+    }
+    
+    private void recordLatency(Event event) {
+        long timestamp = event.getTimestamp();
+        if (timestamp == 0) {
+            return;
+        }
+        long latency = System.nanoTime() - timestamp;
+        latencyRecorder.recordValue(Math.max(1, Math.min(latency, MAX_TRACKED_LATENCY_NS)));
+    }
+    
+    /**
+     * Snapshot publish-to-handle latency since the previous call and start a new interval.
+     * Safe to call from any thread; the handler thread is never blocked.
+     */
+    public synchronized LatencySnapshot snapshotAndResetLatency() {
+        intervalHistogram = latencyRecorder.getIntervalHistogram(intervalHistogram);
+        return LatencySnapshot.of(intervalHistogram);
+    }
+    
+    /**
+     * Like snapshotAndResetLatency, but adds the interval to a caller-owned histogram so shards can be merged
+     */
+    public synchronized void snapshotAndResetLatencyInto(Histogram target) {
+        intervalHistogram = latencyRecorder.getIntervalHistogram(intervalHistogram);
+        target.add(intervalHistogram);
+    }
+    
     private void processEvent(Event event) {
         log.trace("Processing event: {}", event);
         
@@ -38,37 +147,84 @@ public class LowLatencyEventHandler implements EventHandler<Event> {
             return;
         }
         
+        if (log.isDebugEnabled()) {
+            log.debug("Processing {} event: {} for symbol {}", event.getType(), event.getId(), event.getSymbol());
+        }
         // Example processing - replace with actual business logic
         switch (event.getType()) {
-            case TRADE -> {
-                log.debug("Processing TRADE event: {} for symbol {}", event.getId(), event.getSymbol());
-                processTrade(event);
-            }
-            case QUOTE -> {
-                log.debug("Processing QUOTE event: {} for symbol {}", event.getId(), event.getSymbol());
-                processQuote(event);
-            }
-            case ORDER -> {
-                log.debug("Processing ORDER event: {} for symbol {}", event.getId(), event.getSymbol());
-                processOrder(event);
-            }
+            case TRADE -> processTrade(event);
+            case QUOTE -> processQuote(event);
+            case ORDER -> processOrder(event);
         }
     }
     
     private void processTrade(Event event) {
-        log.trace("Trade processing for event {}: price={}, quantity={}", 
-                 event.getId(), event.getPrice(), event.getQuantity());
-        // Trade processing logic
+        if (log.isTraceEnabled()) {
+            log.trace("Trade processing for event {}: price={}, quantity={}", 
+                    event.getId(), event.getPrice(), event.getQuantity());
+        }
+        tradeAnalytics.onTrade(event.getSymbolId(), event.getPrice(), event.getQuantity());
     }
     
     private void processQuote(Event event) {
-        log.trace("Quote processing for event {}: price={}", event.getId(), event.getPrice());
-        // Quote processing logic
+        if (log.isTraceEnabled()) {
+            log.trace("Quote processing for event {}: price={}", event.getId(), event.getPrice());
+        }
+        quoteCache.onQuote(event);
     }
     
     private void processOrder(Event event) {
-        log.trace("Order processing for event {}: quantity={}", event.getId(), event.getQuantity());
-        // Order processing logic
+        if (log.isTraceEnabled()) {
+            log.trace("Order processing for event {}: quantity={}", event.getId(), event.getQuantity());
+        }
+        matchingEngine.onOrder(event);
+    }
+    
+    private void onMatchedTrade(Event trade, long restingOrderId) {
+        processTrade(trade);
+        if (tradeListener != null) {
+            tradeListener.onTrade(trade, restingOrderId);
+        }
+    }
+    
+    /**
+     * Write a snapshot whenever a SNAPSHOT marker arrives. Call before the handler starts.
+     */
+    public void attachSnapshotStore(SnapshotStore snapshotStore, int part) {
+        this.snapshotStore = snapshotStore;
+        this.snapshotPart = part;
+    }
+    
+    private void takeSnapshot() {
+        if (snapshotStore != null) {
+            log.debug("Taking snapshot of {} at journal position {}", handlerName, journalPosition);
+            snapshotStore.capture(snapshotPart, this);
+        }
+    }
+    
+    public int snapshotSize() {
+        return Long.BYTES + matchingEngine.snapshotSize() + tradeAnalytics.snapshotSize() + quoteCache.snapshotSize();
+    }
+    
+    /**
+     * Handler thread only: journal position, order books, trade analytics and quotes
+     */
+    public void writeSnapshot(ByteBuffer out) {
+        out.putLong(journalPosition);
+        matchingEngine.writeSnapshot(out);
+        tradeAnalytics.writeSnapshot(out);
+        quoteCache.writeSnapshot(out);
+    }
+    
+    /**
+     * Restore state written by writeSnapshot; call before the handler starts
+     */
+    public void readSnapshot(ByteBuffer in) {
+        journalPosition = in.getLong();
+        matchingEngine.readSnapshot(in);
+        tradeAnalytics.readSnapshot(in);
+        quoteCache.readSnapshot(in);
+        log.info("Handler {} restored at journal position {}", handlerName, journalPosition);
     }
     
     private void onBatchEnd() {
@@ -0,0 +1,199 @@
+package com.lowlatency.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight Event backed by one fixed-width record in a shared direct buffer.
+ * Same getters and setters as Event, but all state lives off-heap; the inherited fields are unused.
+ *
+ * Record layout, one cache line per slot:
+ * <pre>
+ *  0 id        long
+ *  8 timestamp long
+ * 16 price     double
+ * 24 quantity  long
+ * 32 symbolId  int
+ * 36 type      byte (ordinal, -1 for null)
+ * 37 side      byte (ordinal, -1 for null)
+ * 38 action    byte (ordinal, -1 for null)
+ * 40 orderId   long
+ * 48 padding
+ * </pre>
+ */
+public class OffHeapEvent extends Event {
+    
+    public static final int RECORD_SIZE = 64;
+    
+    private static final int ID_OFFSET = 0;
+    private static final int TIMESTAMP_OFFSET = 8;
+    private static final int PRICE_OFFSET = 16;
+    private static final int QUANTITY_OFFSET = 24;
+    private static final int SYMBOL_ID_OFFSET = 32;
+    private static final int TYPE_OFFSET = 36;
+    private static final int SIDE_OFFSET = 37;
+    private static final int ACTION_OFFSET = 38;
+    private static final int ORDER_ID_OFFSET = 40;
+    
+    private static final EventType[] TYPES = EventType.values();
+    private static final Side[] SIDES = Side.values();
+    private static final OrderAction[] ACTIONS = OrderAction.values();
+    
+    private final ByteBuffer buffer;
+    private final int offset;
+    private final SymbolRegistry symbolRegistry;
+    
+    public OffHeapEvent(ByteBuffer buffer, int offset, SymbolRegistry symbolRegistry) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.symbolRegistry = symbolRegistry;
+        reset();
+    }
+    
+    @Override
+    public long getId() {
+        return buffer.getLong(offset + ID_OFFSET);
+    }
+    
+    @Override
+    public void setId(long id) {
+        buffer.putLong(offset + ID_OFFSET, id);
+    }
+    
+    @Override
+    public int getSymbolId() {
+        return buffer.getInt(offset + SYMBOL_ID_OFFSET);
+    }
+    
+    @Override
+    public void setSymbolId(int symbolId) {
+        buffer.putInt(offset + SYMBOL_ID_OFFSET, symbolId);
+    }
+    
+    /**
+     * Resolved through the registry; only the symbol ID is stored in the record
+     */
+    @Override
+    public String getSymbol() {
+        return symbolRegistry.symbol(getSymbolId());
+    }
+    
+    /**
+     * Stores the symbol's ID, registering it on first use
+     */
+    @Override
+    public void setSymbol(String symbol) {
+        setSymbolId(symbol != null ? symbolRegistry.resolve(symbol) : SymbolRegistry.NO_SYMBOL);
+    }
+    
+    @Override
+    public void assignSymbol(int symbolId, String symbol) {
+        setSymbolId(symbolId);
+    }
+    
+    @Override
+    public double getPrice() {
+        return buffer.getDouble(offset + PRICE_OFFSET);
+    }
+    
+    @Override
+    public void setPrice(double price) {
+        buffer.putDouble(offset + PRICE_OFFSET, price);
+    }
+    
+    @Override
+    public long getQuantity() {
+        return buffer.getLong(offset + QUANTITY_OFFSET);
+    }
+    
+    @Override
+    public void setQuantity(long quantity) {
+        buffer.putLong(offset + QUANTITY_OFFSET, quantity);
+    }
+    
+    @Override
+    public long getTimestamp() {
+        return buffer.getLong(offset + TIMESTAMP_OFFSET);
+    }
+    
+    @Override
+    public void setTimestamp(long timestamp) {
+        buffer.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+    }
+    
+    @Override
+    public EventType getType() {
+        byte ordinal = buffer.get(offset + TYPE_OFFSET);
+        return ordinal < 0 ? null : TYPES[ordinal];
+    }
+    
+    @Override
+    public void setType(EventType type) {
+        buffer.put(offset + TYPE_OFFSET, type == null ? -1 : (byte) type.ordinal());
+    }
+    
+    @Override
+    public long getOrderId() {
+        return buffer.getLong(offset + ORDER_ID_OFFSET);
+    }
+    
+    @Override
+    public void setOrderId(long orderId) {
+        buffer.putLong(offset + ORDER_ID_OFFSET, orderId);
+    }
+    
+    @Override
+    public Side getSide() {
+        byte ordinal = buffer.get(offset + SIDE_OFFSET);
+        return ordinal < 0 ? null : SIDES[ordinal];
+    }
+    
+    @Override
+    public void setSide(Side side) {
+        buffer.put(offset + SIDE_OFFSET, side == null ? -1 : (byte) side.ordinal());
+    }
+    
+    @Override
+    public OrderAction getAction() {
+        byte ordinal = buffer.get(offset + ACTION_OFFSET);
+        return ordinal < 0 ? null : ACTIONS[ordinal];
+    }
+    
+    @Override
+    public void setAction(OrderAction action) {
+        buffer.put(offset + ACTION_OFFSET, action == null ? -1 : (byte) action.ordinal());
+    }
+    
+    @Override
+    public void reset() {
+        setId(0);
+        setSymbolId(SymbolRegistry.NO_SYMBOL);
+        setPrice(0.0);
+        setQuantity(0);
+        setTimestamp(0);
+        setType(null);
+        setOrderId(0);
+        setSide(null);
+        setAction(null);
+    }
+    
+    @Override
+    public void copyFrom(Event other) {
+        setId(other.getId());
+        setSymbolId(other.getSymbolId());
+        setPrice(other.getPrice());
+        setQuantity(other.getQuantity());
+        setTimestamp(other.getTimestamp());
+        setType(other.getType());
+        setOrderId(other.getOrderId());
+        setSide(other.getSide());
+        setAction(other.getAction());
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("OffHeapEvent{id=%d, symbolId=%d, symbol='%s', price=%.2f, quantity=%d, timestamp=%d, type=%s, " 
+                + "orderId=%d, side=%s, action=%s}",
+                getId(), getSymbolId(), getSymbol(), getPrice(), getQuantity(), getTimestamp(), getType(), 
+                getOrderId(), getSide(), getAction());
+    }
+}
@@ -0,0 +1,39 @@
+package com.lowlatency.core;
+
+import com.lmax.disruptor.EventFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Factory laying out every ring buffer slot as a fixed-width record in one contiguous,
+ * cache-line aligned direct buffer. The Disruptor fills slots in order, so slot n maps to record n.
+ */
+@Slf4j
+public class OffHeapEventFactory implements EventFactory<Event> {
+    
+    private static final int CACHE_LINE_SIZE = 64;
+    
+    private final ByteBuffer buffer;
+    private final SymbolRegistry symbolRegistry;
+    private final int capacity;
+    private int nextSlot;
+    
+    public OffHeapEventFactory(int capacity, SymbolRegistry symbolRegistry) {
+        this.capacity = capacity;
+        this.symbolRegistry = symbolRegistry;
+        this.buffer = ByteBuffer.allocateDirect(capacity * OffHeapEvent.RECORD_SIZE + CACHE_LINE_SIZE)
+                .alignedSlice(CACHE_LINE_SIZE)
+                .order(ByteOrder.nativeOrder());
+        log.debug("Allocated {} bytes off-heap for {} event records", buffer.capacity(), capacity);
+    }
+    
+    @Override
+    public Event newInstance() {
+        if (nextSlot >= capacity) {
+            throw new IllegalStateException("OffHeapEventFactory exhausted, capacity: " + capacity);
+        }
+        return new OffHeapEvent(buffer, nextSlot++ * OffHeapEvent.RECORD_SIZE, symbolRegistry);
+    }
+}
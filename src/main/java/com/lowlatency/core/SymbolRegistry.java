@@ -0,0 +1,163 @@
+package com.lowlatency.core;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Maps symbols to dense int IDs in [0, capacity) so per-symbol state can live in plain arrays.
+ * Registration allocates and is serialized; lookups are lock-free and allocation-free,
+ * including lookups from a CharSequence or an ASCII byte slice.
+ */
+@Slf4j
+public class SymbolRegistry {
+    
+    public static final int NO_SYMBOL = -1;
+    
+    @Getter
+    private final int capacity;
+    private final int mask;
+    // Open-addressing table of (id + 1); 0 marks an empty slot. Slot writes publish the symbol.
+    private final AtomicIntegerArray slots;
+    private final String[] symbols;
+    private final int[] hashes;
+    private volatile int size;
+    
+    public SymbolRegistry(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        this.mask = tableSize - 1;
+        this.slots = new AtomicIntegerArray(tableSize);
+        this.symbols = new String[capacity];
+        this.hashes = new int[capacity];
+        log.debug("SymbolRegistry initialized with capacity: {}, table size: {}", capacity, tableSize);
+    }
+    
+    /**
+     * Register a symbol, returning its existing ID if already known
+     *
+     * @throws IllegalStateException if the registry is full
+     */
+    public synchronized int register(CharSequence symbol) {
+        int existing = lookup(symbol);
+        if (existing != NO_SYMBOL) {
+            return existing;
+        }
+        int id = size;
+        if (id >= capacity) {
+            throw new IllegalStateException("SymbolRegistry full, capacity: " + capacity);
+        }
+        String canonical = symbol.toString();
+        int hash = hash(canonical);
+        symbols[id] = canonical;
+        hashes[id] = hash;
+        int slot = hash & mask;
+        while (slots.get(slot) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots.set(slot, id + 1);
+        size = id + 1;
+        log.debug("Registered symbol {} with id {}", canonical, id);
+        return id;
+    }
+    
+    /**
+     * Resolve a symbol, registering it on first sight. Allocates only for new symbols.
+     */
+    public int resolve(CharSequence symbol) {
+        int id = lookup(symbol);
+        return id != NO_SYMBOL ? id : register(symbol);
+    }
+    
+    public int lookup(CharSequence symbol) {
+        int hash = hash(symbol);
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots.get(slot);
+            if (entry == 0) {
+                return NO_SYMBOL;
+            }
+            int id = entry - 1;
+            if (hashes[id] == hash && contentEquals(symbols[id], symbol)) {
+                return id;
+            }
+        }
+    }
+    
+    /**
+     * Look up an ASCII-encoded symbol without decoding it to a String
+     */
+    public int lookup(byte[] bytes, int offset, int length) {
+        int hash = hash(bytes, offset, length);
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots.get(slot);
+            if (entry == 0) {
+                return NO_SYMBOL;
+            }
+            int id = entry - 1;
+            if (hashes[id] == hash && contentEquals(symbols[id], bytes, offset, length)) {
+                return id;
+            }
+        }
+    }
+    
+    public String symbol(int id) {
+        if (id < 0 || id >= size) {
+            return null;
+        }
+        return symbols[id];
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    private static int hash(CharSequence symbol) {
+        int h = 0;
+        for (int i = 0, n = symbol.length(); i < n; i++) {
+            h = 31 * h + symbol.charAt(i);
+        }
+        return spread(h);
+    }
+    
+    private static int hash(byte[] bytes, int offset, int length) {
+        int h = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = 31 * h + (bytes[i] & 0xFF);
+        }
+        return spread(h);
+    }
+    
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+    
+    private static boolean contentEquals(String symbol, CharSequence other) {
+        int length = symbol.length();
+        if (length != other.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (symbol.charAt(i) != other.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean contentEquals(String symbol, byte[] bytes, int offset, int length) {
+        if (symbol.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (symbol.charAt(i) != (bytes[offset + i] & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,272 @@
+package com.lowlatency.journal;
+
+import com.lmax.disruptor.EventHandler;
+import com.lowlatency.core.Event;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.lowlatency.journal.JournalFormat.*;
+
+/**
+ * Journaling stage: appends every event to memory-mapped, rolling segment files.
+ * <p>
+ * Appending is a handful of stores into the page cache, which survives a process crash. The next
+ * segment is created and pre-faulted on a background thread so rolling does not stall the handler.
+ * With {@code forceOnBatchEnd} each batch is also msync'd, which survives power loss but costs
+ * microseconds to milliseconds per batch.
+ */
+@Slf4j
+public class EventJournal implements EventHandler<Event>, AutoCloseable {
+    
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean forceOnBatchEnd;
+    private final ExecutorService segmentPreparer;
+    private final BitSet journaledSymbols = new BitSet();
+    
+    private long segmentIndex;
+    private MappedByteBuffer segment;
+    private CompletableFuture<MappedByteBuffer> nextSegment;
+    private int position;
+    private int batchStart;
+    
+    private volatile long skipThroughSequence = -1;
+    private volatile long journaledCount;
+    private volatile long committedPosition;
+    
+    private EventJournal(Path directory, int segmentSize, boolean forceOnBatchEnd) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.forceOnBatchEnd = forceOnBatchEnd;
+        this.segmentPreparer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-segment-preparer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Files.createDirectories(directory);
+        openTail();
+    }
+    
+    /**
+     * Open (or create) a journal with 64 MB segments, leaving flushing to the OS
+     */
+    public static EventJournal open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE, false);
+    }
+    
+    /**
+     * Open (or create) a journal; new records are appended after the last complete record found
+     */
+    public static EventJournal open(Path directory, int segmentSize, boolean forceOnBatchEnd) throws IOException {
+        if (segmentSize < MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("segmentSize must be at least " + MIN_SEGMENT_SIZE + ": " + segmentSize);
+        }
+        log.info("Opening event journal: directory={}, segmentSize={}, forceOnBatchEnd={}", 
+                directory, segmentSize, forceOnBatchEnd);
+        return new EventJournal(directory, segmentSize, forceOnBatchEnd);
+    }
+    
+    private void openTail() throws IOException {
+        long[] indexes = JournalReader.segmentIndexes(directory);
+        int last = indexes.length - 1;
+        // Every session pre-creates its next segment, so skip back over trailing segments that were
+        // never written; the first of them is reused as the next segment instead of adding another file
+        while (last > 0 && indexes[last - 1] == indexes[last] - 1 && !hasRecords(indexes[last])) {
+            last--;
+        }
+        segmentIndex = last < 0 ? 0 : indexes[last];
+        segment = mapSegment(segmentIndex, false);
+        // Resume after the last complete record; a torn record at the tail has no length and is overwritten
+        int length;
+        while (position + 4 <= segment.capacity() && (length = segment.getInt(position + LENGTH_OFFSET)) > 0) {
+            position += align(length);
+        }
+        // journaledSymbols starts empty: symbol IDs are not stable across restarts, so this session
+        // defines every ID again before first use, and the reader lets a later definition win
+        batchStart = position;
+        committedPosition = position;
+        nextSegment = prepareSegment(segmentIndex + 1);
+        log.debug("Journal tail at segment {} position {}", segmentIndex, position);
+    }
+    
+    private boolean hasRecords(long index) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(directory, index), StandardOpenOption.READ)) {
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            return channel.read(length, LENGTH_OFFSET) == Integer.BYTES && length.getInt(0) > 0;
+        }
+    }
+    
+    private CompletableFuture<MappedByteBuffer> prepareSegment(long index) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return mapSegment(index, true);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, segmentPreparer);
+    }
+    
+    private MappedByteBuffer mapSegment(long index, boolean preTouch) throws IOException {
+        Path path = segmentPath(directory, index);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, 
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (preTouch) {
+                // Fault every page in now rather than on the handler thread
+                for (int page = 0; page < segmentSize; page += PAGE_SIZE) {
+                    buffer.put(page, (byte) 0);
+                }
+            }
+            return buffer;
+        }
+    }
+    
+    @Override
+    public void onEvent(Event event, long sequence, boolean endOfBatch) {
+        if (sequence > skipThroughSequence && event.getType() != Event.EventType.SNAPSHOT) {
+            append(event, sequence);
+        }
+        if (endOfBatch) {
+            onBatchEnd();
+        }
+    }
+    
+    private void append(Event event, long sequence) {
+        int symbolId = event.getSymbolId();
+        if (symbolId >= 0 && !journaledSymbols.get(symbolId)) {
+            appendSymbol(symbolId, event.getSymbol());
+        }
+        
+        int at = reserve(EVENT_LENGTH);
+        segment.put(at + KIND_OFFSET, KIND_EVENT);
+        segment.put(at + EVENT_TYPE_OFFSET, ordinal(event.getType()));
+        segment.put(at + EVENT_SIDE_OFFSET, ordinal(event.getSide()));
+        segment.put(at + EVENT_ACTION_OFFSET, ordinal(event.getAction()));
+        segment.putLong(at + EVENT_SEQUENCE_OFFSET, sequence);
+        segment.putLong(at + EVENT_TIMESTAMP_OFFSET, event.getTimestamp());
+        segment.putDouble(at + EVENT_PRICE_OFFSET, event.getPrice());
+        segment.putLong(at + EVENT_QUANTITY_OFFSET, event.getQuantity());
+        segment.putLong(at + EVENT_ORDER_ID_OFFSET, event.getOrderId());
+        segment.putInt(at + EVENT_SYMBOL_ID_OFFSET, symbolId);
+        // The length publishes the record, so keep the body stores ahead of it
+        VarHandle.storeStoreFence();
+        segment.putInt(at + LENGTH_OFFSET, EVENT_LENGTH);
+        journaledCount++;
+    }
+    
+    private void appendSymbol(int symbolId, String symbol) {
+        if (symbol == null) {
+            return;
+        }
+        // Once per symbol per session, so encoding to a fresh array is fine here
+        byte[] name = symbol.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_SYMBOL_LENGTH) {
+            throw new IllegalStateException("Symbol longer than " + MAX_SYMBOL_LENGTH + " UTF-8 bytes cannot be journaled");
+        }
+        int length = SYMBOL_CHARS_OFFSET + name.length;
+        int at = reserve(length);
+        segment.put(at + KIND_OFFSET, KIND_SYMBOL);
+        segment.putInt(at + SYMBOL_ID_OFFSET, symbolId);
+        segment.putInt(at + SYMBOL_LENGTH_OFFSET, name.length);
+        segment.put(at + SYMBOL_CHARS_OFFSET, name);
+        VarHandle.storeStoreFence();
+        segment.putInt(at + LENGTH_OFFSET, length);
+        journaledSymbols.set(symbolId);
+    }
+    
+    /**
+     * Claim space for a record, rolling to the next segment if it does not fit
+     */
+    private int reserve(int length) {
+        int aligned = align(length);
+        if (position + aligned > segmentSize) {
+            roll();
+        }
+        int at = position;
+        position += aligned;
+        return at;
+    }
+    
+    private void roll() {
+        forceBatch();
+        segment = nextSegment.join();
+        segmentIndex++;
+        position = 0;
+        batchStart = 0;
+        nextSegment = prepareSegment(segmentIndex + 1);
+        log.debug("Journal rolled to segment {}", segmentIndex);
+    }
+    
+    private void onBatchEnd() {
+        forceBatch();
+        batchStart = position;
+        committedPosition = segmentIndex * segmentSize + position;
+    }
+    
+    /**
+     * msync only the bytes written since the last batch end, not the whole mapping
+     */
+    private void forceBatch() {
+        if (forceOnBatchEnd && position > batchStart) {
+            segment.force(batchStart, position - batchStart);
+        }
+    }
+    
+    private static byte ordinal(Enum<?> value) {
+        return value == null ? -1 : (byte) value.ordinal();
+    }
+    
+    /**
+     * Do not journal ring sequences up to and including this one, e.g. while replaying the journal itself.
+     * Must be called before those sequences are published.
+     */
+    public void skipThrough(long sequence) {
+        this.skipThroughSequence = sequence;
+    }
+    
+    /**
+     * Events appended since this journal was opened
+     */
+    public long getJournaledCount() {
+        return journaledCount;
+    }
+    
+    /**
+     * Logical byte offset (segment index * segment size + position) at the end of the last completed batch
+     */
+    public long getCommittedPosition() {
+        return committedPosition;
+    }
+    
+    public Path getDirectory() {
+        return directory;
+    }
+    
+    /**
+     * Flush to disk and stop preparing segments. Call only after the handler has stopped.
+     */
+    @Override
+    public void close() {
+        log.info("Closing event journal {} after {} events", directory, journaledCount);
+        segment.force();
+        segmentPreparer.shutdownNow();
+    }
+}
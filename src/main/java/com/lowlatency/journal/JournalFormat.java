@@ -0,0 +1,52 @@
+package com.lowlatency.journal;
+
+import java.nio.file.Path;
+
+/**
+ * On-disk layout shared by EventJournal and JournalReader.
+ * <p>
+ * A journal is a directory of fixed-size segment files written front to back. Each record starts
+ * on an 8-byte boundary with an int length (0 marks the end of the segment's data) and a kind byte.
+ * The length is written last, so a record is only visible once complete. All values are little-endian.
+ */
+final class JournalFormat {
+    
+    static final String SEGMENT_SUFFIX = ".journal";
+    static final int MIN_SEGMENT_SIZE = 4096;
+    static final int PAGE_SIZE = 4096;
+    
+    static final int LENGTH_OFFSET = 0;
+    static final int KIND_OFFSET = 4;
+    
+    /** Published event, 52 bytes */
+    static final byte KIND_EVENT = 1;
+    static final int EVENT_TYPE_OFFSET = 5;
+    static final int EVENT_SIDE_OFFSET = 6;
+    static final int EVENT_ACTION_OFFSET = 7;
+    static final int EVENT_SEQUENCE_OFFSET = 8;
+    static final int EVENT_TIMESTAMP_OFFSET = 16;
+    static final int EVENT_PRICE_OFFSET = 24;
+    static final int EVENT_QUANTITY_OFFSET = 32;
+    static final int EVENT_ORDER_ID_OFFSET = 40;
+    static final int EVENT_SYMBOL_ID_OFFSET = 48;
+    static final int EVENT_LENGTH = 52;
+    
+    /** Symbol definition, written before the first event that uses the symbol ID; the name is UTF-8 */
+    static final byte KIND_SYMBOL = 2;
+    static final int SYMBOL_ID_OFFSET = 8;
+    /** Name length in bytes */
+    static final int SYMBOL_LENGTH_OFFSET = 12;
+    static final int SYMBOL_CHARS_OFFSET = 16;
+    static final int MAX_SYMBOL_LENGTH = 1024;
+    
+    private JournalFormat() {
+    }
+    
+    static int align(int length) {
+        return (length + 7) & ~7;
+    }
+    
+    static Path segmentPath(Path directory, long index) {
+        return directory.resolve(String.format("%08d%s", index, SEGMENT_SUFFIX));
+    }
+}
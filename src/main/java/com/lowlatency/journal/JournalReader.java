@@ -0,0 +1,189 @@
+package com.lowlatency.journal;
+
+import com.lowlatency.core.Event;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static com.lowlatency.journal.JournalFormat.*;
+
+/**
+ * Sequential reader over a journal directory, oldest segment first. Events come back with the
+ * symbol ID and name they were journaled with; map names to the current registry before reuse.
+ */
+@Slf4j
+public final class JournalReader implements AutoCloseable {
+    
+    private static final Event.EventType[] TYPES = Event.EventType.values();
+    private static final Event.Side[] SIDES = Event.Side.values();
+    private static final Event.OrderAction[] ACTIONS = Event.OrderAction.values();
+    
+    private final Path directory;
+    private final long[] segmentIndexes;
+    private int segmentSlot = -1;
+    private MappedByteBuffer segment;
+    private int position;
+    private String[] symbols = new String[64];
+    private long eventCount;
+    
+    private JournalReader(Path directory, long[] segmentIndexes) {
+        this.directory = directory;
+        this.segmentIndexes = segmentIndexes;
+    }
+    
+    /**
+     * Open a reader; a missing or empty directory reads as an empty journal
+     */
+    public static JournalReader open(Path directory) throws IOException {
+        long[] indexes = segmentIndexes(directory);
+        log.debug("Opening journal reader on {} with {} segment(s)", directory, indexes.length);
+        return new JournalReader(directory, indexes);
+    }
+    
+    static long[] segmentIndexes(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new long[0];
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .mapToLong(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toArray();
+        }
+    }
+    
+    /**
+     * Read the next event into a caller-owned instance, or return false at the end of the journal
+     */
+    public boolean next(Event into) throws IOException {
+        int at = nextEventRecord();
+        if (at < 0) {
+            return false;
+        }
+        readEvent(at, into);
+        return true;
+    }
+    
+    /**
+     * Fill up to into.length events; returns how many were read, 0 at the end of the journal
+     */
+    public int read(Event[] into) throws IOException {
+        int count = 0;
+        while (count < into.length && next(into[count])) {
+            count++;
+        }
+        return count;
+    }
+    
+    /**
+     * Skip the given number of events, e.g. those already covered by a snapshot. Symbol definitions
+     * along the way are still picked up.
+     *
+     * @return events actually skipped, fewer if the journal ends first
+     */
+    public long skip(long events) throws IOException {
+        long skipped = 0;
+        while (skipped < events && nextEventRecord() >= 0) {
+            skipped++;
+        }
+        return skipped;
+    }
+    
+    /**
+     * Advance past the next event record, absorbing symbol definitions on the way.
+     * Returns the record's offset in the current segment, or -1 at the end of the journal.
+     */
+    private int nextEventRecord() throws IOException {
+        while (true) {
+            if (segment == null || position + 4 > segment.capacity() || segment.getInt(position + LENGTH_OFFSET) <= 0) {
+                if (!nextSegment()) {
+                    return -1;
+                }
+                continue;
+            }
+            int at = position;
+            position += align(segment.getInt(at + LENGTH_OFFSET));
+            byte kind = segment.get(at + KIND_OFFSET);
+            if (kind == KIND_SYMBOL) {
+                readSymbol(at);
+            } else if (kind == KIND_EVENT) {
+                eventCount++;
+                return at;
+            } else {
+                log.warn("Skipping unknown journal record kind {} in segment {}", kind, segmentIndexes[segmentSlot]);
+            }
+        }
+    }
+    
+    private boolean nextSegment() throws IOException {
+        if (segmentSlot + 1 >= segmentIndexes.length) {
+            return false;
+        }
+        segmentSlot++;
+        Path path = segmentPath(directory, segmentIndexes[segmentSlot]);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        position = 0;
+        log.trace("Reading journal segment {}", path);
+        return true;
+    }
+    
+    private void readSymbol(int at) {
+        int symbolId = segment.getInt(at + SYMBOL_ID_OFFSET);
+        byte[] name = new byte[segment.getInt(at + SYMBOL_LENGTH_OFFSET)];
+        segment.get(at + SYMBOL_CHARS_OFFSET, name);
+        if (symbolId >= symbols.length) {
+            symbols = Arrays.copyOf(symbols, Math.max(symbols.length * 2, symbolId + 1));
+        }
+        symbols[symbolId] = new String(name, StandardCharsets.UTF_8);
+    }
+    
+    private void readEvent(int at, Event into) {
+        int symbolId = segment.getInt(at + EVENT_SYMBOL_ID_OFFSET);
+        into.setId(segment.getLong(at + EVENT_SEQUENCE_OFFSET));
+        into.assignSymbol(symbolId, symbol(symbolId));
+        into.setTimestamp(segment.getLong(at + EVENT_TIMESTAMP_OFFSET));
+        into.setPrice(segment.getDouble(at + EVENT_PRICE_OFFSET));
+        into.setQuantity(segment.getLong(at + EVENT_QUANTITY_OFFSET));
+        into.setOrderId(segment.getLong(at + EVENT_ORDER_ID_OFFSET));
+        into.setType(decode(TYPES, segment.get(at + EVENT_TYPE_OFFSET)));
+        into.setSide(decode(SIDES, segment.get(at + EVENT_SIDE_OFFSET)));
+        into.setAction(decode(ACTIONS, segment.get(at + EVENT_ACTION_OFFSET)));
+    }
+    
+    /**
+     * Symbol name journaled for an ID, or null if none was seen so far
+     */
+    public String symbol(int symbolId) {
+        return symbolId >= 0 && symbolId < symbols.length ? symbols[symbolId] : null;
+    }
+    
+    /**
+     * Events read or skipped so far
+     */
+    public long getEventCount() {
+        return eventCount;
+    }
+    
+    private static <E> E decode(E[] values, byte ordinal) {
+        return ordinal < 0 ? null : values[ordinal];
+    }
+    
+    @Override
+    public void close() {
+        // Mappings are released with the buffers
+        segment = null;
+    }
+}
@@ -0,0 +1,28 @@
+package com.lowlatency.marketdata;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reusable top-of-book snapshot, filled by QuoteCache.read.
+ * Callers keep one instance per reading thread so reads never allocate.
+ */
+@Data
+@NoArgsConstructor
+public class Quote {
+    private int symbolId;
+    private double bidPrice;
+    private long bidSize;
+    private double askPrice;
+    private long askSize;
+    private long timestamp;
+    private long sequence;
+    
+    public double getMid() {
+        return (bidPrice + askPrice) / 2;
+    }
+    
+    public double getSpread() {
+        return askPrice - bidPrice;
+    }
+}
@@ -0,0 +1,138 @@
+package com.lowlatency.marketdata;
+
+import com.lowlatency.core.Event;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Latest bid/ask per symbol, indexed by symbol ID.
+ * Written only by the handler thread; readable from any thread through a per-symbol sequence lock.
+ * Readers never block the writer and the writer never allocates.
+ */
+@Slf4j
+public class QuoteCache {
+    
+    private static final int BID_PRICE = 0;
+    private static final int BID_SIZE = 1;
+    private static final int ASK_PRICE = 2;
+    private static final int ASK_SIZE = 3;
+    private static final int TIMESTAMP = 4;
+    private static final int SEQUENCE = 5;
+    private static final int UPDATES = 6;
+    private static final int FIELDS = 7;
+    
+    private final SeqLockSlots slots;
+    
+    public QuoteCache(int maxSymbols) {
+        this.slots = new SeqLockSlots(maxSymbols, FIELDS);
+        log.debug("QuoteCache initialized for {} symbols", maxSymbols);
+    }
+    
+    /**
+     * Writer only: apply a QUOTE event. BUY updates the bid, SELL the ask; quotes without a side are ignored.
+     */
+    public void onQuote(Event quote) {
+        int symbolId = quote.getSymbolId();
+        Event.Side side = quote.getSide();
+        if (side == null || symbolId < 0 || symbolId >= slots.slots()) {
+            return;
+        }
+        slots.beginWrite(symbolId);
+        if (side == Event.Side.BUY) {
+            slots.putDouble(symbolId, BID_PRICE, quote.getPrice());
+            slots.putLong(symbolId, BID_SIZE, quote.getQuantity());
+        } else {
+            slots.putDouble(symbolId, ASK_PRICE, quote.getPrice());
+            slots.putLong(symbolId, ASK_SIZE, quote.getQuantity());
+        }
+        slots.putLong(symbolId, TIMESTAMP, quote.getTimestamp());
+        slots.putLong(symbolId, SEQUENCE, quote.getId());
+        slots.putLong(symbolId, UPDATES, slots.getLong(symbolId, UPDATES) + 1);
+        slots.endWrite(symbolId);
+    }
+    
+    /**
+     * Writer only: replace both sides at once
+     */
+    public void update(int symbolId, double bidPrice, long bidSize, double askPrice, long askSize, 
+                       long timestamp, long sequence) {
+        if (symbolId < 0 || symbolId >= slots.slots()) {
+            return;
+        }
+        slots.beginWrite(symbolId);
+        slots.putDouble(symbolId, BID_PRICE, bidPrice);
+        slots.putLong(symbolId, BID_SIZE, bidSize);
+        slots.putDouble(symbolId, ASK_PRICE, askPrice);
+        slots.putLong(symbolId, ASK_SIZE, askSize);
+        slots.putLong(symbolId, TIMESTAMP, timestamp);
+        slots.putLong(symbolId, SEQUENCE, sequence);
+        slots.putLong(symbolId, UPDATES, slots.getLong(symbolId, UPDATES) + 1);
+        slots.endWrite(symbolId);
+    }
+    
+    /**
+     * Copy the latest quote into the caller's instance. Safe from any thread; retries while
+     * the handler is mid-update instead of blocking it.
+     *
+     * @return false if the symbol has never been quoted (or is out of range)
+     */
+    public boolean read(int symbolId, Quote into) {
+        if (symbolId < 0 || symbolId >= slots.slots()) {
+            return false;
+        }
+        while (true) {
+            long version = slots.readBegin(symbolId);
+            if (version < 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            double bidPrice = slots.getDouble(symbolId, BID_PRICE);
+            long bidSize = slots.getLong(symbolId, BID_SIZE);
+            double askPrice = slots.getDouble(symbolId, ASK_PRICE);
+            long askSize = slots.getLong(symbolId, ASK_SIZE);
+            long timestamp = slots.getLong(symbolId, TIMESTAMP);
+            long sequence = slots.getLong(symbolId, SEQUENCE);
+            long updates = slots.getLong(symbolId, UPDATES);
+            if (!slots.validate(symbolId, version)) {
+                continue;
+            }
+            if (updates == 0) {
+                return false;
+            }
+            into.setSymbolId(symbolId);
+            into.setBidPrice(bidPrice);
+            into.setBidSize(bidSize);
+            into.setAskPrice(askPrice);
+            into.setAskSize(askSize);
+            into.setTimestamp(timestamp);
+            into.setSequence(sequence);
+            return true;
+        }
+    }
+    
+    /**
+     * Number of updates applied to the symbol; cheap change detection for pollers
+     */
+    public long getUpdateCount(int symbolId) {
+        return symbolId < 0 || symbolId >= slots.slots() ? 0 : slots.writes(symbolId);
+    }
+    
+    public int snapshotSize() {
+        return slots.snapshotSize();
+    }
+    
+    /**
+     * Writer only: copy all state for a snapshot
+     */
+    public void writeSnapshot(ByteBuffer out) {
+        slots.writeSnapshot(out);
+    }
+    
+    /**
+     * Restore state written by writeSnapshot; call before the writer starts
+     */
+    public void readSnapshot(ByteBuffer in) {
+        slots.readSnapshot(in);
+    }
+}
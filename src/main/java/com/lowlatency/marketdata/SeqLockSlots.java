@@ -0,0 +1,123 @@
+package com.lowlatency.marketdata;
+
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Fixed-stride slots of primitive fields, each guarded by a sequence lock in its first word.
+ * One writer thread updates slots without blocking or allocating; any number of reader threads take
+ * consistent copies by retrying when a write overlapped their read.
+ * <p>
+ * A long[] is only 8-byte aligned, and the GC may move it, so slots cannot be pinned to cache-line
+ * boundaries. Instead each slot's words are rounded up to whole lines and followed by a full line
+ * of padding, with another line before the first slot: wherever the lines fall, two slots never
+ * share one, at the cost of about twice the memory.
+ */
+class SeqLockSlots {
+    
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    // One 64-byte cache line
+    private static final int PAD = 8;
+    
+    private final long[] data;
+    private final int stride;
+    
+    SeqLockSlots(int slots, int fieldsPerSlot) {
+        int words = fieldsPerSlot + 1;
+        this.stride = (words + PAD - 1) / PAD * PAD + PAD;
+        this.data = new long[PAD + slots * stride];
+    }
+    
+    int slots() {
+        return (data.length - PAD) / stride;
+    }
+    
+    /**
+     * Index of the slot's version word
+     */
+    private int base(int slot) {
+        return PAD + slot * stride;
+    }
+    
+    /**
+     * Writer only: mark the slot as being modified (odd version)
+     */
+    void beginWrite(int slot) {
+        int index = base(slot);
+        LONGS.setOpaque(data, index, data[index] + 1);
+        VarHandle.storeStoreFence();
+    }
+    
+    /**
+     * Writer only: publish the slot's new fields (even version)
+     */
+    void endWrite(int slot) {
+        int index = base(slot);
+        LONGS.setRelease(data, index, data[index] + 1);
+    }
+    
+    /**
+     * Reader: version to pass to validate, or -1 if a write is in progress
+     */
+    long readBegin(int slot) {
+        long version = (long) LONGS.getAcquire(data, base(slot));
+        return (version & 1) == 0 ? version : -1;
+    }
+    
+    /**
+     * Reader: true if no write overlapped the fields read since readBegin
+     */
+    boolean validate(int slot, long version) {
+        VarHandle.loadLoadFence();
+        return version >= 0 && (long) LONGS.getOpaque(data, base(slot)) == version;
+    }
+    
+    /**
+     * Number of completed writes to the slot
+     */
+    long writes(int slot) {
+        return ((long) LONGS.getAcquire(data, base(slot))) >>> 1;
+    }
+    
+    long getLong(int slot, int field) {
+        return (long) LONGS.getOpaque(data, base(slot) + 1 + field);
+    }
+    
+    double getDouble(int slot, int field) {
+        return Double.longBitsToDouble(getLong(slot, field));
+    }
+    
+    void putLong(int slot, int field, long value) {
+        LONGS.setOpaque(data, base(slot) + 1 + field, value);
+    }
+    
+    void putDouble(int slot, int field, double value) {
+        putLong(slot, field, Double.doubleToRawLongBits(value));
+    }
+    
+    int snapshotSize() {
+        return Integer.BYTES + data.length * Long.BYTES;
+    }
+    
+    /**
+     * Writer only: bulk-copy every slot, versions included
+     */
+    void writeSnapshot(ByteBuffer out) {
+        out.putInt(data.length);
+        out.asLongBuffer().put(data);
+        out.position(out.position() + data.length * Long.BYTES);
+    }
+    
+    /**
+     * Before the writer starts: load slots from a snapshot taken with the same or fewer slots
+     */
+    void readSnapshot(ByteBuffer in) {
+        int length = in.getInt();
+        if (length > data.length || length < PAD || (length - PAD) % stride != 0) {
+            throw new IllegalStateException("Snapshot has " + length + " words, capacity is " + data.length);
+        }
+        in.asLongBuffer().get(data, 0, length);
+        in.position(in.position() + length * Long.BYTES);
+    }
+}
@@ -0,0 +1,128 @@
+package com.lowlatency.marketdata;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental per-symbol OHLC, volume, trade count and VWAP, indexed by symbol ID.
+ * Updated only by the handler thread with primitive stores; other threads read consistent
+ * snapshots through a per-symbol sequence lock and never stall the writer.
+ */
+@Slf4j
+public class TradeAnalytics {
+    
+    private static final int OPEN = 0;
+    private static final int HIGH = 1;
+    private static final int LOW = 2;
+    private static final int CLOSE = 3;
+    private static final int VOLUME = 4;
+    private static final int NOTIONAL = 5;
+    private static final int COUNT = 6;
+    private static final int FIELDS = 7;
+    
+    private final SeqLockSlots slots;
+    
+    public TradeAnalytics(int maxSymbols) {
+        this.slots = new SeqLockSlots(maxSymbols, FIELDS);
+        log.debug("TradeAnalytics initialized for {} symbols", maxSymbols);
+    }
+    
+    /**
+     * Writer only: fold one trade into its symbol's statistics
+     */
+    public void onTrade(int symbolId, double price, long quantity) {
+        if (symbolId < 0 || symbolId >= slots.slots() || quantity <= 0) {
+            return;
+        }
+        long count = slots.getLong(symbolId, COUNT);
+        slots.beginWrite(symbolId);
+        if (count == 0) {
+            slots.putDouble(symbolId, OPEN, price);
+            slots.putDouble(symbolId, HIGH, price);
+            slots.putDouble(symbolId, LOW, price);
+        } else {
+            if (price > slots.getDouble(symbolId, HIGH)) {
+                slots.putDouble(symbolId, HIGH, price);
+            }
+            if (price < slots.getDouble(symbolId, LOW)) {
+                slots.putDouble(symbolId, LOW, price);
+            }
+        }
+        slots.putDouble(symbolId, CLOSE, price);
+        slots.putLong(symbolId, VOLUME, slots.getLong(symbolId, VOLUME) + quantity);
+        slots.putDouble(symbolId, NOTIONAL, slots.getDouble(symbolId, NOTIONAL) + price * quantity);
+        slots.putLong(symbolId, COUNT, count + 1);
+        slots.endWrite(symbolId);
+    }
+    
+    /**
+     * Writer only: start a new session for a symbol
+     */
+    public void reset(int symbolId) {
+        slots.beginWrite(symbolId);
+        for (int field = 0; field < FIELDS; field++) {
+            slots.putLong(symbolId, field, 0);
+        }
+        slots.endWrite(symbolId);
+    }
+    
+    /**
+     * Copy a consistent snapshot into the caller's instance. Safe from any thread; retries while
+     * the handler is mid-update instead of blocking it.
+     *
+     * @return false if the symbol has no trades yet (or is out of range)
+     */
+    public boolean read(int symbolId, TradeStats into) {
+        if (symbolId < 0 || symbolId >= slots.slots()) {
+            return false;
+        }
+        while (true) {
+            long version = slots.readBegin(symbolId);
+            if (version < 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            double open = slots.getDouble(symbolId, OPEN);
+            double high = slots.getDouble(symbolId, HIGH);
+            double low = slots.getDouble(symbolId, LOW);
+            double close = slots.getDouble(symbolId, CLOSE);
+            long volume = slots.getLong(symbolId, VOLUME);
+            double notional = slots.getDouble(symbolId, NOTIONAL);
+            long count = slots.getLong(symbolId, COUNT);
+            if (!slots.validate(symbolId, version)) {
+                continue;
+            }
+            if (count == 0) {
+                return false;
+            }
+            into.setSymbolId(symbolId);
+            into.setOpen(open);
+            into.setHigh(high);
+            into.setLow(low);
+            into.setClose(close);
+            into.setVolume(volume);
+            into.setNotional(notional);
+            into.setTradeCount(count);
+            return true;
+        }
+    }
+    
+    public int snapshotSize() {
+        return slots.snapshotSize();
+    }
+    
+    /**
+     * Writer only: copy all state for a snapshot
+     */
+    public void writeSnapshot(ByteBuffer out) {
+        slots.writeSnapshot(out);
+    }
+    
+    /**
+     * Restore state written by writeSnapshot; call before the writer starts
+     */
+    public void readSnapshot(ByteBuffer in) {
+        slots.readSnapshot(in);
+    }
+}
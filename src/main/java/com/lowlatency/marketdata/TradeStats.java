@@ -0,0 +1,28 @@
+package com.lowlatency.marketdata;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reusable per-symbol trade statistics, filled by TradeAnalytics.read.
+ * Callers keep one instance per reading thread so reads never allocate.
+ */
+@Data
+@NoArgsConstructor
+public class TradeStats {
+    private int symbolId;
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+    private long volume;
+    private double notional;
+    private long tradeCount;
+    
+    /**
+     * Volume-weighted average price, NaN before the first trade
+     */
+    public double getVwap() {
+        return volume == 0 ? Double.NaN : notional / volume;
+    }
+}
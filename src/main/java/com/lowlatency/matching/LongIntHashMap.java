@@ -0,0 +1,99 @@
+package com.lowlatency.matching;
+
+/**
+ * Fixed-capacity open-addressing map from long keys to int values.
+ * Linear probing with backward-shift deletion, so there are no tombstones and nothing allocates after construction.
+ * Not thread-safe; owned by a single writer.
+ */
+class LongIntHashMap {
+    
+    static final int MISSING = -1;
+    
+    private final long[] keys;
+    private final int[] values;
+    private final boolean[] used;
+    private final int mask;
+    private final int capacity;
+    private int size;
+    
+    LongIntHashMap(int capacity) {
+        this.capacity = capacity;
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        this.mask = tableSize - 1;
+        this.keys = new long[tableSize];
+        this.values = new int[tableSize];
+        this.used = new boolean[tableSize];
+    }
+    
+    int get(long key) {
+        for (int slot = slot(key); used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return MISSING;
+    }
+    
+    /**
+     * @return false if the map is full or the key is already present
+     */
+    boolean putIfAbsent(long key, int value) {
+        if (size >= capacity) {
+            return false;
+        }
+        int slot = slot(key);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return true;
+    }
+    
+    int remove(long key) {
+        int slot = slot(key);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                int value = values[slot];
+                shiftBack(slot);
+                size--;
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            if (!used[slot]) {
+                break;
+            }
+            int home = slot(keys[slot]);
+            // Move the entry into the gap unless its home lies cyclically in (gap, slot]
+            boolean homeBetween = gap <= slot ? (home > gap && home <= slot) : (home > gap || home <= slot);
+            if (!homeBetween) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        used[gap] = false;
+    }
+    
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,190 @@
+package com.lowlatency.matching;
+
+import com.lowlatency.core.Event;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Routes ORDER events to per-symbol order books and emits fills as TRADE events.
+ * Books are indexed by symbol ID and created on a symbol's first order; after that,
+ * matching, cancels and replaces are allocation-free. Single writer: call only from the handler thread.
+ */
+@Slf4j
+public class MatchingEngine {
+    
+    public static final int DEFAULT_MAX_ORDERS_PER_BOOK = 1024;
+    public static final int DEFAULT_MAX_LEVELS_PER_SIDE = 256;
+    public static final double DEFAULT_TICK_SIZE = 0.01;
+    
+    private final OrderBook[] books;
+    private final int maxOrdersPerBook;
+    private final int maxLevelsPerSide;
+    @Getter
+    private final double tickSize;
+    // Dividing by ticks-per-unit keeps e.g. 15020 ticks at 100.0 exactly 150.2, unlike 15020 * 0.01
+    private final double ticksPerUnit;
+    private final TradeListener tradeListener;
+    private final OrderBook.FillHandler fillHandler = this::onFill;
+    
+    // Reused for every fill; valid only inside TradeListener.onTrade
+    private final Event trade = new Event();
+    private Event aggressor;
+    
+    @Getter
+    private volatile long tradeCount; // single writer, read by monitoring threads
+    @Getter
+    private volatile long rejectCount;
+    
+    public MatchingEngine(int maxSymbols, TradeListener tradeListener) {
+        this(maxSymbols, DEFAULT_MAX_ORDERS_PER_BOOK, DEFAULT_MAX_LEVELS_PER_SIDE, DEFAULT_TICK_SIZE, tradeListener);
+    }
+    
+    public MatchingEngine(int maxSymbols, int maxOrdersPerBook, int maxLevelsPerSide, double tickSize, 
+                          TradeListener tradeListener) {
+        if (tickSize <= 0) {
+            throw new IllegalArgumentException("tickSize must be positive: " + tickSize);
+        }
+        this.books = new OrderBook[maxSymbols];
+        this.maxOrdersPerBook = maxOrdersPerBook;
+        this.maxLevelsPerSide = maxLevelsPerSide;
+        this.tickSize = tickSize;
+        this.ticksPerUnit = 1.0 / tickSize;
+        this.tradeListener = tradeListener;
+        log.debug("MatchingEngine initialized: maxSymbols={}, maxOrdersPerBook={}, maxLevelsPerSide={}, tickSize={}", 
+                maxSymbols, maxOrdersPerBook, maxLevelsPerSide, tickSize);
+    }
+    
+    /**
+     * Apply an ORDER event. A null action is treated as NEW.
+     */
+    public OrderBook.Result onOrder(Event order) {
+        int symbolId = order.getSymbolId();
+        if (symbolId < 0 || symbolId >= books.length) {
+            return reject(order, OrderBook.Result.REJECTED_INVALID);
+        }
+        OrderBook book = books[symbolId];
+        if (book == null) {
+            book = new OrderBook(maxOrdersPerBook, maxLevelsPerSide);
+            books[symbolId] = book;
+            log.debug("Created order book for symbol {} ({})", order.getSymbol(), symbolId);
+        }
+        
+        aggressor = order;
+        Event.OrderAction action = order.getAction();
+        OrderBook.Result result;
+        if (action == null || action == Event.OrderAction.NEW) {
+            result = book.submit(order.getOrderId(), order.getSide(), toTicks(order.getPrice()), order.getQuantity(), fillHandler);
+        } else if (action == Event.OrderAction.CANCEL) {
+            result = book.cancel(order.getOrderId());
+        } else {
+            result = book.replace(order.getOrderId(), toTicks(order.getPrice()), order.getQuantity(), fillHandler);
+        }
+        aggressor = null;
+        
+        switch (result) {
+            case REJECTED_INVALID, REJECTED_DUPLICATE, REJECTED_BOOK_FULL, REJECTED_UNKNOWN_ORDER,
+                    PARTIALLY_FILLED_REST_REJECTED -> reject(order, result);
+            default -> {
+                if (log.isTraceEnabled()) {
+                    log.trace("Order {} {}: {}", order.getOrderId(), action, result);
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Book for a symbol, or null if it has never traded. Handler thread only.
+     */
+    public OrderBook getOrderBook(int symbolId) {
+        return symbolId >= 0 && symbolId < books.length ? books[symbolId] : null;
+    }
+    
+    public int snapshotSize() {
+        int size = 2 * Long.BYTES + Integer.BYTES;
+        for (OrderBook book : books) {
+            if (book != null) {
+                size += Integer.BYTES + book.snapshotSize();
+            }
+        }
+        return size;
+    }
+    
+    /**
+     * Handler thread only: counters, then every book keyed by symbol ID
+     */
+    public void writeSnapshot(ByteBuffer out) {
+        out.putLong(tradeCount);
+        out.putLong(rejectCount);
+        int bookCount = 0;
+        for (OrderBook book : books) {
+            if (book != null) {
+                bookCount++;
+            }
+        }
+        out.putInt(bookCount);
+        for (int symbolId = 0; symbolId < books.length; symbolId++) {
+            if (books[symbolId] != null) {
+                out.putInt(symbolId);
+                books[symbolId].writeSnapshot(out);
+            }
+        }
+    }
+    
+    /**
+     * Restore state written by writeSnapshot; call before the handler starts
+     */
+    public void readSnapshot(ByteBuffer in) {
+        tradeCount = in.getLong();
+        rejectCount = in.getLong();
+        int bookCount = in.getInt();
+        for (int i = 0; i < bookCount; i++) {
+            int symbolId = in.getInt();
+            if (symbolId < 0 || symbolId >= books.length) {
+                throw new IllegalStateException("Snapshot book for symbol " + symbolId + " exceeds maxSymbols " + books.length);
+            }
+            OrderBook book = new OrderBook(maxOrdersPerBook, maxLevelsPerSide);
+            book.readSnapshot(in);
+            books[symbolId] = book;
+        }
+        log.debug("Restored {} order books, tradeCount={}", bookCount, tradeCount);
+    }
+    
+    public long toTicks(double price) {
+        return Math.round(price * ticksPerUnit);
+    }
+    
+    public double toPrice(long ticks) {
+        return ticks / ticksPerUnit;
+    }
+    
+    private OrderBook.Result reject(Event order, OrderBook.Result result) {
+        rejectCount++;
+        if (log.isDebugEnabled()) {
+            log.debug("Order {} for symbol {} rejected: {}", order.getOrderId(), order.getSymbolId(), result);
+        }
+        return result;
+    }
+    
+    private void onFill(long restingOrderId, long priceTicks, long quantity) {
+        trade.setId(aggressor.getId());
+        trade.assignSymbol(aggressor.getSymbolId(), aggressor.getSymbol());
+        trade.setPrice(toPrice(priceTicks));
+        trade.setQuantity(quantity);
+        trade.setTimestamp(aggressor.getTimestamp());
+        trade.setType(Event.EventType.TRADE);
+        trade.setOrderId(aggressor.getOrderId());
+        trade.setSide(aggressor.getSide());
+        trade.setAction(null);
+        tradeCount++;
+        if (log.isTraceEnabled()) {
+            log.trace("Fill: aggressor={}, resting={}, price={}, quantity={}", 
+                    aggressor.getOrderId(), restingOrderId, trade.getPrice(), quantity);
+        }
+        if (tradeListener != null) {
+            tradeListener.onTrade(trade, restingOrderId);
+        }
+    }
+}
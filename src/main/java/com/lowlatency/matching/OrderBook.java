@@ -0,0 +1,410 @@
+package com.lowlatency.matching;
+
+import com.lowlatency.core.Event;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Price-time priority limit order book for one symbol.
+ * Price levels are sorted primitive arrays with the best level at the end, so touching the top of book
+ * never shifts. Orders are pooled nodes in parallel arrays, linked FIFO per level, and are indexed by
+ * order ID in a primitive hash map. Nothing allocates after construction.
+ * Not thread-safe; owned by the handler thread.
+ */
+public class OrderBook {
+    
+    public static final long NO_PRICE = Long.MIN_VALUE;
+    
+    private static final int NIL = -1;
+    private static final byte BUY = 0;
+    private static final byte SELL = 1;
+    // side, order ID, price ticks, quantity
+    private static final int SNAPSHOT_ORDER_BYTES = 1 + 3 * Long.BYTES;
+    
+    public enum Result {
+        /** Rested on the book, possibly after partial fills */
+        ACCEPTED,
+        /** Fully filled on arrival */
+        FILLED,
+        CANCELLED,
+        /** Quantity reduced in place, time priority kept */
+        REDUCED,
+        REJECTED_INVALID,
+        REJECTED_DUPLICATE,
+        REJECTED_BOOK_FULL,
+        /** Matched part of the quantity, but the book had no room to rest the remainder; the fills stand */
+        PARTIALLY_FILLED_REST_REJECTED,
+        REJECTED_UNKNOWN_ORDER
+    }
+    
+    /**
+     * Receives each fill against a resting order
+     */
+    @FunctionalInterface
+    public interface FillHandler {
+        void onFill(long restingOrderId, long priceTicks, long quantity);
+    }
+    
+    private final PriceLadder bids;
+    private final PriceLadder asks;
+    
+    // Order node pool
+    private final long[] nodeOrderId;
+    private final long[] nodeQuantity;
+    private final long[] nodePriceTicks;
+    private final byte[] nodeSide;
+    private final int[] nodeNext;
+    private final int[] nodePrev;
+    private int freeHead;
+    @Getter
+    private int orderCount;
+    
+    private final LongIntHashMap orderIndex;
+    
+    public OrderBook(int maxOrders, int maxLevelsPerSide) {
+        this.bids = new PriceLadder(maxLevelsPerSide, 1);
+        this.asks = new PriceLadder(maxLevelsPerSide, -1);
+        this.nodeOrderId = new long[maxOrders];
+        this.nodeQuantity = new long[maxOrders];
+        this.nodePriceTicks = new long[maxOrders];
+        this.nodeSide = new byte[maxOrders];
+        this.nodeNext = new int[maxOrders];
+        this.nodePrev = new int[maxOrders];
+        for (int i = 0; i < maxOrders; i++) {
+            nodeNext[i] = i + 1 < maxOrders ? i + 1 : NIL;
+        }
+        this.freeHead = maxOrders > 0 ? 0 : NIL;
+        this.orderIndex = new LongIntHashMap(maxOrders);
+    }
+    
+    /**
+     * Match a new limit order against the opposite side and rest any remainder
+     */
+    public Result submit(long orderId, Event.Side side, long priceTicks, long quantity, FillHandler fills) {
+        if (side == null || quantity <= 0) {
+            return Result.REJECTED_INVALID;
+        }
+        if (orderIndex.get(orderId) != LongIntHashMap.MISSING) {
+            return Result.REJECTED_DUPLICATE;
+        }
+        byte sideCode = side == Event.Side.BUY ? BUY : SELL;
+        long remaining = match(sideCode, priceTicks, quantity, fills);
+        if (remaining == 0) {
+            return Result.FILLED;
+        }
+        if (rest(orderId, sideCode, priceTicks, remaining)) {
+            return Result.ACCEPTED;
+        }
+        return remaining < quantity ? Result.PARTIALLY_FILLED_REST_REJECTED : Result.REJECTED_BOOK_FULL;
+    }
+    
+    public Result cancel(long orderId) {
+        int node = orderIndex.remove(orderId);
+        if (node == LongIntHashMap.MISSING) {
+            return Result.REJECTED_UNKNOWN_ORDER;
+        }
+        unlink(node);
+        return Result.CANCELLED;
+    }
+    
+    /**
+     * Reducing quantity at the same price keeps time priority; any other change re-enters the order
+     * at the back of the queue and may match immediately. If the new price would need a level the full
+     * ladder cannot add, the replace is rejected up front and the original order keeps resting untouched,
+     * even when the new terms would have filled completely.
+     */
+    public Result replace(long orderId, long priceTicks, long quantity, FillHandler fills) {
+        int node = orderIndex.get(orderId);
+        if (node == LongIntHashMap.MISSING) {
+            return Result.REJECTED_UNKNOWN_ORDER;
+        }
+        if (quantity <= 0) {
+            return cancel(orderId);
+        }
+        if (priceTicks == nodePriceTicks[node] && quantity <= nodeQuantity[node]) {
+            PriceLadder ladder = ladder(nodeSide[node]);
+            int level = ladder.find(priceTicks);
+            ladder.quantities[level] -= nodeQuantity[node] - quantity;
+            nodeQuantity[node] = quantity;
+            return Result.REDUCED;
+        }
+        if (!canRestReplacing(node, priceTicks)) {
+            return Result.REJECTED_BOOK_FULL;
+        }
+        Event.Side side = nodeSide[node] == BUY ? Event.Side.BUY : Event.Side.SELL;
+        cancel(orderId);
+        return submit(orderId, side, priceTicks, quantity, fills);
+    }
+    
+    public long getBestBid() {
+        return bids.count == 0 ? NO_PRICE : bids.price(bids.count - 1);
+    }
+    
+    public long getBestAsk() {
+        return asks.count == 0 ? NO_PRICE : asks.price(asks.count - 1);
+    }
+    
+    public long getBestBidQuantity() {
+        return bids.count == 0 ? 0 : bids.quantities[bids.count - 1];
+    }
+    
+    public long getBestAskQuantity() {
+        return asks.count == 0 ? 0 : asks.quantities[asks.count - 1];
+    }
+    
+    public int getBidLevels() {
+        return bids.count;
+    }
+    
+    public int getAskLevels() {
+        return asks.count;
+    }
+    
+    /**
+     * Total resting quantity at a price, 0 if there is no such level
+     */
+    public long getQuantityAt(Event.Side side, long priceTicks) {
+        PriceLadder ladder = side == Event.Side.BUY ? bids : asks;
+        int level = ladder.find(priceTicks);
+        return level < 0 ? 0 : ladder.quantities[level];
+    }
+    
+    public boolean containsOrder(long orderId) {
+        return orderIndex.get(orderId) != LongIntHashMap.MISSING;
+    }
+    
+    public int snapshotSize() {
+        return Integer.BYTES + orderCount * SNAPSHOT_ORDER_BYTES;
+    }
+    
+    /**
+     * Write resting orders level by level, each level in time priority
+     */
+    public void writeSnapshot(ByteBuffer out) {
+        out.putInt(orderCount);
+        writeSnapshot(bids, out);
+        writeSnapshot(asks, out);
+    }
+    
+    private void writeSnapshot(PriceLadder ladder, ByteBuffer out) {
+        for (int level = ladder.count - 1; level >= 0; level--) {
+            for (int node = ladder.heads[level]; node != NIL; node = nodeNext[node]) {
+                out.put(nodeSide[node]);
+                out.putLong(nodeOrderId[node]);
+                out.putLong(nodePriceTicks[node]);
+                out.putLong(nodeQuantity[node]);
+            }
+        }
+    }
+    
+    /**
+     * Rebuild an empty book from writeSnapshot output; orders rest in their original priority without matching
+     */
+    public void readSnapshot(ByteBuffer in) {
+        if (orderCount != 0) {
+            throw new IllegalStateException("Snapshot can only be restored into an empty book");
+        }
+        int orders = in.getInt();
+        for (int i = 0; i < orders; i++) {
+            byte side = in.get();
+            long orderId = in.getLong();
+            long priceTicks = in.getLong();
+            long quantity = in.getLong();
+            if (!rest(orderId, side, priceTicks, quantity)) {
+                throw new IllegalStateException("Snapshot does not fit the book: " + orders + " orders");
+            }
+        }
+    }
+    
+    private long match(byte side, long priceTicks, long quantity, FillHandler fills) {
+        PriceLadder opposite = side == BUY ? asks : bids;
+        long remaining = quantity;
+        while (remaining > 0 && opposite.count > 0) {
+            int level = opposite.count - 1;
+            long levelPrice = opposite.price(level);
+            boolean crosses = side == BUY ? levelPrice <= priceTicks : levelPrice >= priceTicks;
+            if (!crosses) {
+                break;
+            }
+            int node = opposite.heads[level];
+            while (node != NIL && remaining > 0) {
+                long fillQuantity = Math.min(remaining, nodeQuantity[node]);
+                nodeQuantity[node] -= fillQuantity;
+                opposite.quantities[level] -= fillQuantity;
+                remaining -= fillQuantity;
+                fills.onFill(nodeOrderId[node], levelPrice, fillQuantity);
+                
+                int next = nodeNext[node];
+                if (nodeQuantity[node] == 0) {
+                    orderIndex.remove(nodeOrderId[node]);
+                    opposite.heads[level] = next;
+                    if (next != NIL) {
+                        nodePrev[next] = NIL;
+                    }
+                    free(node);
+                }
+                node = next;
+            }
+            if (opposite.heads[level] == NIL) {
+                opposite.removeLevel(level);
+            }
+        }
+        return remaining;
+    }
+    
+    private boolean rest(long orderId, byte side, long priceTicks, long quantity) {
+        if (freeHead == NIL) {
+            return false;
+        }
+        PriceLadder ladder = ladder(side);
+        int level = ladder.find(priceTicks);
+        if (level < 0) {
+            level = ladder.insertLevel(-level - 1, priceTicks);
+            if (level < 0) {
+                return false;
+            }
+        }
+        
+        int node = freeHead;
+        freeHead = nodeNext[node];
+        nodeOrderId[node] = orderId;
+        nodeQuantity[node] = quantity;
+        nodePriceTicks[node] = priceTicks;
+        nodeSide[node] = side;
+        nodeNext[node] = NIL;
+        nodePrev[node] = ladder.tails[level];
+        if (ladder.tails[level] == NIL) {
+            ladder.heads[level] = node;
+        } else {
+            nodeNext[ladder.tails[level]] = node;
+        }
+        ladder.tails[level] = node;
+        ladder.quantities[level] += quantity;
+        orderIndex.putIfAbsent(orderId, node);
+        orderCount++;
+        return true;
+    }
+    
+    /**
+     * Whether the order could rest at priceTicks once node is cancelled: cancelling frees a node, so
+     * only the price level can be missing
+     */
+    private boolean canRestReplacing(int node, long priceTicks) {
+        PriceLadder ladder = ladder(nodeSide[node]);
+        if (ladder.count < ladder.keys.length || ladder.find(priceTicks) >= 0) {
+            return true;
+        }
+        // A full ladder still has room if the cancel empties the order's current level
+        int level = ladder.find(nodePriceTicks[node]);
+        return ladder.heads[level] == node && ladder.tails[level] == node;
+    }
+    
+    private void unlink(int node) {
+        PriceLadder ladder = ladder(nodeSide[node]);
+        int level = ladder.find(nodePriceTicks[node]);
+        int prev = nodePrev[node];
+        int next = nodeNext[node];
+        if (prev == NIL) {
+            ladder.heads[level] = next;
+        } else {
+            nodeNext[prev] = next;
+        }
+        if (next == NIL) {
+            ladder.tails[level] = prev;
+        } else {
+            nodePrev[next] = prev;
+        }
+        ladder.quantities[level] -= nodeQuantity[node];
+        if (ladder.heads[level] == NIL) {
+            ladder.removeLevel(level);
+        }
+        free(node);
+    }
+    
+    private void free(int node) {
+        nodeNext[node] = freeHead;
+        freeHead = node;
+        orderCount--;
+    }
+    
+    private PriceLadder ladder(byte side) {
+        return side == BUY ? bids : asks;
+    }
+    
+    /**
+     * One side of the book. Levels are sorted ascending by key = price * direction,
+     * so the best price (highest bid, lowest ask) is always the last element.
+     */
+    private static final class PriceLadder {
+        private final long[] keys;
+        private final int[] heads;
+        private final int[] tails;
+        private final long[] quantities;
+        private final int direction;
+        private int count;
+        
+        PriceLadder(int capacity, int direction) {
+            this.keys = new long[capacity];
+            this.heads = new int[capacity];
+            this.tails = new int[capacity];
+            this.quantities = new long[capacity];
+            this.direction = direction;
+        }
+        
+        long price(int level) {
+            return keys[level] * direction;
+        }
+        
+        /**
+         * Binary search; returns the level index or -(insertionPoint + 1)
+         */
+        int find(long priceTicks) {
+            long key = priceTicks * direction;
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long midKey = keys[mid];
+                if (midKey < key) {
+                    low = mid + 1;
+                } else if (midKey > key) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+        
+        int insertLevel(int index, long priceTicks) {
+            if (count == keys.length) {
+                return -1;
+            }
+            int moved = count - index;
+            if (moved > 0) {
+                System.arraycopy(keys, index, keys, index + 1, moved);
+                System.arraycopy(heads, index, heads, index + 1, moved);
+                System.arraycopy(tails, index, tails, index + 1, moved);
+                System.arraycopy(quantities, index, quantities, index + 1, moved);
+            }
+            keys[index] = priceTicks * direction;
+            heads[index] = NIL;
+            tails[index] = NIL;
+            quantities[index] = 0;
+            count++;
+            return index;
+        }
+        
+        void removeLevel(int index) {
+            int moved = count - index - 1;
+            if (moved > 0) {
+                System.arraycopy(keys, index + 1, keys, index, moved);
+                System.arraycopy(heads, index + 1, heads, index, moved);
+                System.arraycopy(tails, index + 1, tails, index, moved);
+                System.arraycopy(quantities, index + 1, quantities, index, moved);
+            }
+            count--;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.lowlatency.matching;
+
+import com.lowlatency.core.Event;
+
+/**
+ * Receives TRADE events produced by matching, on the handler thread.
+ * The event instance is reused for every fill and is only valid for the duration of the call.
+ */
+@FunctionalInterface
+public interface TradeListener {
+    
+    /**
+     * @param trade TRADE event: symbol, fill price and quantity, aggressor order ID and side
+     * @param restingOrderId the passive order that was hit
+     */
+    void onTrade(Event trade, long restingOrderId);
+}
@@ -0,0 +1,205 @@
+package com.lowlatency.pipeline;
+
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.EventHandlerIdentity;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.EventHandlerGroup;
+import com.lowlatency.core.Event;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consumer graph for the engine's ring buffer. Handlers within a stage run in parallel, each on its
+ * own thread from the engine's ThreadFactory (pin threads there to give every stage its own core).
+ * A stage sees an event only after every stage it depends on has processed it. Dependencies must be
+ * declared first, so the graph is acyclic by construction.
+ */
+@Slf4j
+public final class Pipeline {
+    
+    /** Name of the stage running the engine's own LowLatencyEventHandlers */
+    public static final String ENGINE_STAGE = "engine";
+    
+    private final List<Stage> stages;
+    
+    private Pipeline(List<Stage> stages) {
+        this.stages = stages;
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * Parse a linear spec such as {@code "journal > engine > replication, egress"}. Groups separated by
+     * {@code >} run in sequence; names separated by commas are independent stages within a group, each
+     * depending on every stage of the previous group. Names other than {@value #ENGINE_STAGE} are looked up
+     * in the handler map.
+     *
+     * @throws IllegalArgumentException on an unknown handler name or a malformed spec
+     */
+    public static Pipeline fromSpec(String spec, Map<String, ? extends EventHandler<Event>> handlers) {
+        Builder builder = builder();
+        List<String> previous = List.of();
+        for (String group : spec.split(">")) {
+            List<String> current = new ArrayList<>();
+            for (String token : group.split(",")) {
+                String name = token.trim();
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException("Empty stage name in pipeline spec: " + spec);
+                }
+                if (name.equals(ENGINE_STAGE)) {
+                    builder.engineStage(previous);
+                } else {
+                    EventHandler<Event> handler = handlers.get(name);
+                    if (handler == null) {
+                        throw new IllegalArgumentException("No handler for stage '" + name + "' in pipeline spec: " + spec);
+                    }
+                    builder.stage(name, previous, handler);
+                }
+                current.add(name);
+            }
+            previous = current;
+        }
+        return builder.build();
+    }
+    
+    public List<Stage> getStages() {
+        return stages;
+    }
+    
+    /**
+     * Register every stage with the Disruptor (before it is started). The engine stage gets the given
+     * handlers, chained one after another when {@code chainEngineHandlers} is set.
+     */
+    public PipelineMonitor wire(Disruptor<Event> disruptor, EventHandler<Event>[] engineHandlers, boolean chainEngineHandlers) {
+        Map<String, EventHandlerIdentity[]> wired = new HashMap<>();
+        String[] names = new String[stages.size()];
+        EventHandlerIdentity[][] handlersByStage = new EventHandlerIdentity[stages.size()][];
+        
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            EventHandler<Event>[] handlers = stage.isEngineStage() ? engineHandlers : toArray(stage.getHandlers());
+            List<EventHandlerIdentity> barrier = new ArrayList<>();
+            for (String dependency : stage.getAfter()) {
+                barrier.addAll(List.of(wired.get(dependency)));
+            }
+            
+            if (stage.isEngineStage() && chainEngineHandlers) {
+                EventHandlerGroup<Event> group = start(disruptor, barrier, handlers[0]);
+                for (int h = 1; h < handlers.length; h++) {
+                    group = group.then(handlers[h]);
+                }
+            } else {
+                start(disruptor, barrier, handlers);
+            }
+            log.debug("Wired stage {} after {} with {} handler(s)", stage.getName(), stage.getAfter(), handlers.length);
+            
+            names[i] = stage.getName();
+            handlersByStage[i] = handlers;
+            wired.put(stage.getName(), handlers);
+        }
+        return new PipelineMonitor(names, handlersByStage, disruptor::getSequenceValueFor, disruptor.getRingBuffer()::getCursor);
+    }
+    
+    @SafeVarargs
+    private static EventHandlerGroup<Event> start(Disruptor<Event> disruptor, List<EventHandlerIdentity> barrier, 
+                                                  EventHandler<Event>... handlers) {
+        return barrier.isEmpty() 
+            ? disruptor.handleEventsWith(handlers) 
+            : disruptor.after(barrier.toArray(new EventHandlerIdentity[0])).handleEventsWith(handlers);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static EventHandler<Event>[] toArray(List<EventHandler<Event>> handlers) {
+        return handlers.toArray(new EventHandler[0]);
+    }
+    
+    @Override
+    public String toString() {
+        return "Pipeline" + stages;
+    }
+    
+    /**
+     * One node of the graph; the engine stage carries no handlers until wired
+     */
+    @Value
+    public static class Stage {
+        String name;
+        List<String> after;
+        List<EventHandler<Event>> handlers;
+        boolean engineStage;
+    }
+    
+    public static final class Builder {
+        private final List<Stage> stages = new ArrayList<>();
+        
+        private Builder() {
+        }
+        
+        /**
+         * Stage that runs after the previously declared one, or straight off the ring if it is the first
+         */
+        @SafeVarargs
+        public final Builder stage(String name, EventHandler<Event>... handlers) {
+            return stage(name, previous(), handlers);
+        }
+        
+        /**
+         * Stage that runs after all the named stages; an empty list reads straight off the ring
+         */
+        @SafeVarargs
+        public final Builder stage(String name, List<String> after, EventHandler<Event>... handlers) {
+            if (handlers.length == 0) {
+                throw new IllegalArgumentException("Stage '" + name + "' needs at least one handler");
+            }
+            return add(new Stage(name, List.copyOf(after), List.of(handlers), false));
+        }
+        
+        /**
+         * The engine's own handlers (matching, trade analytics, quotes), after the previously declared stage
+         */
+        public Builder engineStage() {
+            return engineStage(previous());
+        }
+        
+        public Builder engineStage(List<String> after) {
+            return add(new Stage(ENGINE_STAGE, List.copyOf(after), List.of(), true));
+        }
+        
+        private List<String> previous() {
+            return stages.isEmpty() ? List.of() : List.of(stages.get(stages.size() - 1).getName());
+        }
+        
+        private Builder add(Stage stage) {
+            for (Stage existing : stages) {
+                if (existing.getName().equals(stage.getName())) {
+                    throw new IllegalArgumentException("Duplicate stage: " + stage.getName());
+                }
+            }
+            for (String dependency : stage.getAfter()) {
+                if (stages.stream().noneMatch(s -> s.getName().equals(dependency))) {
+                    throw new IllegalArgumentException("Stage '" + stage.getName() 
+                            + "' depends on undeclared stage: " + dependency);
+                }
+            }
+            stages.add(stage);
+            return this;
+        }
+        
+        /**
+         * @throws IllegalArgumentException if there is no engine stage
+         */
+        public Pipeline build() {
+            if (stages.stream().noneMatch(Stage::isEngineStage)) {
+                throw new IllegalArgumentException("Pipeline must include the engine stage");
+            }
+            return new Pipeline(List.copyOf(stages));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.lowlatency.pipeline;
+
+import com.lmax.disruptor.EventHandlerIdentity;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Per-stage throughput and lag, read from the Disruptor's consumer sequences so the handlers
+ * themselves do no extra work
+ */
+@Slf4j
+public final class PipelineMonitor {
+    
+    private final String[] stageNames;
+    private final EventHandlerIdentity[][] stageHandlers;
+    private final ToLongFunction<EventHandlerIdentity> sequenceOf;
+    private final LongSupplier cursor;
+    private final long[] lastProcessed;
+    private long lastSnapshotNanos = System.nanoTime();
+    
+    PipelineMonitor(String[] stageNames, EventHandlerIdentity[][] stageHandlers, 
+                    ToLongFunction<EventHandlerIdentity> sequenceOf, LongSupplier cursor) {
+        this.stageNames = stageNames;
+        this.stageHandlers = stageHandlers;
+        this.sequenceOf = sequenceOf;
+        this.cursor = cursor;
+        this.lastProcessed = new long[stageNames.length];
+    }
+    
+    /**
+     * Stats for every stage in declaration order; throughput covers the interval since the previous call
+     */
+    public synchronized List<StageStats> snapshot() {
+        long now = System.nanoTime();
+        long elapsed = Math.max(1, now - lastSnapshotNanos);
+        long published = cursor.getAsLong();
+        List<StageStats> stats = new ArrayList<>(stageNames.length);
+        for (int i = 0; i < stageNames.length; i++) {
+            long sequence = slowestSequence(i);
+            long processed = sequence + 1;
+            double throughput = (processed - lastProcessed[i]) * 1_000_000_000.0 / elapsed;
+            stats.add(new StageStats(stageNames[i], stageHandlers[i].length, processed, 
+                    Math.max(0, published - sequence), throughput));
+            lastProcessed[i] = processed;
+        }
+        lastSnapshotNanos = now;
+        log.trace("Pipeline snapshot: {}", stats);
+        return stats;
+    }
+    
+    /**
+     * Published events not yet completed by the named stage
+     *
+     * @throws IllegalArgumentException if there is no such stage
+     */
+    public long getLag(String stageName) {
+        for (int i = 0; i < stageNames.length; i++) {
+            if (stageNames[i].equals(stageName)) {
+                return Math.max(0, cursor.getAsLong() - slowestSequence(i));
+            }
+        }
+        throw new IllegalArgumentException("Unknown stage: " + stageName);
+    }
+    
+    /**
+     * True once every stage has completed everything published so far
+     */
+    public boolean isDrained() {
+        long published = cursor.getAsLong();
+        for (int i = 0; i < stageNames.length; i++) {
+            if (slowestSequence(i) < published) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private long slowestSequence(int stage) {
+        long sequence = Long.MAX_VALUE;
+        for (EventHandlerIdentity handler : stageHandlers[stage]) {
+            sequence = Math.min(sequence, sequenceOf.applyAsLong(handler));
+        }
+        return sequence;
+    }
+}
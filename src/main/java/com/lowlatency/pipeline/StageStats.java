@@ -0,0 +1,18 @@
+package com.lowlatency.pipeline;
+
+import lombok.Value;
+
+/**
+ * Progress of one pipeline stage at a point in time
+ */
+@Value
+public class StageStats {
+    String stageName;
+    int handlerCount;
+    /** Events completed by every handler in the stage */
+    long processed;
+    /** Published events the slowest handler in the stage has not completed yet */
+    long lag;
+    /** Events per second completed since the previous snapshot */
+    double throughput;
+}
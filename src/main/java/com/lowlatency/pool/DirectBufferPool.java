@@ -0,0 +1,306 @@
+package com.lowlatency.pool;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Slab allocator for direct ByteBuffers, so I/O and codec paths neither pay for
+ * ByteBuffer.allocateDirect per use nor hold native memory until the GC finds the buffer.
+ * <p>
+ * Requests are rounded up to a power-of-two size class between minBufferSize and maxBufferSize.
+ * Each class carves fixed-size blocks out of regionSize direct regions, allocated on demand until
+ * maxReservedBytes is reserved, and never freed. A block is handed out as a PooledBuffer and comes
+ * back when its reference count drops to zero.
+ * <p>
+ * Free blocks sit first in a small per-thread cache per class, touched only by its own thread,
+ * then on a per-class lock-free stack shared by all threads. Only carving a new region takes a
+ * lock. Requests larger than maxBufferSize, or made once maxReservedBytes is used up, fall back to
+ * an unpooled allocateDirect buffer that the GC reclaims after release.
+ */
+@Slf4j
+public class DirectBufferPool {
+    
+    private static final int THREAD_CACHE_SIZE = 32;
+    private static final int INITIAL_REGION_SLOTS = 4;
+    
+    @Getter
+    private final int minBufferSize;
+    @Getter
+    private final int maxBufferSize;
+    @Getter
+    private final int regionSize;
+    @Getter
+    private final long maxReservedBytes;
+    private final int minShift;
+    private final SizeClass[] sizeClasses;
+    private final ThreadLocal<ThreadCache> threadCaches;
+    private final AtomicLong reservedBytes = new AtomicLong();
+    private final LongAdder usedBytes = new LongAdder();
+    private final LongAdder unpooledBytes = new LongAdder();
+    private final LongAdder pooledAllocations = new LongAdder();
+    private final LongAdder unpooledAllocations = new LongAdder();
+    
+    /**
+     * @param minBufferSize smallest size class, rounded up to a power of two
+     * @param maxBufferSize largest size class, rounded up to a power of two
+     * @param regionSize bytes per slab region, rounded up to a power of two and to maxBufferSize
+     * @param maxReservedBytes cap on native memory held by regions across all classes; may be
+     *                         Long.MAX_VALUE, since region tables grow only as regions are carved
+     */
+    public DirectBufferPool(int minBufferSize, int maxBufferSize, int regionSize, long maxReservedBytes) {
+        if (minBufferSize < 1 || maxBufferSize < minBufferSize) {
+            throw new IllegalArgumentException("Need 0 < minBufferSize <= maxBufferSize: "
+                    + minBufferSize + ", " + maxBufferSize);
+        }
+        this.minBufferSize = roundUpToPowerOfTwo(minBufferSize);
+        this.maxBufferSize = roundUpToPowerOfTwo(maxBufferSize);
+        this.regionSize = Math.max(roundUpToPowerOfTwo(regionSize), this.maxBufferSize);
+        this.maxReservedBytes = maxReservedBytes;
+        this.minShift = Integer.numberOfTrailingZeros(this.minBufferSize);
+        int classes = Integer.numberOfTrailingZeros(this.maxBufferSize) - minShift + 1;
+        this.sizeClasses = new SizeClass[classes];
+        for (int i = 0; i < classes; i++) {
+            sizeClasses[i] = new SizeClass(i, this.minBufferSize << i, this.regionSize);
+        }
+        this.threadCaches = ThreadLocal.withInitial(() -> new ThreadCache(classes));
+        log.info("Created direct buffer pool: sizeClasses={}..{}, regionSize={}, maxReservedBytes={}",
+                this.minBufferSize, this.maxBufferSize, this.regionSize, maxReservedBytes);
+    }
+    
+    /**
+     * A buffer with at least size bytes, limit set to size. Release it when done.
+     */
+    public PooledBuffer allocate(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must not be negative: " + size);
+        }
+        if (size > maxBufferSize) {
+            return allocateUnpooled(size);
+        }
+        int classIndex = sizeClassOf(size);
+        SizeClass sizeClass = sizeClasses[classIndex];
+        ThreadCache cache = threadCaches.get();
+        PooledBuffer block = cache.counts[classIndex] > 0 ? cache.pop(classIndex) : null;
+        if (block == null) {
+            block = sizeClass.pop();
+        }
+        if (block == null) {
+            block = sizeClass.carveRegion();
+        }
+        if (block == null) {
+            return allocateUnpooled(size);
+        }
+        usedBytes.add(sizeClass.blockSize);
+        pooledAllocations.increment();
+        return block.reset(size);
+    }
+    
+    /**
+     * Move this thread's cached free blocks to the shared free lists, e.g. before the thread exits;
+     * blocks left in an exited thread's cache are not reused
+     */
+    public void trimThreadCache() {
+        ThreadCache cache = threadCaches.get();
+        for (int i = 0; i < sizeClasses.length; i++) {
+            while (cache.counts[i] > 0) {
+                sizeClasses[i].push(cache.pop(i));
+            }
+        }
+        threadCaches.remove();
+    }
+    
+    public DirectBufferPoolStats stats() {
+        int regions = 0;
+        for (SizeClass sizeClass : sizeClasses) {
+            regions += sizeClass.regionCount;
+        }
+        return new DirectBufferPoolStats(reservedBytes.get(), usedBytes.sum(), unpooledBytes.sum(),
+                pooledAllocations.sum(), unpooledAllocations.sum(), regions);
+    }
+    
+    /**
+     * Called by PooledBuffer when its last reference is released
+     */
+    void free(PooledBuffer block) {
+        if (!block.isPooled()) {
+            unpooledBytes.add(-block.buffer().capacity());
+            return;
+        }
+        SizeClass sizeClass = sizeClasses[block.sizeClass];
+        usedBytes.add(-sizeClass.blockSize);
+        ThreadCache cache = threadCaches.get();
+        if (cache.counts[block.sizeClass] == THREAD_CACHE_SIZE) {
+            // Full: hand the older half to other threads, keep the recently used half hot
+            cache.spill(block.sizeClass, sizeClass);
+        }
+        cache.push(block.sizeClass, block);
+    }
+    
+    private PooledBuffer allocateUnpooled(int size) {
+        unpooledAllocations.increment();
+        unpooledBytes.add(size);
+        return new PooledBuffer(this, -1, -1, ByteBuffer.allocateDirect(size)).reset(size);
+    }
+    
+    private int sizeClassOf(int size) {
+        if (size <= minBufferSize) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(size - 1) - minShift;
+    }
+    
+    private static int roundUpToPowerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+    
+    /**
+     * Blocks of one size. The shared free list is a Treiber stack linked through
+     * PooledBuffer.nextFree; its head packs a version in the high 32 bits with the top block's
+     * index + 1 in the low 32, and every push and pop bumps the version, so a block popped and
+     * pushed back between another thread's read and CAS cannot be mistaken for an unchanged head.
+     */
+    private final class SizeClass {
+        
+        private final int classIndex;
+        private final int blockSize;
+        private final int blocksPerRegion;
+        // Grown by doubling under the carve lock; readers only index regions already published
+        private volatile PooledBuffer[][] regions = new PooledBuffer[INITIAL_REGION_SLOTS][];
+        private final AtomicLong head = new AtomicLong();
+        private volatile int regionCount;
+        
+        private SizeClass(int classIndex, int blockSize, int regionSize) {
+            this.classIndex = classIndex;
+            this.blockSize = blockSize;
+            this.blocksPerRegion = regionSize / blockSize;
+        }
+        
+        PooledBuffer pop() {
+            while (true) {
+                long current = head.get();
+                int top = (int) current;
+                if (top == 0) {
+                    return null;
+                }
+                PooledBuffer block = block(top - 1);
+                if (head.compareAndSet(current, nextHead(current, block.nextFree))) {
+                    return block;
+                }
+            }
+        }
+        
+        void push(PooledBuffer block) {
+            while (true) {
+                long current = head.get();
+                block.nextFree = (int) current;
+                if (head.compareAndSet(current, nextHead(current, block.index + 1))) {
+                    return;
+                }
+            }
+        }
+        
+        /**
+         * Allocate and carve one more region, returning its first block and pushing the rest.
+         * Null once maxReservedBytes is reached. Holds this class's monitor, the only lock here.
+         */
+        synchronized PooledBuffer carveRegion() {
+            // Another thread may have carved while this one waited for the lock
+            PooledBuffer block = pop();
+            if (block != null) {
+                return block;
+            }
+            int region = regionCount;
+            // Block indexes, stored + 1 in the low half of the free-list head, must stay ints
+            if ((long) (region + 1) * blocksPerRegion >= Integer.MAX_VALUE || !reserve()) {
+                return null;
+            }
+            ByteBuffer memory;
+            try {
+                memory = ByteBuffer.allocateDirect(regionSize);
+            } catch (OutOfMemoryError e) {
+                reservedBytes.addAndGet(-regionSize);
+                throw e;
+            }
+            PooledBuffer[] blocks = new PooledBuffer[blocksPerRegion];
+            for (int i = 0; i < blocksPerRegion; i++) {
+                ByteBuffer slice = memory.duplicate().position(i * blockSize).limit((i + 1) * blockSize).slice();
+                blocks[i] = new PooledBuffer(DirectBufferPool.this, classIndex, region * blocksPerRegion + i,
+                        slice);
+            }
+            PooledBuffer[][] table = regions;
+            if (region == table.length) {
+                table = Arrays.copyOf(table, table.length * 2);
+            }
+            table[region] = blocks;
+            regions = table;
+            // Published before any of its blocks can reach the free list
+            regionCount = region + 1;
+            for (int i = blocksPerRegion - 1; i > 0; i--) {
+                push(blocks[i]);
+            }
+            log.debug("Carved region {} for {}-byte buffers", region, blockSize);
+            return blocks[0];
+        }
+        
+        private boolean reserve() {
+            while (true) {
+                long reserved = reservedBytes.get();
+                if (reserved + regionSize > maxReservedBytes) {
+                    return false;
+                }
+                if (reservedBytes.compareAndSet(reserved, reserved + regionSize)) {
+                    return true;
+                }
+            }
+        }
+        
+        private PooledBuffer block(int index) {
+            return regions[index / blocksPerRegion][index % blocksPerRegion];
+        }
+        
+        private long nextHead(long current, int top) {
+            return ((current >>> 32) + 1) << 32 | (top & 0xFFFFFFFFL);
+        }
+    }
+    
+    /**
+     * Free blocks cached by one thread, a stack per size class; never touched by other threads
+     */
+    private static final class ThreadCache {
+        
+        private final PooledBuffer[][] blocks;
+        private final int[] counts;
+        
+        private ThreadCache(int classes) {
+            this.blocks = new PooledBuffer[classes][THREAD_CACHE_SIZE];
+            this.counts = new int[classes];
+        }
+        
+        PooledBuffer pop(int classIndex) {
+            int count = --counts[classIndex];
+            PooledBuffer block = blocks[classIndex][count];
+            blocks[classIndex][count] = null;
+            return block;
+        }
+        
+        void push(int classIndex, PooledBuffer block) {
+            blocks[classIndex][counts[classIndex]++] = block;
+        }
+        
+        void spill(int classIndex, SizeClass sizeClass) {
+            PooledBuffer[] cache = blocks[classIndex];
+            int half = THREAD_CACHE_SIZE / 2;
+            for (int i = 0; i < half; i++) {
+                sizeClass.push(cache[i]);
+            }
+            System.arraycopy(cache, half, cache, 0, THREAD_CACHE_SIZE - half);
+            Arrays.fill(cache, THREAD_CACHE_SIZE - half, THREAD_CACHE_SIZE, null);
+            counts[classIndex] = THREAD_CACHE_SIZE - half;
+        }
+    }
+}
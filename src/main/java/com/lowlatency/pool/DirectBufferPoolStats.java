@@ -0,0 +1,26 @@
+package com.lowlatency.pool;
+
+import lombok.Value;
+
+/**
+ * DirectBufferPool memory at a point in time; allocation counts are cumulative since creation
+ */
+@Value
+public class DirectBufferPoolStats {
+    /** Native memory held by slab regions, whether handed out or free */
+    long reservedBytes;
+    /** Size-class bytes currently handed out from the slabs */
+    long usedBytes;
+    /** Bytes currently handed out from outside the slabs: oversized, or past maxReservedBytes */
+    long unpooledBytes;
+    long pooledAllocations;
+    long unpooledAllocations;
+    int regions;
+    
+    /**
+     * Fraction of reserved slab memory handed out, NaN before the first region
+     */
+    public double getUtilization() {
+        return reservedBytes == 0 ? Double.NaN : (double) usedBytes / reservedBytes;
+    }
+}
@@ -3,69 +3,245 @@ package com.lowlatency.pool;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
 /**
  * High-performance object pool to minimize GC pressure
- * Thread-safe implementation using lock-free data structures
+ * <p>
+ * Idle objects live in a power-of-two number of stripes, each a preallocated array stack behind a
+ * try-lock and padded onto its own cache line. A thread always starts at the same home stripe,
+ * picked from its thread id, so uncontended threads keep reusing their own objects; when the home
+ * stripe is busy, empty or full it moves on to the next. maxSize is split across the stripes'
+ * arrays, so the bound holds exactly, and acquire/release allocate nothing unless the pool is
+ * empty and the factory has to run.
+ * <p>
+ * Each stripe also counts its hits and returns and tracks the low and high water marks of its
+ * idle count. These are plain fields updated under the stripe's lock, on the cache line that the
+ * lock already pulls in. Misses and discards only happen on the slow path, so they go to
+ * LongAdders. stats() collects all of them.
  */
 @Slf4j
 public class ObjectPool<T> {
     
-    private final ConcurrentLinkedQueue<T> pool;
+    private static final VarHandle LOCK;
+    private static final VarHandle COUNT;
+    private static final int SPINS_BEFORE_YIELD = 64;
+    
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            LOCK = lookup.findVarHandle(StripeState.class, "lock", int.class);
+            COUNT = lookup.findVarHandle(StripeState.class, "count", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    private final Stripe[] stripes;
+    private final int mask;
     private final Supplier<T> factory;
     @Getter
     private final int maxSize;
-    private volatile int currentSize;
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder discards = new LongAdder();
     
     public ObjectPool(Supplier<T> factory, int initialSize, int maxSize) {
+        this(factory, initialSize, maxSize, 4 * Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * @param stripes rounded down to a power of two and to at most maxSize; maxSize 0 gives a pool that never retains objects
+     */
+    public ObjectPool(Supplier<T> factory, int initialSize, int maxSize, int stripes) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative: " + maxSize);
+        }
         this.factory = factory;
         this.maxSize = maxSize;
-        this.pool = new ConcurrentLinkedQueue<>();
-        this.currentSize = 0;
+        int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(stripes, maxSize)));
+        this.stripes = new Stripe[stripeCount];
+        this.mask = stripeCount - 1;
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe(maxSize / stripeCount + (i < maxSize % stripeCount ? 1 : 0));
+        }
         
-        log.info("Initializing ObjectPool with initialSize: {}, maxSize: {}", initialSize, maxSize);
+        log.info("Initializing ObjectPool with initialSize: {}, maxSize: {}, stripes: {}",
+                initialSize, maxSize, stripeCount);
         
-        // Pre-populate the pool
-        for (int i = 0; i < initialSize; i++) {
-            pool.offer(factory.get());
-            currentSize++;
+        // Pre-populate round-robin so every home stripe starts with objects
+        int prefill = Math.min(initialSize, maxSize);
+        for (int i = 0; i < prefill; i++) {
+            Stripe stripe = this.stripes[i & mask];
+            stripe.slots[stripe.count] = factory.get();
+            stripe.count++;
+        }
+        for (Stripe stripe : this.stripes) {
+            stripe.lowWaterMark = stripe.count;
+            stripe.highWaterMark = stripe.count;
         }
         
-        log.debug("ObjectPool initialized with {} objects", currentSize);
+        log.debug("ObjectPool initialized with {} objects", prefill);
     }
     
     public T acquire() {
-        T object = pool.poll();
+        int home = homeStripe();
+        T object = tryPop(stripes[home], false);
+        return object != null ? object : acquireSlow(home);
+    }
+    
+    public void release(T object) {
         if (object == null) {
-            log.trace("Pool empty, creating new object");
-            // Pool is empty, create new object
-            object = factory.get();
-        } else {
-            currentSize--;
-            log.trace("Acquired object from pool, remaining: {}", currentSize);
+            return;
+        }
+        // Reset object state if it implements Resetable
+        if (object instanceof Resetable target) {
+            target.reset();
+        }
+        int home = homeStripe();
+        if (!tryPush(stripes[home], object, false)) {
+            releaseSlow(home, object);
         }
-        return object;
     }
     
-    public void release(T object) {
-        if (object != null && currentSize < maxSize) {
-            // Reset object state if it implements Resetable
-            if (object instanceof Resetable resetable) {
-                log.trace("Resetting object before returning to pool");
-                resetable.reset();
+    /**
+     * Home stripe busy or empty: try the others, then wait on any that were only busy, since they
+     * may still hold objects, rather than allocate
+     */
+    private T acquireSlow(int home) {
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 1 - pass; i <= mask; i++) {
+                T object = tryPop(stripes[(home + i) & mask], pass == 1);
+                if (object != null) {
+                    return object;
+                }
+            }
+        }
+        log.trace("Pool empty, creating new object");
+        misses.increment();
+        return factory.get();
+    }
+    
+    private void releaseSlow(int home, T object) {
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 1 - pass; i <= mask; i++) {
+                if (tryPush(stripes[(home + i) & mask], object, pass == 1)) {
+                    return;
+                }
             }
-            pool.offer(object);
-            currentSize++;
-            log.trace("Released object to pool, current size: {}", currentSize);
-        } else if (object != null && currentSize >= maxSize) {
-            log.trace("Pool at max capacity, discarding object");
         }
+        log.trace("Pool at max capacity, discarding object");
+        discards.increment();
     }
     
+    /**
+     * Idle objects across all stripes; exact when no acquire or release is in flight
+     */
     public int size() {
-        return currentSize;
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.countAcquire();
+        }
+        return size;
+    }
+    
+    public int getStripeCount() {
+        return stripes.length;
+    }
+    
+    /**
+     * Counters since creation and water marks since creation or the last resetWaterMarks(). Each
+     * stripe is read under its lock, so the snapshot briefly delays that stripe's acquires and
+     * releases; call it from a monitoring thread, not a hot path.
+     */
+    public ObjectPoolStats stats() {
+        long hits = 0;
+        long returns = 0;
+        int idle = 0;
+        int lowWaterMark = 0;
+        int highWaterMark = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock(true);
+            try {
+                hits += stripe.hits;
+                returns += stripe.returns;
+                idle += stripe.count;
+                lowWaterMark += stripe.lowWaterMark;
+                highWaterMark += stripe.highWaterMark;
+            } finally {
+                stripe.unlock();
+            }
+        }
+        long missCount = misses.sum();
+        long discardCount = discards.sum();
+        return new ObjectPoolStats(hits + missCount, missCount, returns + discardCount, discardCount,
+                idle, maxSize, lowWaterMark, highWaterMark);
+    }
+    
+    /**
+     * Start new water marks from the current idle counts, e.g. once per reporting interval
+     */
+    public void resetWaterMarks() {
+        for (Stripe stripe : stripes) {
+            stripe.lock(true);
+            try {
+                stripe.lowWaterMark = stripe.count;
+                stripe.highWaterMark = stripe.count;
+            } finally {
+                stripe.unlock();
+            }
+        }
+    }
+    
+    @SuppressWarnings("deprecation") // Thread.threadId() needs Java 19
+    private int homeStripe() {
+        return (int) Thread.currentThread().getId() & mask;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private T tryPop(Stripe stripe, boolean wait) {
+        if (stripe.countAcquire() == 0 || !stripe.lock(wait)) {
+            return null;
+        }
+        try {
+            int count = stripe.count;
+            if (count == 0) {
+                return null;
+            }
+            T object = (T) stripe.slots[--count];
+            stripe.slots[count] = null;
+            stripe.setCount(count);
+            stripe.hits++;
+            if (count < stripe.lowWaterMark) {
+                stripe.lowWaterMark = count;
+            }
+            return object;
+        } finally {
+            stripe.unlock();
+        }
+    }
+    
+    private boolean tryPush(Stripe stripe, T object, boolean wait) {
+        if (stripe.countAcquire() == stripe.slots.length || !stripe.lock(wait)) {
+            return false;
+        }
+        try {
+            int count = stripe.count;
+            if (count == stripe.slots.length) {
+                return false;
+            }
+            stripe.slots[count] = object;
+            stripe.setCount(++count);
+            stripe.returns++;
+            if (count > stripe.highWaterMark) {
+                stripe.highWaterMark = count;
+            }
+            return true;
+        } finally {
+            stripe.unlock();
+        }
     }
     
     /**
@@ -74,4 +250,65 @@ public class ObjectPool<T> {
     public interface Resetable {
         void reset();
     }
-}
\ No newline at end of file
+    
+    // Padding before and after the hot fields, as in the Disruptor's Sequence, so two stripes'
+    // locks never share a cache line
+    @SuppressWarnings("unused")
+    private abstract static class LhsPadding {
+        protected long p1, p2, p3, p4, p5, p6, p7;
+    }
+    
+    private abstract static class StripeState extends LhsPadding {
+        protected int lock;
+        // Written under the lock, read without it by size() and the empty/full pre-checks
+        protected int count;
+        // Guarded by the lock, like the slots
+        protected long hits;
+        protected long returns;
+        protected int lowWaterMark;
+        protected int highWaterMark;
+        
+        // VarHandle calls below use this exact receiver type, which keeps them on the fast path
+        
+        /**
+         * Take the lock; without wait, give up at once if another thread holds it. Waiting spins
+         * briefly, then yields in case the holder was descheduled.
+         */
+        final boolean lock(boolean wait) {
+            int spins = 0;
+            while (!LOCK.compareAndSet(this, 0, 1)) {
+                if (!wait) {
+                    return false;
+                }
+                if (++spins < SPINS_BEFORE_YIELD) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            return true;
+        }
+        
+        final void unlock() {
+            LOCK.setRelease(this, 0);
+        }
+        
+        final int countAcquire() {
+            return (int) COUNT.getAcquire(this);
+        }
+        
+        final void setCount(int newCount) {
+            COUNT.setRelease(this, newCount);
+        }
+    }
+    
+    @SuppressWarnings("unused")
+    private static final class Stripe extends StripeState {
+        protected long p9, p10, p11, p12, p13, p14, p15;
+        private final Object[] slots;
+        
+        private Stripe(int capacity) {
+            this.slots = new Object[capacity];
+        }
+    }
+}
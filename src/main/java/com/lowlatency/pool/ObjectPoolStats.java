@@ -0,0 +1,37 @@
+package com.lowlatency.pool;
+
+import lombok.Value;
+
+/**
+ * ObjectPool counters at a point in time; counts are cumulative since creation
+ */
+@Value
+public class ObjectPoolStats {
+    /** acquire() calls, served from the pool or by the factory */
+    long acquires;
+    /** acquire() calls that found the pool empty and ran the factory */
+    long misses;
+    /** Non-null release() calls, kept or discarded */
+    long releases;
+    /** release() calls that found the pool full and dropped the object */
+    long discards;
+    int idle;
+    int maxSize;
+    /**
+     * Fewest idle objects since the water marks were reset, summed per stripe: never above the
+     * true pool-wide minimum, so 0 means the pool ran dry at least somewhere
+     */
+    int lowWaterMark;
+    /**
+     * Most idle objects since the water marks were reset, summed per stripe: never below the true
+     * pool-wide maximum
+     */
+    int highWaterMark;
+    
+    /**
+     * Fraction of acquires served from the pool, NaN before the first acquire
+     */
+    public double getHitRate() {
+        return acquires == 0 ? Double.NaN : (double) (acquires - misses) / acquires;
+    }
+}
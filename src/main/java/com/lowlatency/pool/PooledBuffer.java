@@ -0,0 +1,98 @@
+package com.lowlatency.pool;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reference-counted direct ByteBuffer handed out by a DirectBufferPool. Starts with one reference;
+ * every retain() needs a matching release(), and the last release() returns the memory to the
+ * pool. The handle is reused for the block's next allocation, so neither it nor buffer() may be
+ * touched after the last release.
+ */
+public final class PooledBuffer {
+    
+    private static final VarHandle REF_COUNT;
+    
+    static {
+        try {
+            REF_COUNT = MethodHandles.lookup().findVarHandle(PooledBuffer.class, "refCount", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    private final DirectBufferPool pool;
+    // -1 for buffers allocated outside the slabs, which are left to the GC once released
+    final int sizeClass;
+    // Position in the size class's block table, used to link the shared free list
+    final int index;
+    private final ByteBuffer buffer;
+    // Next free block index + 1 while on a shared free list, 0 at the bottom
+    int nextFree;
+    private volatile int refCount;
+    
+    PooledBuffer(DirectBufferPool pool, int sizeClass, int index, ByteBuffer buffer) {
+        this.pool = pool;
+        this.sizeClass = sizeClass;
+        this.index = index;
+        this.buffer = buffer;
+    }
+    
+    /**
+     * The direct buffer: position 0, limit the requested size, capacity the size class
+     */
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+    
+    public int refCount() {
+        return refCount;
+    }
+    
+    public boolean isPooled() {
+        return sizeClass >= 0;
+    }
+    
+    public PooledBuffer retain() {
+        int count;
+        do {
+            count = refCount;
+            if (count <= 0) {
+                throw new IllegalStateException("Buffer already released");
+            }
+        } while (!REF_COUNT.compareAndSet(this, count, count + 1));
+        return this;
+    }
+    
+    /**
+     * Drop one reference
+     *
+     * @return true if this was the last one and the memory went back to the pool
+     */
+    public boolean release() {
+        int count;
+        do {
+            count = refCount;
+            if (count <= 0) {
+                throw new IllegalStateException("Buffer already released");
+            }
+        } while (!REF_COUNT.compareAndSet(this, count, count - 1));
+        if (count == 1) {
+            pool.free(this);
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Hand out again: one reference, buffer reset to [0, size) in big-endian order
+     */
+    PooledBuffer reset(int size) {
+        buffer.clear().limit(size);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        refCount = 1;
+        return this;
+    }
+}
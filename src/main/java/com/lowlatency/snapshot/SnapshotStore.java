@@ -0,0 +1,301 @@
+package com.lowlatency.snapshot;
+
+import com.lowlatency.core.LowLatencyEventHandler;
+import com.lowlatency.core.SymbolRegistry;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Handler state snapshots on memory-mapped files, one file per handler ("part").
+ * <p>
+ * Each handler copies its state into a reusable buffer on its own thread when it reaches a SNAPSHOT
+ * marker, so every part reflects the same journal position. A background thread writes the buffer to
+ * a temporary file, forces it and atomically renames it; a snapshot is complete once every part exists.
+ * If the previous write for a part is still running, the new snapshot is skipped rather than waited for.
+ * Part 0 also carries the symbol table, so restored symbol IDs match the state.
+ */
+@Slf4j
+public class SnapshotStore implements AutoCloseable {
+    
+    private static final String SUFFIX = ".snap";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int FORMAT_VERSION = 1;
+    private static final int RETAINED_SNAPSHOTS = 2;
+    // version, position, part, parts, state length
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + 3 * Integer.BYTES;
+    
+    private final Path directory;
+    private final int parts;
+    private final SymbolRegistry symbolRegistry;
+    private final ExecutorService writer;
+    private final ByteBuffer[] buffers;
+    private final Future<?>[] pendingWrites;
+    
+    private volatile long lastSnapshotPosition = -1;
+    private volatile long snapshotCount;
+    private volatile long skippedCount;
+    
+    private SnapshotStore(Path directory, int parts, SymbolRegistry symbolRegistry) throws IOException {
+        this.directory = directory;
+        this.parts = parts;
+        this.symbolRegistry = symbolRegistry;
+        this.buffers = new ByteBuffer[parts];
+        this.pendingWrites = new Future<?>[parts];
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Files.createDirectories(directory);
+    }
+    
+    /**
+     * Open (or create) a snapshot directory for the given number of handlers
+     */
+    public static SnapshotStore open(Path directory, int parts, SymbolRegistry symbolRegistry) throws IOException {
+        if (parts < 1) {
+            throw new IllegalArgumentException("parts must be positive: " + parts);
+        }
+        log.info("Opening snapshot store: directory={}, parts={}", directory, parts);
+        return new SnapshotStore(directory, parts, symbolRegistry);
+    }
+    
+    /**
+     * Handler thread only: copy the handler's state and write it in the background.
+     *
+     * @return false if skipped because this part's previous snapshot is still being written
+     */
+    public boolean capture(int part, LowLatencyEventHandler handler) {
+        Future<?> previous = pendingWrites[part];
+        if (previous != null && !previous.isDone()) {
+            skippedCount++;
+            log.warn("Snapshot of part {} skipped, previous write still in progress", part);
+            return false;
+        }
+        int size = handler.snapshotSize();
+        ByteBuffer buffer = buffers[part];
+        if (buffer == null || buffer.capacity() < size) {
+            // Headroom so a slowly growing book does not reallocate on every snapshot
+            buffer = ByteBuffer.allocate(size + size / 4).order(ByteOrder.LITTLE_ENDIAN);
+            buffers[part] = buffer;
+        }
+        buffer.clear();
+        long position = handler.getJournalPosition();
+        handler.writeSnapshot(buffer);
+        buffer.flip();
+        
+        ByteBuffer state = buffer;
+        pendingWrites[part] = writer.submit(() -> write(position, part, state));
+        return true;
+    }
+    
+    private void write(long position, int part, ByteBuffer state) {
+        Path target = directory.resolve(fileName(position, part));
+        Path temp = directory.resolve(fileName(position, part) + TEMP_SUFFIX);
+        try {
+            byte[][] symbols = part == 0 ? encodeSymbols() : new byte[0][];
+            long size = HEADER_BYTES + state.remaining() + Integer.BYTES;
+            for (byte[] symbol : symbols) {
+                size += Integer.BYTES + symbol.length;
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, 
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                out.order(ByteOrder.LITTLE_ENDIAN);
+                out.putInt(FORMAT_VERSION);
+                out.putLong(position);
+                out.putInt(part);
+                out.putInt(parts);
+                out.putInt(state.remaining());
+                out.put(state.duplicate());
+                out.putInt(symbols.length);
+                for (byte[] symbol : symbols) {
+                    out.putInt(symbol.length);
+                    out.put(symbol);
+                }
+                out.force();
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Wrote snapshot part {} at position {} ({} bytes)", part, position, size);
+            
+            if (completePositions().containsKey(position)) {
+                lastSnapshotPosition = position;
+                snapshotCount++;
+                log.info("Snapshot at journal position {} complete", position);
+                prune();
+            }
+        } catch (IOException e) {
+            log.error("Failed to write snapshot part {} at position {}", part, position, e);
+        }
+    }
+    
+    private byte[][] encodeSymbols() {
+        int count = symbolRegistry.size();
+        byte[][] symbols = new byte[count][];
+        for (int id = 0; id < count; id++) {
+            symbols[id] = symbolRegistry.symbol(id).getBytes(StandardCharsets.UTF_8);
+        }
+        return symbols;
+    }
+    
+    /**
+     * Delete all but the newest complete snapshots and any stale temporary files
+     */
+    private void prune() throws IOException {
+        TreeMap<Long, Path[]> complete = completePositions();
+        while (complete.size() > RETAINED_SNAPSHOTS) {
+            for (Path path : complete.pollFirstEntry().getValue()) {
+                Files.deleteIfExists(path);
+            }
+        }
+        long oldestKept = complete.firstKey();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.toList()) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX) && parsePosition(name) < oldestKept) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Latest snapshot with every part present, or null if there is none
+     */
+    public Snapshot loadLatest() throws IOException {
+        TreeMap<Long, Path[]> complete = completePositions();
+        if (complete.isEmpty()) {
+            log.info("No complete snapshot in {}", directory);
+            return null;
+        }
+        long position = complete.lastKey();
+        Path[] files = complete.get(position);
+        ByteBuffer[] states = new ByteBuffer[parts];
+        List<String> symbols = new ArrayList<>();
+        for (int part = 0; part < parts; part++) {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(files[part])).order(ByteOrder.LITTLE_ENDIAN);
+            int version = in.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported snapshot format " + version + " in " + files[part]);
+            }
+            in.getLong();
+            in.getInt();
+            in.getInt();
+            int stateLength = in.getInt();
+            states[part] = in.slice(in.position(), stateLength).order(ByteOrder.LITTLE_ENDIAN);
+            in.position(in.position() + stateLength);
+            int symbolCount = in.getInt();
+            for (int i = 0; i < symbolCount; i++) {
+                byte[] symbol = new byte[in.getInt()];
+                in.get(symbol);
+                symbols.add(new String(symbol, StandardCharsets.UTF_8));
+            }
+        }
+        log.info("Loaded snapshot at journal position {} with {} symbols", position, symbols.size());
+        return new Snapshot(position, List.copyOf(symbols), states);
+    }
+    
+    /**
+     * Positions whose parts are all present for this part count, each with its files by part
+     */
+    private TreeMap<Long, Path[]> completePositions() throws IOException {
+        TreeMap<Long, Path[]> byPosition = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.toList()) {
+                String name = path.getFileName().toString();
+                if (!name.endsWith(SUFFIX)) {
+                    continue;
+                }
+                String[] fields = name.substring(0, name.length() - SUFFIX.length()).split("-");
+                if (fields.length != 3 || Integer.parseInt(fields[2]) != parts) {
+                    continue;
+                }
+                byPosition.computeIfAbsent(Long.parseLong(fields[0]), p -> new Path[parts])[Integer.parseInt(fields[1])] = path;
+            }
+        }
+        byPosition.values().removeIf(paths -> Arrays.asList(paths).contains(null));
+        return byPosition;
+    }
+    
+    private String fileName(long position, int part) {
+        return String.format("%020d-%03d-%03d%s", position, part, parts, SUFFIX);
+    }
+    
+    private static long parsePosition(String name) {
+        return Long.parseLong(name.substring(0, name.indexOf('-')));
+    }
+    
+    /**
+     * Journal position of the newest complete snapshot written by this store, or -1
+     */
+    public long getLastSnapshotPosition() {
+        return lastSnapshotPosition;
+    }
+    
+    public long getSnapshotCount() {
+        return snapshotCount;
+    }
+    
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+    
+    /**
+     * Block until every submitted write has finished; for callers on the handler thread, e.g. tests
+     */
+    void awaitWrites() throws Exception {
+        for (Future<?> pending : pendingWrites) {
+            if (pending != null) {
+                pending.get();
+            }
+        }
+    }
+    
+    /**
+     * Wait for in-flight writes, then stop the writer thread
+     */
+    @Override
+    public void close() {
+        log.info("Closing snapshot store {}", directory);
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Snapshot writes did not finish within 10s");
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writer.shutdownNow();
+        }
+    }
+    
+    /**
+     * A complete snapshot: the journal position it covers, the symbol table and one state buffer per part
+     */
+    @Value
+    public static class Snapshot {
+        long position;
+        List<String> symbols;
+        ByteBuffer[] states;
+    }
+}
@@ -0,0 +1,16 @@
+package com.lowlatency.storage;
+
+/**
+ * Progress of a ChronicleMapStorage bulk import or export, reported once per finished block.
+ * Called from fork-join worker threads, possibly concurrently.
+ */
+@FunctionalInterface
+public interface BulkProgressListener {
+    
+    BulkProgressListener NONE = (entriesDone, entriesTotal) -> { };
+    
+    /**
+     * @param entriesTotal entries in the file for an import; the map's size when an export started
+     */
+    void onProgress(long entriesDone, long entriesTotal);
+}
@@ -0,0 +1,315 @@
+package com.lowlatency.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.bytes.BytesStore;
+import net.openhft.chronicle.hash.Data;
+import net.openhft.chronicle.hash.SegmentLock;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ExternalMapQueryContext;
+import net.openhft.chronicle.map.MapEntry;
+import net.openhft.chronicle.map.MapSegmentContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Segment-parallel bulk export and import of a Chronicle Map through memory-mapped files.
+ * <p>
+ * Entries are copied as the map's own serialized key and value bytes, so nothing is deserialized
+ * on either side. The file holds one block per source segment, so an import runs one task per block.
+ * All values are little-endian:
+ * <pre>
+ * header, padded to a page:
+ *   0  magic int        written last, so an interrupted export is never accepted
+ *   4  version int
+ *   8  entries long
+ *  16  blockCount int
+ *  20  key type name    int length + UTF-8
+ *      value type name  int length + UTF-8
+ *      block table      blockCount x (offset long, length long, entries long)
+ * blocks, back to back: records of keySize int, valueSize int, key bytes, value bytes
+ * </pre>
+ */
+@Slf4j
+final class BulkTransfer {
+    
+    static final int MAGIC = 0x58424D43; // "CMBX"
+    static final int VERSION = 1;
+    private static final int PAGE_SIZE = 4096;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int ENTRIES_OFFSET = 8;
+    private static final int BLOCK_COUNT_OFFSET = 16;
+    private static final int TYPES_OFFSET = 20;
+    private static final int BLOCK_ENTRY_SIZE = 24;
+    private static final int RECORD_HEADER = 8;
+    // Blocks are mapped in windows of at most this size, so a block may exceed 2 GB
+    private static final int WINDOW_SIZE = 64 << 20;
+    
+    private BulkTransfer() {
+    }
+    
+    /**
+     * Write every entry of map to file, one fork-join task per segment. Each segment is sized and
+     * written under its update lock, so its block is a consistent snapshot of that segment.
+     */
+    static <K, V> long export(ChronicleMap<K, V> map, Path file, ForkJoinPool pool,
+                              BulkProgressListener progress) throws IOException {
+        int segments = map.segments();
+        byte[] keyType = map.keyClass().getName().getBytes(StandardCharsets.UTF_8);
+        byte[] valueType = map.valueClass().getName().getBytes(StandardCharsets.UTF_8);
+        int blockTableOffset = TYPES_OFFSET + 4 + keyType.length + 4 + valueType.length;
+        long headerSize = align(blockTableOffset + (long) segments * BLOCK_ENTRY_SIZE, PAGE_SIZE);
+        long total = map.size();
+        log.info("Exporting {} entries from {} segments to {}", total, segments, file);
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            AtomicLong nextBlock = new AtomicLong(headerSize);
+            AtomicLong done = new AtomicLong();
+            long[] blocks = new long[segments * 3];
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(segments);
+            for (int i = 0; i < segments; i++) {
+                int segment = i;
+                tasks.add(pool.submit(() -> {
+                    exportSegment(map, segment, channel, nextBlock, blocks);
+                    progress.onProgress(done.addAndGet(blocks[segment * 3 + 2]), total);
+                }));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+            
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, headerSize);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(VERSION_OFFSET, VERSION);
+            header.putLong(ENTRIES_OFFSET, done.get());
+            header.putInt(BLOCK_COUNT_OFFSET, segments);
+            header.position(TYPES_OFFSET);
+            header.putInt(keyType.length).put(keyType).putInt(valueType.length).put(valueType);
+            for (long field : blocks) {
+                header.putLong(field);
+            }
+            header.force();
+            header.putInt(MAGIC_OFFSET, MAGIC);
+            header.force();
+            log.info("Exported {} entries, {} bytes", done.get(), nextBlock.get());
+            return done.get();
+        }
+    }
+    
+    private static <K, V> void exportSegment(ChronicleMap<K, V> map, int segment, FileChannel channel,
+                                             AtomicLong nextBlock, long[] blocks) {
+        try (MapSegmentContext<K, V, ?> context = map.segmentContext(segment)) {
+            // Segment contexts implement SegmentLock; held until the context closes, across both passes
+            ((SegmentLock) context).updateLock().lock();
+            long[] size = new long[1];
+            context.forEachSegmentEntry(entry ->
+                    size[0] += RECORD_HEADER + entry.key().size() + entry.value().size());
+            long offset = nextBlock.getAndAdd(size[0]);
+            long entries = 0;
+            if (size[0] > 0) {
+                try (BlockWindow window = new BlockWindow(channel, FileChannel.MapMode.READ_WRITE, offset, size[0])) {
+                    long[] count = new long[1];
+                    context.forEachSegmentEntry(entry -> {
+                        window.write(entry.key(), entry.value());
+                        count[0]++;
+                    });
+                    entries = count[0];
+                }
+            }
+            blocks[segment * 3] = offset;
+            blocks[segment * 3 + 1] = size[0];
+            blocks[segment * 3 + 2] = entries;
+        }
+    }
+    
+    /**
+     * Put every record of file into map, one fork-join task per block. Existing keys are overwritten.
+     * inserted, if not null, is called with each key (deserialized) after it is written.
+     */
+    static <K, V> long load(ChronicleMap<K, V> map, Path file, ForkJoinPool pool,
+                            BulkProgressListener progress, Consumer<K> inserted) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer fixed = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    Math.min(channel.size(), PAGE_SIZE)).order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.size() < PAGE_SIZE || fixed.getInt(MAGIC_OFFSET) != MAGIC) {
+                throw new IOException("Not a complete bulk export: " + file);
+            }
+            if (fixed.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IOException("Unsupported bulk export version " + fixed.getInt(VERSION_OFFSET) + ": " + file);
+            }
+            long total = fixed.getLong(ENTRIES_OFFSET);
+            int blockCount = fixed.getInt(BLOCK_COUNT_OFFSET);
+            fixed.position(TYPES_OFFSET);
+            String keyType = readString(fixed);
+            String valueType = readString(fixed);
+            if (!keyType.equals(map.keyClass().getName()) || !valueType.equals(map.valueClass().getName())) {
+                throw new IllegalArgumentException("Export holds " + keyType + " -> " + valueType + ", map is "
+                        + map.keyClass().getName() + " -> " + map.valueClass().getName());
+            }
+            int blockTableOffset = fixed.position();
+            ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, blockTableOffset,
+                    (long) blockCount * BLOCK_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            log.info("Importing {} entries in {} blocks from {}", total, blockCount, file);
+            
+            AtomicLong done = new AtomicLong();
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                long offset = table.getLong(i * BLOCK_ENTRY_SIZE);
+                long length = table.getLong(i * BLOCK_ENTRY_SIZE + 8);
+                long entries = table.getLong(i * BLOCK_ENTRY_SIZE + 16);
+                if (length == 0) {
+                    continue;
+                }
+                tasks.add(pool.submit(() -> {
+                    loadBlock(map, channel, offset, length, inserted);
+                    progress.onProgress(done.addAndGet(entries), total);
+                }));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+            log.info("Imported {} entries", done.get());
+            return done.get();
+        }
+    }
+    
+    private static <K, V> void loadBlock(ChronicleMap<K, V> map, FileChannel channel, long offset, long length,
+                                         Consumer<K> inserted) {
+        try (BlockWindow window = new BlockWindow(channel, FileChannel.MapMode.READ_ONLY, offset, length)) {
+            while (window.hasRemaining()) {
+                int recordOffset = window.nextRecord();
+                BytesStore<?, ?> store = window.store;
+                int keySize = window.buffer.getInt(recordOffset);
+                int valueSize = window.buffer.getInt(recordOffset + 4);
+                long keyOffset = recordOffset + RECORD_HEADER;
+                K key = null;
+                try (ExternalMapQueryContext<K, V, ?> context = map.queryContext(store, keyOffset, keySize)) {
+                    context.updateLock().lock();
+                    Data<V> value = context.wrapValueBytesAsData(store, keyOffset + keySize, valueSize);
+                    MapEntry<K, V> entry = context.entry();
+                    if (entry != null) {
+                        context.replaceValue(entry, value);
+                    } else {
+                        context.insert(context.absentEntry(), value);
+                    }
+                    if (inserted != null) {
+                        key = context.queriedKey().getUsing(null);
+                    }
+                }
+                // Outside the context: the callback may look the key up again
+                if (key != null) {
+                    inserted.accept(key);
+                }
+                window.advance(RECORD_HEADER + keySize + valueSize);
+            }
+        }
+    }
+    
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static long align(long value, int alignment) {
+        return (value + alignment - 1) & -alignment;
+    }
+    
+    /**
+     * Sequential access to one block through mapped windows of up to WINDOW_SIZE, remapped at the
+     * current position whenever the next record would cross the end of the window
+     */
+    private static final class BlockWindow implements AutoCloseable {
+        
+        private final FileChannel channel;
+        private final FileChannel.MapMode mode;
+        private final long end;
+        private long position;
+        private long windowStart;
+        private MappedByteBuffer buffer;
+        private BytesStore<?, ?> store;
+        
+        private BlockWindow(FileChannel channel, FileChannel.MapMode mode, long offset, long length) {
+            this.channel = channel;
+            this.mode = mode;
+            this.position = offset;
+            this.end = offset + length;
+        }
+        
+        boolean hasRemaining() {
+            return position < end;
+        }
+        
+        /**
+         * Offset of the next record within buffer; the whole record is mapped
+         */
+        int nextRecord() {
+            ensure(RECORD_HEADER);
+            int offset = (int) (position - windowStart);
+            ensure(RECORD_HEADER + (long) buffer.getInt(offset) + buffer.getInt(offset + 4));
+            return (int) (position - windowStart);
+        }
+        
+        void advance(long bytes) {
+            position += bytes;
+        }
+        
+        void write(Data<?> key, Data<?> value) {
+            long recordSize = RECORD_HEADER + key.size() + value.size();
+            ensure(recordSize);
+            int offset = (int) (position - windowStart);
+            buffer.putInt(offset, (int) key.size());
+            buffer.putInt(offset + 4, (int) value.size());
+            key.writeTo(store, offset + RECORD_HEADER);
+            value.writeTo(store, offset + RECORD_HEADER + key.size());
+            position += recordSize;
+        }
+        
+        private void ensure(long bytes) {
+            if (buffer != null && position + bytes <= windowStart + buffer.capacity()) {
+                return;
+            }
+            release();
+            windowStart = position;
+            long size = Math.min(Math.max(WINDOW_SIZE, bytes), end - position);
+            try {
+                buffer = channel.map(mode, windowStart, size);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            store = BytesStore.wrap(buffer);
+        }
+        
+        private void release() {
+            if (buffer != null) {
+                if (mode == FileChannel.MapMode.READ_WRITE) {
+                    buffer.force();
+                }
+                store.releaseLast();
+                buffer = null;
+                store = null;
+            }
+        }
+        
+        @Override
+        public void close() {
+            release();
+        }
+    }
+}
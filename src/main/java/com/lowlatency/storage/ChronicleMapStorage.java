@@ -1,40 +1,129 @@
 package com.lowlatency.storage;
 
-import lombok.AccessLevel;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import net.openhft.chronicle.hash.impl.VanillaChronicleHash;
 import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.ChronicleMapBuilder;
+import net.openhft.chronicle.map.ExternalMapQueryContext;
+import net.openhft.chronicle.map.MapEntry;
+import net.openhft.chronicle.map.MapSegmentContext;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 /**
- * Memory-mapped file storage using Chronicle Map for ultra-low latency persistence
+ * Memory-mapped file storage using Chronicle Map for ultra-low latency persistence.
+ * <p>
+ * Writes to a persisted map reach the page cache immediately and survive a process crash. When
+ * they reach disk depends on the StorageDurability mode: left to the OS, msync'd periodically by a
+ * background thread, or msync'd by commitBatch() at the writer's batch boundaries.
+ * <p>
+ * A Chronicle Map cannot grow past the entries it was created with, so grow() migrates online to a
+ * larger map: a background thread copies entries segment by segment under each segment's lock,
+ * while writers keep writing the old map and copy each key they touch into the new one. Once every
+ * segment is copied, a persisted map's new file is renamed over the old one and readers switch to
+ * the new map with a single volatile write. enableAutoGrowth() triggers this from a capacity monitor.
+ * <p>
+ * Chronicle Map only does exact-key lookups. For String keys, enableSortedIndex() keeps an off-heap
+ * sorted copy of the key set next to the map for ordered range and prefix queries.
+ * <p>
+ * exportTo() and importFrom() move the whole map through a memory-mapped file in parallel, one
+ * fork-join task per segment, copying serialized bytes instead of going through put() per key.
+ * count(), sum(), filterKeys() and aggregate() scan every entry the same way, segment-parallel.
  */
 @Slf4j
-@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 public class ChronicleMapStorage<K, V> implements AutoCloseable {
     
-    private final ChronicleMap<K, V> map;
+    // Chronicle Map refuses variable-size keys/values without a size hint
+    private static final double DEFAULT_AVERAGE_CHARS_SIZE = 64;
+    private static final String MIGRATION_SUFFIX = ".migrating";
+    private static final BinaryOperator<long[]> SUM = (left, right) -> {
+        left[0] += right[0];
+        return left;
+    };
+    
+    private final Class<K> keyClass;
+    private final Class<V> valueClass;
     private final File mapFile;
+    private final StorageDurability durability;
+    private final AtomicLong syncCount = new AtomicLong();
+    private final AtomicLong syncTimeNanos = new AtomicLong();
+    // Replaced when a migration starts, completes or fails
+    private volatile Generation<K, V> generation;
+    // Maps replaced by a migration; readers may still be inside them, so they are closed with the storage
+    private final List<ChronicleMap<K, V>> retired = new CopyOnWriteArrayList<>();
+    private volatile int migratedSegments;
+    private volatile long migrationCount;
+    // Null unless enableSortedIndex() was called
+    private volatile SortedKeyIndex sortedIndex;
+    // Only set for PERIODIC_SYNC
+    private ScheduledExecutorService syncScheduler;
+    // Runs migrations and capacity checks; created by the first grow() or enableAutoGrowth()
+    private ScheduledExecutorService capacityExecutor;
+    private CompletableFuture<Void> migration;
+    
+    private ChronicleMapStorage(Class<K> keyClass, Class<V> valueClass, ChronicleMap<K, V> map, long entries,
+                                File mapFile, StorageDurability durability) {
+        this.keyClass = keyClass;
+        this.valueClass = valueClass;
+        this.mapFile = mapFile;
+        this.durability = durability;
+        this.generation = new Generation<>(map, entries, null);
+    }
     
     public static <K, V> ChronicleMapStorage<K, V> create(
             Class<K> keyClass, 
             Class<V> valueClass,
             long entries,
             String fileName) throws IOException {
+        return create(keyClass, valueClass, entries, fileName, StorageDurability.OS_MANAGED, 0);
+    }
+    
+    /**
+     * Persisted map with an explicit durability mode; syncIntervalMillis is only used by PERIODIC_SYNC
+     */
+    public static <K, V> ChronicleMapStorage<K, V> create(
+            Class<K> keyClass, 
+            Class<V> valueClass,
+            long entries,
+            String fileName,
+            StorageDurability durability,
+            long syncIntervalMillis) throws IOException {
         
-        log.info("Creating persistent ChronicleMap storage: file={}, entries={}, keyClass={}, valueClass={}", 
-                fileName, entries, keyClass.getSimpleName(), valueClass.getSimpleName());
+        if (durability == StorageDurability.PERIODIC_SYNC && syncIntervalMillis < 1) {
+            throw new IllegalArgumentException("syncIntervalMillis must be positive: " + syncIntervalMillis);
+        }
+        log.info("Creating persistent ChronicleMap storage: file={}, entries={}, keyClass={}, valueClass={}, " 
+                + "durability={}", fileName, entries, keyClass.getSimpleName(), valueClass.getSimpleName(), durability);
         
         File mapFile = new File(fileName);
-        ChronicleMap<K, V> map = ChronicleMap
-                .of(keyClass, valueClass)
-                .entries(entries)
-                .createPersistedTo(mapFile);
+        ChronicleMap<K, V> map = builder(keyClass, valueClass, entries).createPersistedTo(mapFile);
+        ChronicleMapStorage<K, V> storage = new ChronicleMapStorage<>(keyClass, valueClass, map, entries,
+                mapFile, durability);
+        if (durability == StorageDurability.PERIODIC_SYNC) {
+            storage.startPeriodicSync(syncIntervalMillis);
+        }
         
         log.debug("ChronicleMap storage created successfully: {}", fileName);
-        return new ChronicleMapStorage<>(map, mapFile);
+        return storage;
     }
     
     public static <K, V> ChronicleMapStorage<K, V> createInMemory(
@@ -45,69 +134,599 @@ public class ChronicleMapStorage<K, V> implements AutoCloseable {
         log.info("Creating in-memory ChronicleMap storage: entries={}, keyClass={}, valueClass={}", 
                 entries, keyClass.getSimpleName(), valueClass.getSimpleName());
         
-        ChronicleMap<K, V> map = ChronicleMap
-                .of(keyClass, valueClass)
-                .entries(entries)
-                .create();
+        ChronicleMap<K, V> map = builder(keyClass, valueClass, entries).create();
         
         log.debug("In-memory ChronicleMap storage created successfully");
-        return new ChronicleMapStorage<>(map, null);
+        return new ChronicleMapStorage<>(keyClass, valueClass, map, entries, null, StorageDurability.OS_MANAGED);
+    }
+    
+    /**
+     * Sizes entries from the key/value types: Long, Integer and Chronicle Values interfaces
+     * are constant-size natively, FixedSizeRecord types are sized from a default instance,
+     * and only CharSequence falls back to an average-size hint.
+     */
+    private static <K, V> ChronicleMapBuilder<K, V> builder(Class<K> keyClass, Class<V> valueClass, long entries) {
+        Class<K> keyType = boxed(keyClass);
+        Class<V> valueType = boxed(valueClass);
+        ChronicleMapBuilder<K, V> builder = ChronicleMap.of(keyType, valueType).entries(entries);
+        if (CharSequence.class.isAssignableFrom(keyType)) {
+            builder.averageKeySize(DEFAULT_AVERAGE_CHARS_SIZE);
+        } else if (FixedSizeRecord.class.isAssignableFrom(keyType)) {
+            builder.constantKeySizeBySample(sample(keyType));
+        }
+        if (CharSequence.class.isAssignableFrom(valueType)) {
+            builder.averageValueSize(DEFAULT_AVERAGE_CHARS_SIZE);
+        } else if (FixedSizeRecord.class.isAssignableFrom(valueType)) {
+            builder.constantValueSizeBySample(sample(valueType));
+        }
+        return builder;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> Class<T> boxed(Class<T> type) {
+        if (type == long.class) {
+            return (Class<T>) Long.class;
+        }
+        if (type == int.class) {
+            return (Class<T>) Integer.class;
+        }
+        return type;
+    }
+    
+    private static <T> T sample(Class<T> type) {
+        try {
+            return type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(
+                    "FixedSizeRecord needs a public no-arg constructor: " + type.getName(), e);
+        }
     }
     
     public V get(K key) {
         log.trace("Getting value for key: {}", key);
-        return map.get(key);
+        return generation.map.get(key);
+    }
+    
+    /**
+     * Reads the value into a caller-owned instance instead of allocating one.
+     * Returns using (or the value read into it), or null if the key is absent.
+     */
+    public V getUsing(K key, V using) {
+        log.trace("Getting value for key into reusable instance: {}", key);
+        return generation.map.getUsing(key, using);
+    }
+    
+    /**
+     * Like getUsing, but inserts the type's default value first if the key is absent.
+     * For a native Chronicle Values instance the result is a live view of the entry; writes through
+     * that view bypass a running migration, so use update() for those.
+     */
+    public V acquireUsing(K key, V using) {
+        log.trace("Acquiring value for key: {}", key);
+        Generation<K, V> written = generation;
+        V value = written.map.acquireUsing(key, using);
+        afterWrite(written, key);
+        reindex(key);
+        return value;
+    }
+    
+    /**
+     * Read-modify-write under the entry's update lock with a single hash lookup.
+     * The current value is read into using, passed to updater and written back in place.
+     *
+     * @return false, without calling updater, if the key is absent
+     */
+    public boolean update(K key, V using, Consumer<? super V> updater) {
+        log.trace("Updating value in place for key: {}", key);
+        Generation<K, V> written = generation;
+        try (ExternalMapQueryContext<K, V, ?> context = written.map.queryContext(key)) {
+            context.updateLock().lock();
+            MapEntry<K, V> entry = context.entry();
+            if (entry == null) {
+                return false;
+            }
+            V value = entry.value().getUsing(using);
+            updater.accept(value);
+            context.replaceValue(entry, context.wrapValueAsData(value));
+        }
+        afterWrite(written, key);
+        return true;
     }
     
     public V put(K key, V value) {
         log.trace("Putting key-value pair: {} -> {}", key, value);
-        return map.put(key, value);
+        Generation<K, V> written = generation;
+        V previous = written.map.put(key, value);
+        afterWrite(written, key);
+        if (previous == null) {
+            reindex(key);
+        }
+        return previous;
     }
     
     public V remove(K key) {
         log.trace("Removing key: {}", key);
-        return map.remove(key);
+        Generation<K, V> written = generation;
+        V previous = written.map.remove(key);
+        afterWrite(written, key);
+        if (previous != null) {
+            reindex(key);
+        }
+        return previous;
     }
     
     public boolean containsKey(K key) {
-        boolean contains = map.containsKey(key);
+        boolean contains = generation.map.containsKey(key);
         log.trace("Contains key {}: {}", key, contains);
         return contains;
     }
     
     public long size() {
-        long currentSize = map.size();
+        long currentSize = generation.map.size();
         log.trace("Current map size: {}", currentSize);
         return currentSize;
     }
     
     public void clear() {
         log.info("Clearing ChronicleMap storage");
-        map.clear();
+        SortedKeyIndex index = sortedIndex;
+        if (index != null) {
+            index.clear(this::clearMaps);
+        } else {
+            clearMaps();
+        }
         log.debug("ChronicleMap storage cleared");
     }
     
+    private void clearMaps() {
+        Generation<K, V> cleared;
+        do {
+            cleared = generation;
+            // Old map first: the copier holds its segment lock while writing the new one
+            cleared.map.clear();
+            if (cleared.next != null) {
+                cleared.next.map.clear();
+            }
+        } while (generation != cleared);
+    }
+    
+    public long exportTo(String fileName) throws IOException {
+        return exportTo(fileName, ForkJoinPool.commonPool(), BulkProgressListener.NONE);
+    }
+    
+    /**
+     * Write all entries to a compact binary file, one pool task per segment. Entries are copied as
+     * serialized bytes; each segment is blocked for writers only while its own block is written.
+     *
+     * @return number of entries exported
+     */
+    public long exportTo(String fileName, ForkJoinPool pool, BulkProgressListener progress) throws IOException {
+        return BulkTransfer.export(generation.map, Path.of(fileName), pool, progress);
+    }
+    
+    public long importFrom(String fileName) throws IOException {
+        return importFrom(fileName, ForkJoinPool.commonPool(), BulkProgressListener.NONE);
+    }
+    
+    /**
+     * Put every entry of a file written by exportTo(), one pool task per exported segment, overwriting
+     * existing keys. Holds the storage monitor, so no migration can start until the import is done.
+     *
+     * @return number of entries imported
+     * @throws IllegalArgumentException if the file was exported from a map of other key or value types
+     * @throws IllegalStateException if a migration is running
+     */
+    public synchronized long importFrom(String fileName, ForkJoinPool pool, BulkProgressListener progress)
+            throws IOException {
+        if (migration != null && !migration.isDone()) {
+            throw new IllegalStateException("Cannot import while the storage is migrating");
+        }
+        SortedKeyIndex index = sortedIndex;
+        long imported = BulkTransfer.load(generation.map, Path.of(fileName), pool, progress,
+                index == null ? null : key -> index.reconcile(key.toString()));
+        commitBatch();
+        return imported;
+    }
+    
+    /**
+     * Number of entries matching filter, counted segment-parallel on the common fork-join pool
+     */
+    public long count(Predicate<? super StorageEntry<K, V>> filter) {
+        return aggregate(ForkJoinPool.commonPool(), () -> new long[1], (total, entry) -> {
+            if (filter.test(entry)) {
+                total[0]++;
+            }
+        }, SUM)[0];
+    }
+    
+    /**
+     * Sum of mapper over all entries, segment-parallel on the common fork-join pool
+     */
+    public long sum(ToLongFunction<? super StorageEntry<K, V>> mapper) {
+        return aggregate(ForkJoinPool.commonPool(), () -> new long[1],
+                (total, entry) -> total[0] += mapper.applyAsLong(entry), SUM)[0];
+    }
+    
+    /**
+     * Keys of the entries matching filter, segment-parallel on the common fork-join pool
+     */
+    public List<K> filterKeys(Predicate<? super StorageEntry<K, V>> filter) {
+        return SegmentScan.filterKeys(generation.map, ForkJoinPool.commonPool(), filter);
+    }
+    
+    /**
+     * Mutable reduction over all entries, like Stream.collect: one container from supplier per
+     * segment, filled by accumulator on a pool task, then merged by combiner in segment order.
+     * A segment's writers wait while it is scanned, so keep accumulator cheap. Weakly consistent:
+     * each segment is a snapshot, taken at a different moment.
+     */
+    public <A> A aggregate(ForkJoinPool pool, Supplier<A> supplier,
+                           BiConsumer<A, ? super StorageEntry<K, V>> accumulator, BinaryOperator<A> combiner) {
+        return SegmentScan.aggregate(generation.map, pool, supplier, accumulator, combiner);
+    }
+    
+    /**
+     * Start maintaining a sorted off-heap index of the keys, built from the current contents.
+     * Only for CharSequence keys. Inserts and removes then also update the index under its lock.
+     */
+    public synchronized void enableSortedIndex() {
+        if (!CharSequence.class.isAssignableFrom(keyClass)) {
+            throw new IllegalStateException("Sorted index needs CharSequence keys, got " + keyClass.getSimpleName());
+        }
+        if (sortedIndex != null) {
+            return;
+        }
+        log.info("Building sorted key index over {} entries", size());
+        SortedKeyIndex index = new SortedKeyIndex(this::containsKeyInMap);
+        // Writes from here on reconcile their key; reconciling every existing key covers the rest
+        sortedIndex = index;
+        for (K key : generation.map.keySet()) {
+            index.reconcile(key.toString());
+        }
+        log.debug("Sorted key index built: keys={}, offHeapBytes={}", index.size(), index.usedBytes());
+    }
+    
+    /**
+     * Visit keys in [fromInclusive, toExclusive) in key order until visitor returns false; a null
+     * bound is open. Seeks in O(log n) and visits outside the index lock.
+     *
+     * @return number of keys visited
+     * @throws IllegalStateException if enableSortedIndex() was not called
+     */
+    public long forEachKeyInRange(String fromInclusive, String toExclusive, Predicate<String> visitor) {
+        return sortedIndex().forEachInRange(fromInclusive, toExclusive, visitor);
+    }
+    
+    /**
+     * Visit every key starting with prefix, in key order, until visitor returns false
+     *
+     * @return number of keys visited
+     * @throws IllegalStateException if enableSortedIndex() was not called
+     */
+    public long forEachKeyWithPrefix(String prefix, Predicate<String> visitor) {
+        return sortedIndex().forEachWithPrefix(prefix, visitor);
+    }
+    
+    public boolean hasSortedIndex() {
+        return sortedIndex != null;
+    }
+    
+    /**
+     * Direct memory used by the sorted index's nodes, 0 without an index
+     */
+    public long getSortedIndexBytes() {
+        SortedKeyIndex index = sortedIndex;
+        return index == null ? 0 : index.usedBytes();
+    }
+    
+    private SortedKeyIndex sortedIndex() {
+        SortedKeyIndex index = sortedIndex;
+        if (index == null) {
+            throw new IllegalStateException("Sorted index is not enabled");
+        }
+        return index;
+    }
+    
+    /**
+     * After a write that may have inserted or removed key. The index field is read after the map
+     * write, so a write that sees no index happened before enableSortedIndex() scanned the map.
+     */
+    private void reindex(K key) {
+        SortedKeyIndex index = sortedIndex;
+        if (index != null) {
+            index.reconcile(key.toString());
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private boolean containsKeyInMap(String key) {
+        return generation.map.containsKey((K) key);
+    }
+    
+    /**
+     * The map currently serving reads. A migration replaces it, so do not hold on to it.
+     */
     public ChronicleMap<K, V> getMap() {
-        return map;
+        return generation.map;
+    }
+    
+    /**
+     * Entries the current map was created with. For a reopened file this is the entries passed to create().
+     */
+    public long getEntries() {
+        return generation.entries;
+    }
+    
+    public boolean isMigrating() {
+        return generation.next != null;
+    }
+    
+    /**
+     * Segments copied so far by the running migration, or by the last one
+     */
+    public int getMigratedSegments() {
+        return migratedSegments;
+    }
+    
+    public long getMigrationCount() {
+        return migrationCount;
+    }
+    
+    public StorageDurability getDurability() {
+        return durability;
+    }
+    
+    /**
+     * msyncs performed by forceFlush, commitBatch and the periodic sync thread
+     */
+    public long getSyncCount() {
+        return syncCount.get();
+    }
+    
+    /**
+     * Total time spent in msync, for costing a durability mode against put latency
+     */
+    public long getSyncTimeNanos() {
+        return syncTimeNanos.get();
     }
     
     @Override
     public void close() {
         log.info("Closing ChronicleMap storage");
-        if (map != null) {
-            map.close();
-            log.debug("ChronicleMap storage closed successfully");
+        if (syncScheduler != null) {
+            syncScheduler.shutdownNow();
+        }
+        if (capacityExecutor != null) {
+            capacityExecutor.shutdownNow();
+            try {
+                // Let an interrupted migration roll back before its maps are closed
+                capacityExecutor.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Generation<K, V> current = generation;
+        if (current.map != null) {
+            if (durability != StorageDurability.OS_MANAGED) {
+                // Writes after the last sync or commit would otherwise be left to the OS
+                forceFlush();
+            }
+            current.map.close();
+            for (ChronicleMap<K, V> map : retired) {
+                map.close();
+            }
+            log.debug("ChronicleMap storage closed successfully: syncs={}, migrations={}",
+                    syncCount.get(), migrationCount);
+        }
+    }
+    
+    /**
+     * End of a writer's batch: msyncs under GROUP_COMMIT, otherwise does nothing
+     */
+    public void commitBatch() {
+        if (durability == StorageDurability.GROUP_COMMIT) {
+            forceFlush();
         }
     }
     
+    /**
+     * msync the whole map file now, whatever the durability mode. Does nothing for an in-memory map.
+     * During a migration both files are synced, since either may be the one found after a crash.
+     */
     public void forceFlush() {
-        log.debug("Force flushing ChronicleMap storage");
-        // Chronicle Map handles persistence automatically
-        // This method is for explicit flush if needed
-        if (mapFile != null) {
-            log.trace("Forcing OS flush for memory-mapped file: {}", mapFile.getName());
-            // Force OS to flush to disk
-            System.gc(); // Minimal GC hint for memory-mapped files
+        if (mapFile == null) {
+            return;
+        }
+        log.trace("Syncing memory-mapped file: {}", mapFile.getName());
+        long start = System.nanoTime();
+        Generation<K, V> current = generation;
+        msync(current.map);
+        if (current.next != null) {
+            msync(current.next.map);
+        }
+        syncTimeNanos.addAndGet(System.nanoTime() - start);
+        syncCount.incrementAndGet();
+    }
+    
+    private static void msync(ChronicleMap<?, ?> map) {
+        ((VanillaChronicleHash<?, ?, ?, ?>) map).msync();
+    }
+    
+    private void startPeriodicSync(long syncIntervalMillis) {
+        syncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chronicle-map-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncScheduler.scheduleAtFixedRate(() -> {
+            try {
+                forceFlush();
+            } catch (RuntimeException e) {
+                // Keep the schedule alive; a later sync covers the same pages
+                log.error("Periodic sync failed for {}", mapFile.getName(), e);
+            }
+        }, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Check capacity every checkIntervalMillis and grow by growthFactor once size reaches
+     * threshold * entries, or once Chronicle Map has no extra segment tiers left to allocate
+     */
+    public synchronized void enableAutoGrowth(double threshold, double growthFactor, long checkIntervalMillis) {
+        if (threshold <= 0 || threshold > 1 || growthFactor <= 1 || checkIntervalMillis < 1) {
+            throw new IllegalArgumentException("Invalid auto-growth settings: threshold=" + threshold
+                    + ", growthFactor=" + growthFactor + ", checkIntervalMillis=" + checkIntervalMillis);
+        }
+        log.info("Enabling storage auto-growth: threshold={}, growthFactor={}, checkIntervalMillis={}",
+                threshold, growthFactor, checkIntervalMillis);
+        capacityExecutor().scheduleWithFixedDelay(() -> {
+            Generation<K, V> current = generation;
+            long size = current.map.size();
+            if (current.next == null
+                    && (size >= threshold * current.entries || current.map.remainingAutoResizes() == 0)) {
+                long entries = (long) (Math.max(size, current.entries) * growthFactor);
+                log.info("Storage at {} of {} entries, growing to {}", size, current.entries, entries);
+                grow(entries);
+            }
+        }, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Migrate to a new map sized for newEntries on the capacity thread. The storage keeps serving
+     * reads and writes throughout. If a migration is already running, returns that one instead.
+     */
+    public synchronized CompletableFuture<Void> grow(long newEntries) {
+        if (migration != null && !migration.isDone()) {
+            return migration;
+        }
+        migration = CompletableFuture.runAsync(() -> {
+            try {
+                migrate(newEntries);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, capacityExecutor());
+        return migration;
+    }
+    
+    private synchronized ScheduledExecutorService capacityExecutor() {
+        if (capacityExecutor == null) {
+            capacityExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "chronicle-map-capacity");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return capacityExecutor;
+    }
+    
+    private void migrate(long newEntries) throws IOException {
+        Generation<K, V> source = generation;
+        log.info("Migrating ChronicleMap storage: entries {} -> {}, size={}", source.entries, newEntries,
+                source.map.size());
+        long start = System.nanoTime();
+        File targetFile = mapFile == null ? null : new File(mapFile.getPath() + MIGRATION_SUFFIX);
+        ChronicleMap<K, V> target;
+        if (targetFile != null) {
+            // Left behind by a migration that crashed before its rename
+            Files.deleteIfExists(targetFile.toPath());
+            target = builder(keyClass, valueClass, newEntries).createPersistedTo(targetFile);
+        } else {
+            target = builder(keyClass, valueClass, newEntries).create();
+        }
+        Generation<K, V> migrating = new Generation<>(source.map, source.entries,
+                new Generation<>(target, newEntries, null));
+        // From here on every write also copies its key into the target
+        generation = migrating;
+        migratedSegments = 0;
+        try {
+            int segments = source.map.segments();
+            for (int i = 0; i < segments; i++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IllegalStateException("Migration interrupted");
+                }
+                // Writers to this segment wait until it is copied, so none of their keys are missed
+                try (MapSegmentContext<K, V, ?> context = source.map.segmentContext(i)) {
+                    context.forEachSegmentEntry(entry -> target.put(entry.key().get(), entry.value().get()));
+                }
+                migratedSegments = i + 1;
+            }
+            if (targetFile != null) {
+                // Complete on disk before it takes the live name, so a crash never leaves half a map there
+                msync(target);
+                Files.move(targetFile.toPath(), mapFile.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Every write also reached the source, so it is still complete
+            generation = source;
+            target.close();
+            if (targetFile != null) {
+                Files.deleteIfExists(targetFile.toPath());
+            }
+            log.error("Migration to {} entries failed, staying on the current map", newEntries, e);
+            throw e;
+        }
+        generation = migrating.next;
+        retired.add(source.map);
+        migrationCount++;
+        log.info("Migrated {} entries to a map of {} entries in {} ms", target.size(), newEntries,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+    
+    /**
+     * After a write to written.map: if a migration started or finished meanwhile, copy the key's
+     * current state onward. Costs one volatile read when no migration is involved.
+     */
+    private void afterWrite(Generation<K, V> written, K key) {
+        if (written.next != null || generation != written) {
+            propagate(written.map, key);
+        }
+    }
+    
+    /**
+     * Copy key's state in source to the map that follows it, under source's entry lock so that
+     * concurrent copies of the same key, and the segment copier, apply in source order
+     */
+    private void propagate(ChronicleMap<K, V> source, K key) {
+        Generation<K, V> current = generation;
+        ChronicleMap<K, V> target;
+        if (current.map != source) {
+            // Source was retired while the write was in flight
+            target = current.map;
+        } else if (current.next != null) {
+            target = current.next.map;
+        } else {
+            // A failed migration rolled back to source
+            return;
+        }
+        try (ExternalMapQueryContext<K, V, ?> context = source.queryContext(key)) {
+            context.updateLock().lock();
+            MapEntry<K, V> entry = context.entry();
+            if (entry == null) {
+                target.remove(key);
+            } else {
+                target.put(key, entry.value().get());
+            }
+        }
+        if (target == current.map) {
+            // The live map may itself be migrating by now
+            propagate(target, key);
+        }
+    }
+    
+    /**
+     * The live map, plus the larger map it is being copied into while a migration runs
+     */
+    private static final class Generation<K, V> {
+        private final ChronicleMap<K, V> map;
+        private final long entries;
+        private final Generation<K, V> next;
+        
+        private Generation(ChronicleMap<K, V> map, long entries, Generation<K, V> next) {
+            this.map = map;
+            this.entries = entries;
+            this.next = next;
         }
     }
-}
\ No newline at end of file
+}
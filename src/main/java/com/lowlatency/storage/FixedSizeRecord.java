@@ -0,0 +1,11 @@
+package com.lowlatency.storage;
+
+import net.openhft.chronicle.bytes.BytesMarshallable;
+
+/**
+ * Flyweight value written as a fixed-width binary layout rather than through Java or
+ * String serialization. writeMarshallable must emit the same number of bytes for every
+ * instance; ChronicleMapStorage sizes map entries from a default-constructed sample.
+ */
+public interface FixedSizeRecord extends BytesMarshallable {
+}
@@ -0,0 +1,167 @@
+package com.lowlatency.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of deserialized values in front of a slower loader, usually a
+ * ChronicleMapStorage. Eviction is CLOCK: a hit only sets a reference bit, and a miss sweeps the
+ * hand past referenced entries (clearing their bits) to the first unreferenced one.
+ * <p>
+ * Hits are lock-free. Misses load outside any lock, then insert under the clock lock. Writers must
+ * call invalidate(key) after the backing store holds the new value. A load that overlaps an
+ * invalidation of its key is discarded, so a stale value never stays cached.
+ */
+@Slf4j
+public class NearCache<K, V> {
+    
+    private static final int INVALIDATION_STRIPES = 64;
+    
+    private final int capacity;
+    private final Function<? super K, ? extends V> loader;
+    private final ConcurrentHashMap<K, Node<K, V>> index;
+    private final Node<K, V>[] slots;
+    // Bumped per key stripe by invalidate(); a load that sees it change drops its result
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private int hand;
+    
+    @SuppressWarnings("unchecked")
+    public NearCache(int capacity, Function<? super K, ? extends V> loader) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.loader = loader;
+        this.index = new ConcurrentHashMap<>(capacity * 4 / 3 + 1);
+        this.slots = new Node[capacity];
+        log.info("Created near-cache: capacity={}", capacity);
+    }
+    
+    /**
+     * Cached value, or the loader's value (cached if not null)
+     */
+    public V get(K key) {
+        Node<K, V> node = index.get(key);
+        if (node != null) {
+            if (!node.referenced) {
+                node.referenced = true;
+            }
+            hits.increment();
+            return node.value;
+        }
+        misses.increment();
+        int stripe = stripe(key);
+        long invalidation = invalidations.get(stripe);
+        V value = loader.apply(key);
+        if (value == null) {
+            return null;
+        }
+        Node<K, V> inserted = insert(key, value);
+        if (inserted != null && invalidations.get(stripe) != invalidation) {
+            // A write raced with the load, so the loaded value may be older than the store
+            remove(key, inserted);
+        }
+        return value;
+    }
+    
+    /**
+     * Drop the cached value; call after the backing store has the new value
+     */
+    public void invalidate(K key) {
+        invalidations.incrementAndGet(stripe(key));
+        Node<K, V> node = index.remove(key);
+        if (node != null) {
+            node.removed = true;
+        }
+    }
+    
+    public void invalidateAll() {
+        synchronized (slots) {
+            for (int i = 0; i < INVALIDATION_STRIPES; i++) {
+                invalidations.incrementAndGet(i);
+            }
+            index.clear();
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = null;
+            }
+        }
+    }
+    
+    private Node<K, V> insert(K key, V value) {
+        synchronized (slots) {
+            if (index.containsKey(key)) {
+                // Another thread loaded it first
+                return null;
+            }
+            int slot = advanceHand();
+            Node<K, V> victim = slots[slot];
+            if (victim != null && !victim.removed) {
+                index.remove(victim.key, victim);
+                evictions.increment();
+            }
+            Node<K, V> node = new Node<>(key, value);
+            slots[slot] = node;
+            index.put(key, node);
+            return node;
+        }
+    }
+    
+    /**
+     * Sweep to the first empty, invalidated or unreferenced slot, clearing reference bits on the way.
+     * Terminates within two revolutions.
+     */
+    private int advanceHand() {
+        while (true) {
+            int slot = hand;
+            hand = slot + 1 == capacity ? 0 : slot + 1;
+            Node<K, V> node = slots[slot];
+            if (node == null || node.removed || !node.referenced) {
+                return slot;
+            }
+            node.referenced = false;
+        }
+    }
+    
+    private void remove(K key, Node<K, V> node) {
+        if (index.remove(key, node)) {
+            node.removed = true;
+        }
+    }
+    
+    private static int stripe(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (INVALIDATION_STRIPES - 1);
+    }
+    
+    public int size() {
+        return index.size();
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    public NearCacheStats stats() {
+        return new NearCacheStats(hits.sum(), misses.sum(), evictions.sum(), index.size(), capacity);
+    }
+    
+    private static final class Node<K, V> {
+        private final K key;
+        private final V value;
+        // Benign races: a lost update only changes which entry CLOCK evicts
+        private boolean referenced;
+        private volatile boolean removed;
+        
+        private Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
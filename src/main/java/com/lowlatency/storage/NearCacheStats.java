@@ -0,0 +1,23 @@
+package com.lowlatency.storage;
+
+import lombok.Value;
+
+/**
+ * NearCache counters at a point in time; counts are cumulative since creation
+ */
+@Value
+public class NearCacheStats {
+    long hits;
+    long misses;
+    long evictions;
+    int size;
+    int capacity;
+    
+    /**
+     * Fraction of lookups served from the cache, NaN before the first lookup
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? Double.NaN : (double) hits / lookups;
+    }
+}
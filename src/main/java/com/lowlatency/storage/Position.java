@@ -0,0 +1,41 @@
+package com.lowlatency.storage;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import net.openhft.chronicle.bytes.BytesIn;
+import net.openhft.chronicle.bytes.BytesOut;
+
+/**
+ * Per-symbol position, stored as a 36-byte fixed-width record.
+ * Reusable: callers may keep one instance per thread and overwrite it.
+ */
+@Data
+@NoArgsConstructor
+public class Position implements FixedSizeRecord {
+    
+    public static final int SIZE = Integer.BYTES + 4 * Long.BYTES;
+    
+    private int symbolId;
+    private long quantity;
+    private double averagePrice;
+    private double realizedPnl;
+    private long timestamp;
+    
+    @Override
+    public void readMarshallable(BytesIn<?> bytes) {
+        symbolId = bytes.readInt();
+        quantity = bytes.readLong();
+        averagePrice = bytes.readDouble();
+        realizedPnl = bytes.readDouble();
+        timestamp = bytes.readLong();
+    }
+    
+    @Override
+    public void writeMarshallable(BytesOut<?> bytes) {
+        bytes.writeInt(symbolId);
+        bytes.writeLong(quantity);
+        bytes.writeDouble(averagePrice);
+        bytes.writeDouble(realizedPnl);
+        bytes.writeLong(timestamp);
+    }
+}
@@ -0,0 +1,125 @@
+package com.lowlatency.storage;
+
+import net.openhft.chronicle.bytes.RandomDataInput;
+import net.openhft.chronicle.map.ChronicleMap;
+import net.openhft.chronicle.map.MapEntry;
+import net.openhft.chronicle.map.MapSegmentContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Mutable reduction over every entry of a Chronicle Map, one fork-join task per segment.
+ * <p>
+ * Each task walks its segment with forEachSegmentEntry, which holds that segment's update lock
+ * for the walk: readers are never blocked, and writers only wait when they hit the segment being
+ * scanned, for as long as that one segment takes. The result is weakly consistent: every segment
+ * is a snapshot, but segments are scanned at different moments.
+ */
+final class SegmentScan {
+    
+    private SegmentScan() {
+    }
+    
+    static <K, V, A> A aggregate(ChronicleMap<K, V> map, ForkJoinPool pool, Supplier<A> supplier,
+                                 BiConsumer<A, ? super StorageEntry<K, V>> accumulator, BinaryOperator<A> combiner) {
+        int segments = map.segments();
+        List<ForkJoinTask<A>> tasks = new ArrayList<>(segments);
+        for (int i = 0; i < segments; i++) {
+            int segment = i;
+            tasks.add(pool.submit(() -> scanSegment(map, segment, supplier.get(), accumulator)));
+        }
+        A result = supplier.get();
+        // Joined in segment order, so a non-commutative combiner still gives a deterministic result
+        for (ForkJoinTask<A> task : tasks) {
+            result = combiner.apply(result, task.join());
+        }
+        return result;
+    }
+    
+    /**
+     * Keys of the entries matching filter, copied so they stay valid after the scan
+     */
+    static <K, V> List<K> filterKeys(ChronicleMap<K, V> map, ForkJoinPool pool,
+                                     Predicate<? super StorageEntry<K, V>> filter) {
+        return aggregate(map, pool, ArrayList::new, (List<K> keys, StorageEntry<K, V> entry) -> {
+            if (filter.test(entry)) {
+                keys.add(((ScanEntry<K, V>) entry).entry.key().getUsing(null));
+            }
+        }, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+    
+    private static <K, V, A> A scanSegment(ChronicleMap<K, V> map, int segment, A container,
+                                           BiConsumer<A, ? super StorageEntry<K, V>> accumulator) {
+        ScanEntry<K, V> view = new ScanEntry<>();
+        try (MapSegmentContext<K, V, ?> context = map.segmentContext(segment)) {
+            context.forEachSegmentEntry(entry -> {
+                view.entry = entry;
+                accumulator.accept(container, view);
+            });
+        }
+        return container;
+    }
+    
+    /**
+     * Reusable view over the current MapEntry; deserialized key and value instances are kept for
+     * the next entry's getUsing
+     */
+    private static final class ScanEntry<K, V> implements StorageEntry<K, V> {
+        
+        private MapEntry<K, V> entry;
+        private K key;
+        private V value;
+        
+        @Override
+        public K key() {
+            key = entry.key().getUsing(key);
+            return key;
+        }
+        
+        @Override
+        public V value() {
+            value = entry.value().getUsing(value);
+            return value;
+        }
+        
+        @Override
+        public RandomDataInput keyBytes() {
+            return entry.key().bytes();
+        }
+        
+        @Override
+        public long keyOffset() {
+            return entry.key().offset();
+        }
+        
+        @Override
+        public long keySize() {
+            return entry.key().size();
+        }
+        
+        @Override
+        public RandomDataInput valueBytes() {
+            return entry.value().bytes();
+        }
+        
+        @Override
+        public long valueOffset() {
+            return entry.value().offset();
+        }
+        
+        @Override
+        public long valueSize() {
+            return entry.value().size();
+        }
+    }
+}
@@ -0,0 +1,374 @@
+package com.lowlatency.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Off-heap skip list of string keys in UTF-8 byte order (which is code point order), kept next to a
+ * hash map so that range and prefix queries seek in O(log n) instead of scanning every entry.
+ * <p>
+ * Nodes live in direct-memory chunks: key length, level, one next address per level, then the key
+ * bytes. Removed nodes go on a free list per node size and are reused, so the index holds no heap
+ * object per key.
+ * <p>
+ * Membership is not taken from the caller. reconcile(key) asks the owner whether the key is present
+ * and adds or removes it under the write lock, so the last reconcile after any write leaves the index
+ * matching the map, whatever order concurrent writers ran in. Scans copy keys out in batches under
+ * the read lock and call the visitor outside it, re-seeking after each batch, so writers only ever
+ * wait for one batch.
+ */
+class SortedKeyIndex {
+    
+    private static final int MAX_LEVEL = 16;
+    private static final int CHUNK_BITS = 22;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int ALIGNMENT = 8;
+    // Larger nodes are not recycled; such keys are rare and the space is reclaimed by a rebuild
+    private static final int RECYCLED_SIZE_LIMIT = 1024;
+    private static final int SCAN_BATCH = 256;
+    private static final long HEAD = 0;
+    // No node ever links to the head, so its address doubles as the end marker
+    private static final long NULL = HEAD;
+    private static final int KEY_LENGTH_OFFSET = 0;
+    private static final int LEVEL_OFFSET = 4;
+    private static final int NEXT_OFFSET = 8;
+    
+    private final Predicate<String> membership;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final long[] freeLists = new long[RECYCLED_SIZE_LIMIT / ALIGNMENT + 1];
+    // Writer scratch: predecessor of the key at each level
+    private final long[] predecessors = new long[MAX_LEVEL];
+    private int chunkPosition = CHUNK_SIZE;
+    private long usedBytes;
+    private long size;
+    private long random = 0x9E3779B97F4A7C15L;
+    
+    /**
+     * @param membership whether a key is currently in the indexed map; called under the write lock
+     */
+    SortedKeyIndex(Predicate<String> membership) {
+        this.membership = membership;
+        long head = allocate(nodeSize(MAX_LEVEL, 0));
+        writeHeader(head, MAX_LEVEL, 0);
+    }
+    
+    /**
+     * Add or remove key so that the index agrees with the map at this moment
+     */
+    void reconcile(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        lock.writeLock().lock();
+        try {
+            if (membership.test(key)) {
+                insert(bytes);
+            } else {
+                delete(bytes);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Empty the index and run clearSource under the write lock, so reconciles that follow see the
+     * cleared map and re-add anything written after it
+     */
+    void clear(Runnable clearSource) {
+        lock.writeLock().lock();
+        try {
+            clearSource.run();
+            ByteBuffer first = chunks.get(0);
+            chunks.clear();
+            chunks.add(first);
+            chunkPosition = 0;
+            usedBytes = 0;
+            size = 0;
+            Arrays.fill(freeLists, NULL);
+            long head = allocate(nodeSize(MAX_LEVEL, 0));
+            writeHeader(head, MAX_LEVEL, 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Visit keys in [fromInclusive, toExclusive) in order until visitor returns false; a null bound
+     * is open. Returns the number of keys visited.
+     */
+    long forEachInRange(String fromInclusive, String toExclusive, Predicate<String> visitor) {
+        return scan(fromInclusive == null ? null : fromInclusive.getBytes(StandardCharsets.UTF_8),
+                toExclusive == null ? null : toExclusive.getBytes(StandardCharsets.UTF_8), visitor);
+    }
+    
+    /**
+     * Visit every key starting with prefix, in order, until visitor returns false
+     */
+    long forEachWithPrefix(String prefix, Predicate<String> visitor) {
+        byte[] from = prefix.getBytes(StandardCharsets.UTF_8);
+        return scan(from, prefixEnd(from), visitor);
+    }
+    
+    long size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Direct memory reserved for nodes, in whole chunks
+     */
+    long reservedBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) chunks.size() * CHUNK_SIZE;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Direct memory held by live nodes, including the head
+     */
+    long usedBytes() {
+        lock.readLock().lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Smallest byte string greater than every string starting with prefix, or null if there is none
+     */
+    static byte[] prefixEnd(byte[] prefix) {
+        for (int i = prefix.length - 1; i >= 0; i--) {
+            if (prefix[i] != (byte) 0xFF) {
+                byte[] end = Arrays.copyOf(prefix, i + 1);
+                end[i]++;
+                return end;
+            }
+        }
+        return null;
+    }
+    
+    private long scan(byte[] from, byte[] to, Predicate<String> visitor) {
+        List<String> batch = new ArrayList<>(SCAN_BATCH);
+        byte[] resumeAfter = null;
+        long visited = 0;
+        while (true) {
+            lock.readLock().lock();
+            try {
+                long node = resumeAfter == null ? ceiling(from) : higher(resumeAfter);
+                while (node != NULL && batch.size() < SCAN_BATCH && (to == null || compare(node, to) < 0)) {
+                    batch.add(new String(key(node), StandardCharsets.UTF_8));
+                    node = next(node, 0);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            for (String key : batch) {
+                visited++;
+                if (!visitor.test(key)) {
+                    return visited;
+                }
+            }
+            if (batch.size() < SCAN_BATCH) {
+                return visited;
+            }
+            resumeAfter = batch.get(batch.size() - 1).getBytes(StandardCharsets.UTF_8);
+            batch.clear();
+        }
+    }
+    
+    /**
+     * First node with key >= bytes, or the first node when bytes is null
+     */
+    private long ceiling(byte[] bytes) {
+        if (bytes == null) {
+            return next(HEAD, 0);
+        }
+        long node = HEAD;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            long next;
+            while ((next = next(node, level)) != NULL && compare(next, bytes) < 0) {
+                node = next;
+            }
+        }
+        return next(node, 0);
+    }
+    
+    private long higher(byte[] bytes) {
+        long node = ceiling(bytes);
+        return node != NULL && compare(node, bytes) == 0 ? next(node, 0) : node;
+    }
+    
+    /**
+     * Fill predecessors for bytes and return the node at level 0 that follows them
+     */
+    private long findPredecessors(byte[] bytes) {
+        long node = HEAD;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            long next;
+            while ((next = next(node, level)) != NULL && compare(next, bytes) < 0) {
+                node = next;
+            }
+            predecessors[level] = node;
+        }
+        return next(node, 0);
+    }
+    
+    private void insert(byte[] bytes) {
+        long found = findPredecessors(bytes);
+        if (found != NULL && compare(found, bytes) == 0) {
+            return;
+        }
+        int level = randomLevel();
+        long node = allocate(nodeSize(level, bytes.length));
+        writeHeader(node, level, bytes.length);
+        ByteBuffer chunk = chunk(node);
+        int keyOffset = offset(node) + NEXT_OFFSET + level * Long.BYTES;
+        for (int i = 0; i < bytes.length; i++) {
+            chunk.put(keyOffset + i, bytes[i]);
+        }
+        for (int i = 0; i < level; i++) {
+            setNext(node, i, next(predecessors[i], i));
+            setNext(predecessors[i], i, node);
+        }
+        size++;
+    }
+    
+    private void delete(byte[] bytes) {
+        long found = findPredecessors(bytes);
+        if (found == NULL || compare(found, bytes) != 0) {
+            return;
+        }
+        int level = level(found);
+        for (int i = 0; i < level; i++) {
+            setNext(predecessors[i], i, next(found, i));
+        }
+        free(found, nodeSize(level, keyLength(found)));
+        size--;
+    }
+    
+    /**
+     * Geometric with p = 1/4, so MAX_LEVEL covers about 4^16 keys
+     */
+    private int randomLevel() {
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        long bits = random;
+        int level = 1;
+        while ((bits & 3) == 0 && level < MAX_LEVEL) {
+            level++;
+            bits >>>= 2;
+        }
+        return level;
+    }
+    
+    private long allocate(int bytes) {
+        usedBytes += bytes;
+        if (bytes <= RECYCLED_SIZE_LIMIT) {
+            long recycled = freeLists[bytes / ALIGNMENT];
+            if (recycled != NULL) {
+                freeLists[bytes / ALIGNMENT] = next(recycled, 0);
+                return recycled;
+            }
+        }
+        if (bytes > CHUNK_SIZE) {
+            throw new IllegalArgumentException("Key too long for the sorted index: " + bytes + " bytes");
+        }
+        if (chunkPosition + bytes > CHUNK_SIZE) {
+            chunks.add(ByteBuffer.allocateDirect(CHUNK_SIZE).order(ByteOrder.nativeOrder()));
+            chunkPosition = 0;
+        }
+        long address = ((long) (chunks.size() - 1) << CHUNK_BITS) | chunkPosition;
+        chunkPosition += bytes;
+        return address;
+    }
+    
+    private void free(long node, int bytes) {
+        usedBytes -= bytes;
+        if (bytes <= RECYCLED_SIZE_LIMIT) {
+            // Every node has at least one next slot to link through
+            setNext(node, 0, freeLists[bytes / ALIGNMENT]);
+            freeLists[bytes / ALIGNMENT] = node;
+        }
+    }
+    
+    private static int nodeSize(int level, int keyLength) {
+        int bytes = NEXT_OFFSET + level * Long.BYTES + keyLength;
+        return (bytes + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+    
+    private void writeHeader(long node, int level, int keyLength) {
+        ByteBuffer chunk = chunk(node);
+        int offset = offset(node);
+        chunk.putInt(offset + KEY_LENGTH_OFFSET, keyLength);
+        chunk.putInt(offset + LEVEL_OFFSET, level);
+        for (int i = 0; i < level; i++) {
+            chunk.putLong(offset + NEXT_OFFSET + i * Long.BYTES, NULL);
+        }
+    }
+    
+    /**
+     * Unsigned lexicographic comparison of the node's key with bytes
+     */
+    private int compare(long node, byte[] bytes) {
+        ByteBuffer chunk = chunk(node);
+        int offset = offset(node);
+        int length = chunk.getInt(offset + KEY_LENGTH_OFFSET);
+        int keyOffset = offset + NEXT_OFFSET + chunk.getInt(offset + LEVEL_OFFSET) * Long.BYTES;
+        int common = Math.min(length, bytes.length);
+        for (int i = 0; i < common; i++) {
+            int diff = (chunk.get(keyOffset + i) & 0xFF) - (bytes[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - bytes.length;
+    }
+    
+    private byte[] key(long node) {
+        ByteBuffer chunk = chunk(node);
+        int offset = offset(node);
+        byte[] bytes = new byte[chunk.getInt(offset + KEY_LENGTH_OFFSET)];
+        chunk.get(offset + NEXT_OFFSET + chunk.getInt(offset + LEVEL_OFFSET) * Long.BYTES, bytes);
+        return bytes;
+    }
+    
+    private int keyLength(long node) {
+        return chunk(node).getInt(offset(node) + KEY_LENGTH_OFFSET);
+    }
+    
+    private int level(long node) {
+        return chunk(node).getInt(offset(node) + LEVEL_OFFSET);
+    }
+    
+    private long next(long node, int level) {
+        return chunk(node).getLong(offset(node) + NEXT_OFFSET + level * Long.BYTES);
+    }
+    
+    private void setNext(long node, int level, long next) {
+        chunk(node).putLong(offset(node) + NEXT_OFFSET + level * Long.BYTES, next);
+    }
+    
+    private ByteBuffer chunk(long address) {
+        return chunks.get((int) (address >>> CHUNK_BITS));
+    }
+    
+    private static int offset(long address) {
+        return (int) (address & (CHUNK_SIZE - 1));
+    }
+}
@@ -0,0 +1,15 @@
+package com.lowlatency.storage;
+
+/**
+ * When a persisted ChronicleMapStorage msyncs its memory-mapped file. Every mode survives a
+ * process crash, since writes land in the page cache; they differ in what survives power loss
+ * and in what the writer pays for it.
+ */
+public enum StorageDurability {
+    /** Never msync; the kernel writes dirty pages back on its own schedule. Cheapest, no power-loss guarantee. */
+    OS_MANAGED,
+    /** A background thread msyncs every sync interval; at most one interval of writes is lost on power loss. */
+    PERIODIC_SYNC,
+    /** commitBatch() msyncs, so a write is on disk once its batch is committed. Writers pay the msync. */
+    GROUP_COMMIT
+}
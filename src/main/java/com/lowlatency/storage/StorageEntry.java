@@ -0,0 +1,31 @@
+package com.lowlatency.storage;
+
+import net.openhft.chronicle.bytes.RandomDataInput;
+
+/**
+ * One map entry as seen by a ChronicleMapStorage scan. Only valid inside the callback it is passed
+ * to: the segment lock is held while it is in use and the same view moves on to the next entry.
+ * <p>
+ * key() and value() deserialize on demand, into an instance reused for the rest of the segment
+ * where the type allows it (FixedSizeRecord, Chronicle Values). Predicates that only need a field
+ * or two can read the serialized bytes instead, e.g. a Position's quantity is the long at
+ * valueOffset() + 4.
+ */
+public interface StorageEntry<K, V> {
+    
+    K key();
+    
+    V value();
+    
+    RandomDataInput keyBytes();
+    
+    long keyOffset();
+    
+    long keySize();
+    
+    RandomDataInput valueBytes();
+    
+    long valueOffset();
+    
+    long valueSize();
+}
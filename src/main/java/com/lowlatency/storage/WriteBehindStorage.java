@@ -0,0 +1,309 @@
+package com.lowlatency.storage;
+
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind front for a ChronicleMapStorage. Writers publish to a ring buffer and return at
+ * once; a single persistence consumer keeps only the last write per key within each batch and
+ * applies the survivors to the map in one pass at the end of the batch.
+ * <p>
+ * Every write returns a ticket (its ring sequence). awaitDurable(ticket) returns once that write,
+ * or a later write to the same key that replaced it, is in the map. For a persisted map that
+ * means it survives a process crash, and under StorageDurability.GROUP_COMMIT also power loss,
+ * since each batch is msync'd once before its tickets complete. Reads go straight to the map and
+ * do not see writes still in the ring.
+ * <p>
+ * If any map write in a batch, or the batch's commit, throws, every ticket in that batch is marked
+ * failed and awaitDurable throws for it instead of reporting it durable.
+ */
+@Slf4j
+public class WriteBehindStorage<K, V> implements AutoCloseable {
+    
+    /** Ticket for a write that has already been applied, e.g. by a synchronous store */
+    public static final long APPLIED = -1;
+    
+    private static final Object TOMBSTONE = new Object();
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final int MAX_FAILED_RANGES = 1024;
+    
+    private final ChronicleMapStorage<K, V> storage;
+    private final Consumer<? super K> appliedListener;
+    private final Disruptor<WriteSlot> disruptor;
+    private final RingBuffer<WriteSlot> ringBuffer;
+    private final Applier applier = new Applier();
+    
+    private WriteBehindStorage(ChronicleMapStorage<K, V> storage, int bufferSize, ThreadFactory threadFactory, 
+                               WaitStrategy waitStrategy, Consumer<? super K> appliedListener) {
+        this.storage = storage;
+        this.appliedListener = appliedListener;
+        this.disruptor = new Disruptor<>(WriteSlot::new, bufferSize, threadFactory, ProducerType.MULTI, waitStrategy);
+        disruptor.handleEventsWith(applier);
+        this.ringBuffer = disruptor.start();
+    }
+    
+    /**
+     * Start the persistence consumer. The caller keeps ownership of storage and closes it after this.
+     *
+     * @param bufferSize ring size (power of 2); writers block when this many writes are pending
+     */
+    public static <K, V> WriteBehindStorage<K, V> start(ChronicleMapStorage<K, V> storage, int bufferSize,
+                                                        ThreadFactory threadFactory, WaitStrategy waitStrategy) {
+        return start(storage, bufferSize, threadFactory, waitStrategy, key -> { });
+    }
+    
+    /**
+     * As above; appliedListener is called on the persistence thread with each key once its
+     * write is in the map, e.g. to invalidate a NearCache
+     */
+    public static <K, V> WriteBehindStorage<K, V> start(ChronicleMapStorage<K, V> storage, int bufferSize, 
+                                                        ThreadFactory threadFactory, WaitStrategy waitStrategy, 
+                                                        Consumer<? super K> appliedListener) {
+        log.info("Starting write-behind storage: bufferSize={}", bufferSize);
+        return new WriteBehindStorage<>(storage, bufferSize, threadFactory, waitStrategy, appliedListener);
+    }
+    
+    /**
+     * Queue a put; returns the ticket for awaitDurable. The value is queued by reference and
+     * serialized only when its batch is applied, so it must not be mutated after this call: a
+     * reused flyweight such as a per-thread Position would have its later state persisted
+     * instead. Pass a fresh or copied instance.
+     */
+    public long put(K key, V value) {
+        log.trace("Queueing put: {} -> {}", key, value);
+        return publish(key, value);
+    }
+    
+    /**
+     * Queue a remove; returns the ticket for awaitDurable
+     */
+    public long remove(K key) {
+        log.trace("Queueing remove: {}", key);
+        return publish(key, TOMBSTONE);
+    }
+    
+    private long publish(K key, Object value) {
+        long sequence = ringBuffer.next();
+        try {
+            WriteSlot slot = ringBuffer.get(sequence);
+            slot.key = key;
+            slot.value = value;
+        } finally {
+            ringBuffer.publish(sequence);
+        }
+        return sequence;
+    }
+    
+    /**
+     * Read the applied state from the map
+     */
+    public V get(K key) {
+        return storage.get(key);
+    }
+    
+    /**
+     * Wait until the write with this ticket has been applied to the map
+     *
+     * @return false if the timeout elapsed first
+     * @throws IllegalStateException if the ticket's batch failed to reach the map or to commit
+     */
+    public boolean awaitDurable(long ticket, long timeout, TimeUnit unit) {
+        if (!awaitProcessed(ticket, timeout, unit)) {
+            return false;
+        }
+        if (ticket <= applier.failedThroughSequence && applier.failedBatches.contains(ticket)) {
+            throw new IllegalStateException("Write-behind batch with ticket " + ticket + " failed; "
+                    + "see the log and getFailedWriteCount()");
+        }
+        return true;
+    }
+    
+    /**
+     * Wait until every write queued so far has been processed, successfully or not; check
+     * getFailedWriteCount() or awaitDurable for the outcome
+     */
+    public boolean flush(long timeout, TimeUnit unit) {
+        return awaitProcessed(ringBuffer.getCursor(), timeout, unit);
+    }
+    
+    private boolean awaitProcessed(long ticket, long timeout, TimeUnit unit) {
+        if (applier.appliedSequence >= ticket) {
+            return true;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (applier.appliedSequence < ticket) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            LockSupport.parkNanos(10_000);
+        }
+        return true;
+    }
+    
+    /**
+     * Highest ticket whose write is in the map
+     */
+    public long getAppliedSequence() {
+        return applier.appliedSequence;
+    }
+    
+    /**
+     * Writes queued so far
+     */
+    public long getWriteCount() {
+        return ringBuffer.getCursor() + 1;
+    }
+    
+    /**
+     * Puts and removes actually performed on the map, after coalescing
+     */
+    public long getMapWriteCount() {
+        return applier.mapWriteCount;
+    }
+    
+    /**
+     * Map writes that threw; the failure is logged, its batch's tickets fail, and the consumer moves on
+     */
+    public long getFailedWriteCount() {
+        return applier.failedWriteCount;
+    }
+    
+    /**
+     * Apply everything already queued, then stop the consumer. Does not close the storage.
+     */
+    @Override
+    public void close() {
+        log.info("Closing write-behind storage");
+        if (!flush(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Write-behind queue did not drain within {}s, {} writes not applied",
+                    SHUTDOWN_TIMEOUT_SECONDS, ringBuffer.getCursor() - applier.appliedSequence);
+        }
+        disruptor.halt();
+        log.debug("Write-behind storage closed: writes={}, mapWrites={}", getWriteCount(), applier.mapWriteCount);
+    }
+    
+    private static final class WriteSlot {
+        private Object key;
+        private Object value;
+    }
+    
+    /**
+     * Single persistence consumer: coalesces by key over the batch, applies at end of batch
+     */
+    private final class Applier implements EventHandler<WriteSlot> {
+        
+        private final Map<K, Object> pending = new HashMap<>();
+        private volatile long appliedSequence = APPLIED;
+        private volatile long mapWriteCount;
+        private volatile long failedWriteCount;
+        // Highest ticket in a failed batch; tickets above it skip the failedBatches lookup
+        private volatile long failedThroughSequence = APPLIED;
+        private final FailedBatches failedBatches = new FailedBatches();
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onEvent(WriteSlot slot, long sequence, boolean endOfBatch) {
+            pending.put((K) slot.key, slot.value);
+            // Drop references so the ring does not keep applied values reachable
+            slot.key = null;
+            slot.value = null;
+            if (endOfBatch) {
+                boolean applied = apply();
+                boolean committed = commit();
+                if (!applied || !committed) {
+                    // Recorded before appliedSequence moves, so a waiter never sees the batch as done first
+                    failedBatches.add(appliedSequence + 1, sequence);
+                    failedThroughSequence = sequence;
+                }
+                appliedSequence = sequence;
+            }
+        }
+        
+        /**
+         * @return false if any write threw
+         */
+        @SuppressWarnings("unchecked")
+        private boolean apply() {
+            long writes = 0;
+            long failures = 0;
+            for (Map.Entry<K, Object> entry : pending.entrySet()) {
+                try {
+                    if (entry.getValue() == TOMBSTONE) {
+                        storage.remove(entry.getKey());
+                    } else {
+                        storage.put(entry.getKey(), (V) entry.getValue());
+                    }
+                    writes++;
+                    appliedListener.accept(entry.getKey());
+                } catch (RuntimeException e) {
+                    failures++;
+                    log.error("Write-behind failed for key {}", entry.getKey(), e);
+                }
+            }
+            pending.clear();
+            mapWriteCount += writes;
+            failedWriteCount += failures;
+            return failures == 0;
+        }
+        
+        /**
+         * Under GROUP_COMMIT the whole batch is msync'd once, before any of its tickets complete
+         */
+        private boolean commit() {
+            try {
+                storage.commitBatch();
+                return true;
+            } catch (RuntimeException e) {
+                log.error("Write-behind commit failed", e);
+                return false;
+            }
+        }
+    }
+    
+    /**
+     * Ticket ranges of failed batches, oldest first. Failures are rare, so a lock is fine; past
+     * MAX_FAILED_RANGES the two oldest ranges merge, which may also fail the good tickets between them.
+     */
+    private static final class FailedBatches {
+        
+        private final long[] starts = new long[MAX_FAILED_RANGES];
+        private final long[] ends = new long[MAX_FAILED_RANGES];
+        private int count;
+        
+        synchronized void add(long start, long end) {
+            if (count > 0 && ends[count - 1] + 1 == start) {
+                ends[count - 1] = end;
+                return;
+            }
+            if (count == MAX_FAILED_RANGES) {
+                ends[0] = ends[1];
+                System.arraycopy(starts, 2, starts, 1, count - 2);
+                System.arraycopy(ends, 2, ends, 1, count - 2);
+                count--;
+            }
+            starts[count] = start;
+            ends[count] = end;
+            count++;
+        }
+        
+        synchronized boolean contains(long ticket) {
+            for (int i = count - 1; i >= 0; i--) {
+                if (ticket >= starts[i]) {
+                    return ticket <= ends[i];
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -1,13 +1,27 @@
 package com.lowlatency;
 
 import com.lowlatency.core.Event;
+import com.lowlatency.core.LatencySnapshot;
+import com.lowlatency.marketdata.Quote;
+import com.lowlatency.marketdata.TradeStats;
+import com.lowlatency.pipeline.Pipeline;
+import com.lowlatency.pipeline.StageStats;
+import com.lowlatency.pool.ObjectPoolStats;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.dsl.ProducerType;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -22,9 +36,10 @@ class LowLatencyEngineTest {
     
     @BeforeEach
     void setUp() throws IOException {
-        // Change to temp directory to avoid file conflicts
-        System.setProperty("user.dir", tempDir.toString());
-        engine = new LowLatencyEngine();
+        // Keep the map file in the temp directory to avoid file conflicts
+        engine = LowLatencyEngine.builder()
+            .storageFile(tempDir.resolve("engine-test.dat").toString())
+            .build();
     }
     
     @AfterEach
@@ -52,6 +67,459 @@ class LowLatencyEngineTest {
         assertTrue(engine.getProcessedEventCount() > 0);
     }
     
+    @Test
+    void testLatencySnapshot() throws InterruptedException {
+        for (int i = 0; i < 1000; i++) {
+            engine.publishEvent("AAPL", 150.0, 100, Event.EventType.TRADE);
+        }
+        
+        Thread.sleep(500);
+        
+        LatencySnapshot snapshot = engine.snapshotAndResetLatency();
+        assertEquals(1000, snapshot.getCount());
+        assertTrue(snapshot.getP50() <= snapshot.getP99());
+        assertTrue(snapshot.getP99() <= snapshot.getMax());
+        assertEquals(0, engine.snapshotAndResetLatency().getCount());
+    }
+    
+    @Test
+    void testBuilderSingleProducerBusySpin() throws IOException, InterruptedException {
+        try (LowLatencyEngine custom = LowLatencyEngine.builder()
+                .ringBufferSize(1024)
+                .producerType(ProducerType.SINGLE)
+                .waitStrategy(LowLatencyEngine.WaitStrategyType.BUSY_SPIN)
+                .objectPoolSize(10)
+                .inMemoryStorage()
+                .storageEntries(100)
+                .build()) {
+            
+            // More events than ring slots to exercise wrap-around
+            for (int i = 0; i < 5000; i++) {
+                custom.publishEvent("AAPL", 150.0 + i, 100, Event.EventType.TRADE);
+            }
+            custom.storeData("key", "value");
+            
+            Thread.sleep(500);
+            
+            assertEquals(5000, custom.getProcessedEventCount());
+            assertEquals("value", custom.getData("key"));
+            assertEquals(5, custom.getStringBuilderPoolSize());
+        }
+    }
+    
+    @Test
+    void testOffHeapEventLayout() throws IOException, InterruptedException {
+        try (LowLatencyEngine offHeap = LowLatencyEngine.builder()
+                .ringBufferSize(1024)
+                .eventLayout(LowLatencyEngine.EventLayout.OFF_HEAP)
+                .inMemoryStorage()
+                .storageEntries(100)
+                .build()) {
+            
+            for (int i = 0; i < 3000; i++) {
+                offHeap.publishEvent("AAPL", 150.0 + i, 100, Event.EventType.values()[i % 3]);
+            }
+            offHeap.publishEvents(10, null, (event, index, source) -> {
+                event.setSymbol("MSFT");
+                event.setType(Event.EventType.QUOTE);
+            });
+            
+            Thread.sleep(500);
+            
+            assertEquals(3010, offHeap.getProcessedEventCount());
+            assertEquals(3010, offHeap.snapshotAndResetLatency().getCount());
+        }
+    }
+    
+    @Test
+    void testBuilderSequentialHandlers() throws IOException, InterruptedException {
+        try (LowLatencyEngine custom = LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(100)
+                .handlers(LowLatencyEngine.HandlerTopology.SEQUENTIAL, "First", "Second")
+                .build()) {
+            
+            for (int i = 0; i < 100; i++) {
+                custom.publishEvent("MSFT", 300.0, 10, Event.EventType.QUOTE);
+            }
+            
+            Thread.sleep(500);
+            
+            assertEquals(100, custom.getProcessedEventCount());
+            assertEquals(100, custom.snapshotAndResetLatency("First").getCount());
+            assertEquals(100, custom.snapshotAndResetLatency().getCount());
+            assertThrows(IllegalArgumentException.class, () -> custom.snapshotAndResetLatency("Missing"));
+        }
+    }
+    
+    @Test
+    void testPipelineStages() throws IOException, InterruptedException {
+        List<Long> journaled = new CopyOnWriteArrayList<>();
+        EventHandler<Event> journal = (event, sequence, endOfBatch) -> journaled.add(sequence);
+        EventHandler<Event> egress = (event, sequence, endOfBatch) -> { };
+        
+        try (LowLatencyEngine custom = LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(100)
+                .pipeline(Pipeline.fromSpec("journal > engine > egress", Map.of("journal", journal, "egress", egress)))
+                .build()) {
+            
+            for (int i = 0; i < 100; i++) {
+                custom.publishEvent("MSFT", 300.0, 10, Event.EventType.QUOTE);
+            }
+            
+            Thread.sleep(500);
+            
+            assertEquals(100, journaled.size());
+            assertEquals(100, custom.getProcessedEventCount());
+            List<StageStats> stats = custom.snapshotStageStats();
+            assertEquals(3, stats.size());
+            assertEquals(Pipeline.ENGINE_STAGE, stats.get(1).getStageName());
+            stats.forEach(stage -> assertEquals(100, stage.getProcessed()));
+            assertEquals(0, custom.getStageLag("egress"));
+        }
+    }
+    
+    @Test
+    void testPublishBySymbolId() throws InterruptedException {
+        int aapl = engine.registerSymbol("AAPL");
+        assertEquals(aapl, engine.registerSymbol("AAPL"));
+        
+        engine.publishEvent(aapl, 150.0, 100, Event.EventType.TRADE);
+        engine.publishEvent(new StringBuilder("AAPL"), 151.0, 100, Event.EventType.TRADE);
+        byte[] packet = "AAPL".getBytes(StandardCharsets.US_ASCII);
+        engine.publishEvent(packet, 0, packet.length, 152.0, 100, Event.EventType.TRADE);
+        
+        Thread.sleep(200);
+        
+        assertEquals(3, engine.getProcessedEventCount());
+        assertEquals(1, engine.getSymbolRegistry().size());
+    }
+    
+    @Test
+    void testPublishBySymbolIdDoesNotAllocate() throws IOException {
+        try (LowLatencyEngine yielding = LowLatencyEngine.builder()
+                .ringBufferSize(1024)
+                .waitStrategy(LowLatencyEngine.WaitStrategyType.YIELDING)
+                .inMemoryStorage()
+                .storageEntries(100)
+                .build()) {
+            com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+            int aapl = yielding.registerSymbol("AAPL");
+            for (int i = 0; i < 20_000; i++) {
+                yielding.publishEvent(aapl, 150.0 + i, i, Event.EventType.QUOTE);
+                yielding.publishQuote(aapl, Event.Side.BUY, 150.0, i);
+            }
+            
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < 100_000; i++) {
+                yielding.publishEvent(aapl, 150.0 + i, i, Event.EventType.QUOTE);
+                yielding.publishQuote(aapl, Event.Side.BUY, 150.0, i);
+            }
+            long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+            
+            // Boxed log arguments would be megabytes; allow for one-off runtime bookkeeping
+            assertTrue(allocated < 16 * 1024, "allocated " + allocated + " bytes");
+        }
+    }
+    
+    @Test
+    void testPublishUnregisteredByteSymbol() {
+        byte[] packet = "ZZZZ".getBytes(StandardCharsets.US_ASCII);
+        assertThrows(IllegalArgumentException.class, 
+            () -> engine.publishEvent(packet, 0, packet.length, 1.0, 1, Event.EventType.QUOTE));
+    }
+    
+    @Test
+    void testOrderMatching() throws IOException, InterruptedException {
+        List<Double> fillPrices = new CopyOnWriteArrayList<>();
+        try (LowLatencyEngine matching = LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(100)
+                .tradeListener((trade, restingOrderId) -> fillPrices.add(trade.getPrice()))
+                .build()) {
+            
+            int aapl = matching.registerSymbol("AAPL");
+            matching.publishOrder(aapl, 1, Event.Side.SELL, Event.OrderAction.NEW, 150.10, 100);
+            matching.publishOrder(aapl, 2, Event.Side.SELL, Event.OrderAction.NEW, 150.20, 100);
+            matching.publishOrder(aapl, 3, Event.Side.BUY, Event.OrderAction.NEW, 150.20, 150);
+            
+            Thread.sleep(200);
+            
+            assertEquals(3, matching.getProcessedEventCount());
+            assertEquals(2, matching.getTradeCount());
+            assertEquals(List.of(150.10, 150.20), fillPrices);
+            
+            // Fills feed trade analytics like published trades
+            TradeStats stats = new TradeStats();
+            assertTrue(matching.readTradeStats(aapl, stats));
+            assertEquals(150, stats.getVolume());
+            assertEquals(150.20, stats.getClose());
+        }
+    }
+    
+    @Test
+    void testShardedConsumers() throws IOException, InterruptedException {
+        try (LowLatencyEngine sharded = LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(100)
+                .shards(4)
+                .build()) {
+            
+            int[] symbols = new int[8];
+            for (int s = 0; s < symbols.length; s++) {
+                symbols[s] = sharded.registerSymbol("SYM" + s);
+            }
+            for (int i = 0; i < 800; i++) {
+                sharded.publishEvent(symbols[i % symbols.length], 100.0 + i, 10, Event.EventType.TRADE);
+            }
+            // One cross per symbol, each matched on its own shard
+            for (int symbolId : symbols) {
+                sharded.publishOrder(symbolId, 1, Event.Side.SELL, Event.OrderAction.NEW, 50.0, 5);
+                sharded.publishOrder(symbolId, 2, Event.Side.BUY, Event.OrderAction.NEW, 50.0, 5);
+            }
+            
+            Thread.sleep(500);
+            
+            assertEquals(816, sharded.getProcessedEventCount());
+            assertEquals(8, sharded.getTradeCount());
+            assertEquals(816, sharded.snapshotAndResetLatency().getCount());
+            assertEquals(4, sharded.snapshotStageStats().get(0).getHandlerCount());
+            
+            TradeStats stats = new TradeStats();
+            for (int s = 0; s < symbols.length; s++) {
+                assertTrue(sharded.readTradeStats(symbols[s], stats));
+                assertEquals(101, stats.getTradeCount());
+                assertEquals(100.0 + s, stats.getOpen());
+                assertEquals(50.0, stats.getClose());
+            }
+        }
+        
+        assertThrows(IllegalArgumentException.class, () -> LowLatencyEngine.builder().shards(0));
+        assertThrows(IllegalArgumentException.class, () -> LowLatencyEngine.builder()
+                .handlers(LowLatencyEngine.HandlerTopology.PARALLEL, "A", "B").shards(2).build());
+    }
+    
+    @Test
+    void testJournalReplay() throws IOException, InterruptedException {
+        String journalDir = tempDir.resolve("journal").toString();
+        try (LowLatencyEngine journaled = LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(100)
+                .journal(journalDir, 4096, false)
+                .build()) {
+            
+            journaled.registerSymbol("PAD");
+            int aapl = journaled.registerSymbol("AAPL");
+            for (int i = 0; i < 200; i++) {
+                journaled.publishEvent(aapl, 100.0 + i, 10, Event.EventType.TRADE);
+            }
+            journaled.publishOrder(aapl, 1, Event.Side.SELL, Event.OrderAction.NEW, 99.0, 5);
+            assertEquals(2, journaled.snapshotStageStats().size());
+        }
+        
+        // A fresh engine with a different registry rebuilds the same state, and does not re-journal it
+        try (LowLatencyEngine restored = LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(100)
+                .journal(journalDir, 4096, false)
+                .build()) {
+            
+            assertEquals(201, restored.replayJournal(journalDir));
+            Thread.sleep(300);
+            
+            int aapl = restored.getSymbolRegistry().lookup("AAPL");
+            assertEquals(0, aapl);
+            TradeStats stats = new TradeStats();
+            assertTrue(restored.readTradeStats(aapl, stats));
+            assertEquals(200, stats.getTradeCount());
+            assertEquals(299.0, stats.getClose());
+            
+            restored.publishOrder(aapl, 2, Event.Side.BUY, Event.OrderAction.NEW, 99.0, 5);
+            Thread.sleep(200);
+            assertEquals(1, restored.getTradeCount());
+        }
+        
+        try (LowLatencyEngine replayOnly = LowLatencyEngine.builder().inMemoryStorage().storageEntries(100).build()) {
+            assertEquals(202, replayOnly.replayJournal(journalDir));
+        }
+    }
+    
+    @Test
+    void testPeriodicSnapshotsRejectSingleProducer() throws IOException {
+        String snapshotDir = tempDir.resolve("snapshots").toString();
+        assertThrows(IllegalArgumentException.class, () -> LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .producerType(ProducerType.SINGLE)
+                .snapshots(snapshotDir, 1_000)
+                .build());
+        
+        // On-demand snapshots from the publishing thread are fine with a single producer
+        try (LowLatencyEngine single = LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(100)
+                .producerType(ProducerType.SINGLE)
+                .snapshots(snapshotDir, 0)
+                .build()) {
+            single.requestSnapshot();
+        }
+    }
+    
+    @Test
+    void testFailedStartStopsWhatWasStarted() throws IOException, InterruptedException {
+        // A plain file where the journal directory should be makes EventJournal.open fail late in startup
+        Path notADirectory = Files.createFile(tempDir.resolve("journal"));
+        List<Thread> started = new CopyOnWriteArrayList<>();
+        assertThrows(IOException.class, () -> LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(100)
+                .writeBehindStorage(64)
+                .threadFactory(runnable -> {
+                    Thread thread = new Thread(runnable);
+                    thread.setDaemon(true);
+                    started.add(thread);
+                    return thread;
+                })
+                .snapshots(tempDir.resolve("snapshots").toString(), 0)
+                .journal(notADirectory.toString())
+                .build());
+        
+        assertFalse(started.isEmpty());
+        for (Thread thread : started) {
+            thread.join(5_000);
+            assertFalse(thread.isAlive(), thread.getName() + " still running");
+        }
+    }
+    
+    @Test
+    void testSnapshotThenJournalTailReplay() throws IOException, InterruptedException {
+        String journalDir = tempDir.resolve("journal").toString();
+        String snapshotDir = tempDir.resolve("snapshots").toString();
+        try (LowLatencyEngine first = LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(100)
+                .journal(journalDir, 4096, false)
+                .snapshots(snapshotDir, 0)
+                .build()) {
+            
+            int aapl = first.registerSymbol("AAPL");
+            first.publishOrder(aapl, 1, Event.Side.SELL, Event.OrderAction.NEW, 150.0, 100);
+            for (int i = 0; i < 100; i++) {
+                first.publishEvent(aapl, 100.0 + i, 10, Event.EventType.TRADE);
+            }
+            first.requestSnapshot();
+            for (int i = 0; i < 50; i++) {
+                first.publishEvent(aapl, 200.0 + i, 10, Event.EventType.TRADE);
+            }
+        }
+        
+        try (LowLatencyEngine restarted = LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(100)
+                .journal(journalDir, 4096, false)
+                .snapshots(snapshotDir, 0)
+                .build()) {
+            
+            // Only the 50 events after the snapshot are replayed
+            assertEquals(101, restarted.getRestoredSnapshotPosition());
+            assertEquals(50, restarted.replayJournal(journalDir));
+            Thread.sleep(300);
+            
+            int aapl = restarted.getSymbolRegistry().lookup("AAPL");
+            TradeStats stats = new TradeStats();
+            assertTrue(restarted.readTradeStats(aapl, stats));
+            assertEquals(150, stats.getTradeCount());
+            assertEquals(100.0, stats.getOpen());
+            assertEquals(249.0, stats.getClose());
+            
+            // The resting order came back from the snapshot
+            restarted.publishOrder(aapl, 2, Event.Side.BUY, Event.OrderAction.NEW, 150.0, 100);
+            Thread.sleep(200);
+            assertEquals(1, restarted.getTradeCount());
+        }
+        
+        assertThrows(IllegalStateException.class, () -> engine.requestSnapshot());
+    }
+    
+    @Test
+    void testQuoteCache() throws InterruptedException {
+        int aapl = engine.registerSymbol("AAPL");
+        engine.publishQuote(aapl, Event.Side.BUY, 149.99, 500);
+        engine.publishQuote(aapl, Event.Side.SELL, 150.01, 300);
+        
+        Thread.sleep(200);
+        
+        Quote quote = new Quote();
+        assertTrue(engine.readQuote(aapl, quote));
+        assertEquals(149.99, quote.getBidPrice());
+        assertEquals(500, quote.getBidSize());
+        assertEquals(150.01, quote.getAskPrice());
+        assertEquals(300, quote.getAskSize());
+        assertFalse(engine.readQuote(engine.registerSymbol("NONE"), quote));
+    }
+    
+    @Test
+    void testTradeStats() throws InterruptedException {
+        int msft = engine.registerSymbol("MSFT");
+        engine.publishEvent(msft, 300.0, 10, Event.EventType.TRADE);
+        engine.publishEvent(msft, 310.0, 30, Event.EventType.TRADE);
+        engine.publishEvent(msft, 305.0, 100, Event.EventType.QUOTE);
+        
+        Thread.sleep(200);
+        
+        TradeStats stats = new TradeStats();
+        assertTrue(engine.readTradeStats(msft, stats));
+        assertEquals(300.0, stats.getOpen());
+        assertEquals(310.0, stats.getHigh());
+        assertEquals(40, stats.getVolume());
+        assertEquals(2, stats.getTradeCount());
+        assertEquals(307.5, stats.getVwap(), 1e-9);
+    }
+    
+    @Test
+    void testBatchPublish() throws InterruptedException {
+        double[] prices = {100.0, 101.0, 102.0, 103.0, 104.0, 105.0, 106.0, 107.0};
+        
+        engine.publishEvents(prices.length, prices, (event, index, source) -> {
+            event.setSymbol("AAPL");
+            event.setPrice(source[index]);
+            event.setQuantity(index + 1);
+            event.setType(Event.EventType.TRADE);
+        });
+        
+        Thread.sleep(200);
+        
+        assertEquals(prices.length, engine.getProcessedEventCount());
+        assertEquals(prices.length, engine.snapshotAndResetLatency().getCount());
+    }
+    
+    @Test
+    void testBatchLargerThanRing() throws IOException, InterruptedException {
+        try (LowLatencyEngine small = LowLatencyEngine.builder()
+                .ringBufferSize(16)
+                .inMemoryStorage()
+                .storageEntries(100)
+                .build()) {
+            
+            small.publishEvents(100, null, (event, index, source) -> {
+                event.setSymbol("MSFT");
+                event.setType(Event.EventType.QUOTE);
+            });
+            
+            Thread.sleep(200);
+            
+            assertEquals(100, small.getProcessedEventCount());
+        }
+    }
+    
+    @Test
+    void testBuilderRejectsInvalidRingSize() {
+        assertThrows(IllegalArgumentException.class, () -> LowLatencyEngine.builder().ringBufferSize(1000));
+        assertThrows(IllegalArgumentException.class, () -> LowLatencyEngine.builder().handlers(LowLatencyEngine.HandlerTopology.PARALLEL));
+    }
+    
     @Test
     void testMultipleEventPublishing() throws InterruptedException {
         int eventCount = 1000;
@@ -96,6 +564,11 @@ class LowLatencyEngineTest {
         // StringBuilder should be cleared when acquired again
         StringBuilder sb2 = engine.acquireStringBuilder();
         assertEquals(0, sb2.length());
+        
+        ObjectPoolStats stats = engine.getStringBuilderPoolStats();
+        assertTrue(stats.getAcquires() >= 2);
+        assertTrue(stats.getReleases() >= 1);
+        assertEquals(engine.getStringBuilderPoolSize(), stats.getIdle());
     }
     
     @Test
@@ -206,7 +679,11 @@ class LowLatencyEngineTest {
             engine.publishEvent("PERF", 150.0 + i * 0.001, 20, Event.EventType.QUOTE);
         }
         
-        Thread.sleep(1000); // Wait for processing
+        // Wait for processing, stopping the clock as soon as the handler catches up
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (engine.getProcessedEventCount() - startCount < testEvents && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
         
         long endTime = System.nanoTime();
         long endCount = engine.getProcessedEventCount();
@@ -221,4 +698,160 @@ class LowLatencyEngineTest {
         // Should process at least 100k events per second
         assertTrue(throughput > 100_000, "Throughput too low: " + throughput);
     }
-}
\ No newline at end of file
+    
+    @Test
+    void testWriteBehindStorage() throws IOException {
+        try (LowLatencyEngine writeBehind = LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(1000)
+                .writeBehindStorage(1024)
+                .build()) {
+            
+            long ticket = 0;
+            for (int i = 0; i < 100; i++) {
+                ticket = writeBehind.storeData("key" + (i % 10), "value" + i);
+            }
+            
+            assertTrue(writeBehind.awaitStored(ticket, 5, TimeUnit.SECONDS));
+            assertEquals(10, writeBehind.getStorageSize());
+            assertEquals("value99", writeBehind.getData("key9"));
+        }
+    }
+    
+    @Test
+    void testSynchronousStoreIsImmediatelyStored() {
+        long ticket = engine.storeData("key", "value");
+        
+        assertTrue(engine.awaitStored(ticket, 0, TimeUnit.MILLISECONDS));
+        assertEquals("value", engine.getData("key"));
+    }
+    
+    @Test
+    void testNearCacheServesRepeatedReads() throws IOException {
+        try (LowLatencyEngine cached = LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(1000)
+                .nearCache(16)
+                .build()) {
+            
+            cached.storeData("key", "v1");
+            for (int i = 0; i < 10; i++) {
+                assertEquals("v1", cached.getData("key"));
+            }
+            cached.storeData("key", "v2");
+            assertEquals("v2", cached.getData("key"));
+            
+            assertEquals(9, cached.getNearCacheStats().getHits());
+            assertEquals(2, cached.getNearCacheStats().getMisses());
+        }
+    }
+    
+    @Test
+    void testNearCacheInvalidatedByWriteBehind() throws IOException {
+        try (LowLatencyEngine cached = LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(1000)
+                .nearCache(16)
+                .writeBehindStorage(1024)
+                .build()) {
+            
+            assertTrue(cached.awaitStored(cached.storeData("key", "v1"), 5, TimeUnit.SECONDS));
+            assertEquals("v1", cached.getData("key"));
+            
+            assertTrue(cached.awaitStored(cached.storeData("key", "v2"), 5, TimeUnit.SECONDS));
+            assertEquals("v2", cached.getData("key"));
+        }
+    }
+    
+    @Test
+    void testNearCacheStatsRequireNearCache() {
+        assertThrows(IllegalStateException.class, () -> engine.getNearCacheStats());
+    }
+    
+    @Test
+    void testStorageAutoGrowth() throws IOException, InterruptedException {
+        try (LowLatencyEngine growing = LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(1000)
+                .storageAutoGrowth(0.5, 4)
+                .build()) {
+            
+            for (int i = 0; i < 600; i++) {
+                growing.storeData("key" + i, "value" + i);
+            }
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (growing.getStorageCapacity() == 1000 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            
+            assertTrue(growing.getStorageCapacity() >= 4000);
+            assertEquals(600, growing.getStorageSize());
+            assertEquals("value599", growing.getData("key599"));
+        }
+    }
+    
+    @Test
+    void testStoredKeyPrefixQuery() throws IOException {
+        try (LowLatencyEngine indexed = LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(1000)
+                .sortedStorageIndex()
+                .build()) {
+            
+            for (int i = 0; i < 20; i++) {
+                indexed.storeData("batch" + i, "value" + i);
+                indexed.storeData("order" + i, "value" + i);
+            }
+            
+            assertEquals(11, indexed.forEachStoredKeyWithPrefix("batch1", key -> true));
+            assertEquals(20, indexed.forEachStoredKeyInRange("order", "order~", key -> true));
+        }
+    }
+    
+    @Test
+    void testExportAndImportStorage() throws IOException {
+        String exportFile = tempDir.resolve("storage.bin").toString();
+        try (LowLatencyEngine source = LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(1000)
+                .writeBehindStorage(64)
+                .build()) {
+            
+            for (int i = 0; i < 100; i++) {
+                source.storeData("ref" + i, "value" + i);
+            }
+            assertEquals(100, source.exportStorage(exportFile));
+        }
+        
+        try (LowLatencyEngine target = LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(1000)
+                .nearCache(16)
+                .build()) {
+            
+            target.storeData("ref1", "stale");
+            assertEquals("stale", target.getData("ref1"));
+            
+            assertEquals(100, target.importStorage(exportFile, (done, total) -> { }));
+            assertEquals(100, target.getStorageSize());
+            assertEquals("value1", target.getData("ref1"));
+        }
+    }
+    
+    @Test
+    void testStoredEntryScan() throws IOException {
+        try (LowLatencyEngine scanning = LowLatencyEngine.builder()
+                .inMemoryStorage()
+                .storageEntries(1000)
+                .build()) {
+            
+            for (int i = 0; i < 100; i++) {
+                scanning.storeData("order" + i, i % 10 == 0 ? "CANCELLED" : "FILLED");
+            }
+            
+            assertEquals(10, scanning.countStoredEntries(entry -> entry.value().equals("CANCELLED")));
+            assertEquals(10, scanning.filterStoredKeys(entry -> entry.value().equals("CANCELLED")).size());
+            assertTrue(scanning.filterStoredKeys(entry -> entry.value().equals("CANCELLED")).contains("order90"));
+        }
+    }
+}
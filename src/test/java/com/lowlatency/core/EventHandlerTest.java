@@ -0,0 +1,137 @@
+package com.lowlatency.core;
+
+import com.lowlatency.marketdata.TradeStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.lang.management.ManagementFactory;
+
+class EventHandlerTest {
+    
+    private LowLatencyEventHandler handler;
+    
+    @BeforeEach
+    void setUp() {
+        handler = new LowLatencyEventHandler("TestHandler");
+    }
+    
+    private Event newEvent(long id, Event.EventType type, long timestamp) {
+        Event event = new Event();
+        event.setId(id);
+        event.setSymbol("AAPL");
+        event.setPrice(150.0);
+        event.setQuantity(100);
+        event.setTimestamp(timestamp);
+        event.setType(type);
+        return event;
+    }
+    
+    @Test
+    void testProcessedCount() throws Exception {
+        handler.onEvent(newEvent(1, Event.EventType.TRADE, 0), 1, false);
+        handler.onEvent(newEvent(2, Event.EventType.QUOTE, 0), 2, false);
+        handler.onEvent(newEvent(3, Event.EventType.ORDER, 0), 3, true);
+        
+        assertEquals(3, handler.getProcessedCount());
+        assertEquals("TestHandler", handler.getHandlerName());
+    }
+    
+    @Test
+    void testTradesAndMatchedFillsDoNotAllocate() throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        Event trade = newEvent(0, Event.EventType.TRADE, 0);
+        trade.assignSymbol(0, "AAPL");
+        Event order = newEvent(0, Event.EventType.ORDER, 0);
+        order.assignSymbol(0, "AAPL");
+        order.setQuantity(1);
+        order.setAction(Event.OrderAction.NEW);
+        // Warm-up also creates the symbol's order book
+        for (int i = 0; i < 20_000; i++) {
+            tradeAndCross(trade, order, i);
+        }
+        
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 20_000; i < 120_000; i++) {
+            tradeAndCross(trade, order, i);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+    
+    /**
+     * One TRADE event, then a resting sell crossed by a buy, so the fill runs through processTrade too
+     */
+    private void tradeAndCross(Event trade, Event order, long i) throws Exception {
+        handler.onEvent(trade, i, false);
+        order.setOrderId(2 * i);
+        order.setSide(Event.Side.SELL);
+        handler.onEvent(order, i, false);
+        order.setOrderId(2 * i + 1);
+        order.setSide(Event.Side.BUY);
+        handler.onEvent(order, i, true);
+    }
+    
+    @Test
+    void testNullTypeStillCounted() throws Exception {
+        handler.onEvent(newEvent(1, null, 0), 1, true);
+        assertEquals(1, handler.getProcessedCount());
+    }
+    
+    @Test
+    void testLatencySnapshot() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            handler.onEvent(newEvent(i, Event.EventType.TRADE, System.nanoTime()), i, i == 99);
+        }
+        
+        LatencySnapshot snapshot = handler.snapshotAndResetLatency();
+        assertEquals(100, snapshot.getCount());
+        assertTrue(snapshot.getP50() > 0);
+        assertTrue(snapshot.getP50() <= snapshot.getP99());
+        assertTrue(snapshot.getP99() <= snapshot.getP999());
+        assertTrue(snapshot.getP999() <= snapshot.getMax());
+    }
+    
+    @Test
+    void testLatencySnapshotResets() throws Exception {
+        handler.onEvent(newEvent(1, Event.EventType.TRADE, System.nanoTime()), 1, true);
+        assertEquals(1, handler.snapshotAndResetLatency().getCount());
+        
+        // Nothing recorded since the last snapshot
+        assertEquals(LatencySnapshot.EMPTY, handler.snapshotAndResetLatency());
+    }
+    
+    @Test
+    void testUnstampedEventsNotRecorded() throws Exception {
+        handler.onEvent(newEvent(1, Event.EventType.TRADE, 0), 1, true);
+        assertEquals(0, handler.snapshotAndResetLatency().getCount());
+    }
+    
+    @Test
+    void testShardProcessesOnlyOwnedSymbols() throws Exception {
+        LowLatencyEventHandler shard = new LowLatencyEventHandler("Shard-1", 16, 64, 16, 0.01, null, 1, 2);
+        for (int symbolId = 0; symbolId < 4; symbolId++) {
+            Event event = newEvent(symbolId, Event.EventType.TRADE, System.nanoTime());
+            event.assignSymbol(symbolId, "SYM" + symbolId);
+            shard.onEvent(event, symbolId, symbolId == 3);
+        }
+        
+        // Every event is consumed, only symbols 1 and 3 are processed
+        assertEquals(4, shard.getProcessedCount());
+        assertEquals(2, shard.snapshotAndResetLatency().getCount());
+        TradeStats stats = new TradeStats();
+        assertTrue(shard.getTradeAnalytics().read(1, stats));
+        assertFalse(shard.getTradeAnalytics().read(2, stats));
+    }
+    
+    @Test
+    void testShardOf() {
+        assertEquals(0, LowLatencyEventHandler.shardOf(SymbolRegistry.NO_SYMBOL, 4));
+        assertEquals(3, LowLatencyEventHandler.shardOf(7, 4));
+        assertEquals(0, LowLatencyEventHandler.shardOf(7, 1));
+        assertThrows(IllegalArgumentException.class, 
+                () -> new LowLatencyEventHandler("Bad", 16, 64, 16, 0.01, null, 2, 2));
+    }
+}
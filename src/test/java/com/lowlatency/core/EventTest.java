@@ -17,6 +17,7 @@ class EventTest {
     void testEventCreation() {
         assertNotNull(event);
         assertEquals(0, event.getId());
+        assertEquals(SymbolRegistry.NO_SYMBOL, event.getSymbolId());
         assertNull(event.getSymbol());
         assertEquals(0.0, event.getPrice());
         assertEquals(0, event.getQuantity());
@@ -45,6 +46,7 @@ class EventTest {
     void testEventReset() {
         // Set up event with data
         event.setId(123L);
+        event.setSymbolId(7);
         event.setSymbol("MSFT");
         event.setPrice(300.0);
         event.setQuantity(500L);
@@ -56,6 +58,7 @@ class EventTest {
         
         // Verify all fields are reset
         assertEquals(0, event.getId());
+        assertEquals(SymbolRegistry.NO_SYMBOL, event.getSymbolId());
         assertNull(event.getSymbol());
         assertEquals(0.0, event.getPrice());
         assertEquals(0, event.getQuantity());
@@ -67,6 +70,7 @@ class EventTest {
     void testEventCopyFrom() {
         Event sourceEvent = new Event();
         sourceEvent.setId(456L);
+        sourceEvent.setSymbolId(3);
         sourceEvent.setSymbol("GOOGL");
         sourceEvent.setPrice(2500.0);
         sourceEvent.setQuantity(200L);
@@ -76,6 +80,7 @@ class EventTest {
         event.copyFrom(sourceEvent);
         
         assertEquals(456L, event.getId());
+        assertEquals(3, event.getSymbolId());
         assertEquals("GOOGL", event.getSymbol());
         assertEquals(2500.0, event.getPrice());
         assertEquals(200L, event.getQuantity());
@@ -104,9 +109,10 @@ class EventTest {
     
     @Test
     void testEventTypes() {
-        assertEquals(3, Event.EventType.values().length);
+        assertEquals(4, Event.EventType.values().length);
         assertNotNull(Event.EventType.valueOf("TRADE"));
         assertNotNull(Event.EventType.valueOf("QUOTE"));
         assertNotNull(Event.EventType.valueOf("ORDER"));
+        assertNotNull(Event.EventType.valueOf("SNAPSHOT"));
     }
 }
\ No newline at end of file
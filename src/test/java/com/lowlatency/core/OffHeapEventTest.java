@@ -0,0 +1,131 @@
+package com.lowlatency.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapEventTest {
+    
+    private SymbolRegistry registry;
+    private OffHeapEventFactory factory;
+    private Event event;
+    
+    @BeforeEach
+    void setUp() {
+        registry = new SymbolRegistry(16);
+        factory = new OffHeapEventFactory(4, registry);
+        event = factory.newInstance();
+    }
+    
+    @Test
+    void testEventCreation() {
+        assertEquals(0, event.getId());
+        assertEquals(SymbolRegistry.NO_SYMBOL, event.getSymbolId());
+        assertNull(event.getSymbol());
+        assertEquals(0.0, event.getPrice());
+        assertEquals(0, event.getQuantity());
+        assertEquals(0, event.getTimestamp());
+        assertNull(event.getType());
+    }
+    
+    @Test
+    void testEventSettersAndGetters() {
+        event.setId(123L);
+        event.setSymbol("AAPL");
+        event.setPrice(150.50);
+        event.setQuantity(1000L);
+        event.setTimestamp(98765L);
+        event.setType(Event.EventType.TRADE);
+        
+        assertEquals(123L, event.getId());
+        assertEquals(registry.lookup("AAPL"), event.getSymbolId());
+        assertEquals("AAPL", event.getSymbol());
+        assertEquals(150.50, event.getPrice());
+        assertEquals(1000L, event.getQuantity());
+        assertEquals(98765L, event.getTimestamp());
+        assertEquals(Event.EventType.TRADE, event.getType());
+    }
+    
+    @Test
+    void testAssignSymbol() {
+        int id = registry.register("MSFT");
+        event.assignSymbol(id, "MSFT");
+        
+        assertEquals(id, event.getSymbolId());
+        assertEquals("MSFT", event.getSymbol());
+    }
+    
+    @Test
+    void testSlotsDoNotOverlap() {
+        Event second = factory.newInstance();
+        event.setId(1L);
+        event.setPrice(10.0);
+        second.setId(2L);
+        second.setPrice(20.0);
+        
+        assertEquals(1L, event.getId());
+        assertEquals(10.0, event.getPrice());
+        assertEquals(2L, second.getId());
+        assertEquals(20.0, second.getPrice());
+    }
+    
+    @Test
+    void testEventReset() {
+        event.setId(123L);
+        event.setSymbol("MSFT");
+        event.setPrice(300.0);
+        event.setQuantity(500L);
+        event.setTimestamp(System.nanoTime());
+        event.setType(Event.EventType.QUOTE);
+        
+        event.reset();
+        
+        assertEquals(0, event.getId());
+        assertEquals(SymbolRegistry.NO_SYMBOL, event.getSymbolId());
+        assertNull(event.getSymbol());
+        assertEquals(0.0, event.getPrice());
+        assertEquals(0, event.getQuantity());
+        assertEquals(0, event.getTimestamp());
+        assertNull(event.getType());
+    }
+    
+    @Test
+    void testCopyFromHeapEvent() {
+        Event source = new Event();
+        source.setId(456L);
+        source.assignSymbol(registry.register("GOOGL"), "GOOGL");
+        source.setPrice(2500.0);
+        source.setQuantity(200L);
+        source.setTimestamp(12345L);
+        source.setType(Event.EventType.ORDER);
+        
+        event.copyFrom(source);
+        
+        assertEquals(456L, event.getId());
+        assertEquals("GOOGL", event.getSymbol());
+        assertEquals(2500.0, event.getPrice());
+        assertEquals(200L, event.getQuantity());
+        assertEquals(12345L, event.getTimestamp());
+        assertEquals(Event.EventType.ORDER, event.getType());
+    }
+    
+    @Test
+    void testFactoryCapacity() {
+        for (int i = 1; i < 4; i++) {
+            assertNotNull(factory.newInstance());
+        }
+        assertThrows(IllegalStateException.class, () -> factory.newInstance());
+    }
+    
+    @Test
+    void testEventToString() {
+        event.setId(789L);
+        event.setSymbol("TSLA");
+        event.setType(Event.EventType.TRADE);
+        
+        String eventString = event.toString();
+        assertTrue(eventString.contains("789"));
+        assertTrue(eventString.contains("TSLA"));
+        assertTrue(eventString.contains("TRADE"));
+    }
+}
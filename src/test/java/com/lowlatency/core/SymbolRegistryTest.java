@@ -0,0 +1,114 @@
+package com.lowlatency.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class SymbolRegistryTest {
+    
+    private SymbolRegistry registry;
+    
+    @BeforeEach
+    void setUp() {
+        registry = new SymbolRegistry(16);
+    }
+    
+    @Test
+    void testDenseIds() {
+        assertEquals(0, registry.register("AAPL"));
+        assertEquals(1, registry.register("MSFT"));
+        assertEquals(2, registry.register("GOOGL"));
+        assertEquals(3, registry.size());
+        assertEquals("MSFT", registry.symbol(1));
+    }
+    
+    @Test
+    void testRegisterIsIdempotent() {
+        int id = registry.register("AAPL");
+        assertEquals(id, registry.register("AAPL"));
+        assertEquals(id, registry.register(new StringBuilder("AAPL")));
+        assertEquals(1, registry.size());
+    }
+    
+    @Test
+    void testLookupCharSequence() {
+        int id = registry.register("TSLA");
+        StringBuilder sb = new StringBuilder("TSLA");
+        assertEquals(id, registry.lookup(sb));
+        assertEquals(SymbolRegistry.NO_SYMBOL, registry.lookup("NFLX"));
+    }
+    
+    @Test
+    void testLookupByteSlice() {
+        int id = registry.register("NVDA");
+        byte[] packet = "xxNVDAyy".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(id, registry.lookup(packet, 2, 4));
+        assertEquals(SymbolRegistry.NO_SYMBOL, registry.lookup(packet, 0, 4));
+    }
+    
+    @Test
+    void testResolveRegistersOnce() {
+        int id = registry.resolve("META");
+        assertEquals(id, registry.resolve("META"));
+        assertEquals(1, registry.size());
+    }
+    
+    @Test
+    void testCapacityLimit() {
+        for (int i = 0; i < 16; i++) {
+            registry.register("SYM" + i);
+        }
+        assertThrows(IllegalStateException.class, () -> registry.register("OVERFLOW"));
+        // Existing symbols still resolve when full
+        assertEquals(5, registry.register("SYM5"));
+        for (int i = 0; i < 16; i++) {
+            assertEquals(i, registry.lookup("SYM" + i));
+        }
+    }
+    
+    @Test
+    void testUnknownId() {
+        assertNull(registry.symbol(0));
+        assertNull(registry.symbol(SymbolRegistry.NO_SYMBOL));
+    }
+    
+    @Test
+    void testConcurrentResolve() throws Exception {
+        SymbolRegistry shared = new SymbolRegistry(64);
+        int threadCount = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<int[]>> results = new ArrayList<>();
+        
+        for (int t = 0; t < threadCount; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int[] ids = new int[64];
+                for (int i = 0; i < 64; i++) {
+                    String symbol = "S" + i;
+                    ids[i] = shared.resolve(symbol);
+                    assertEquals(symbol, shared.symbol(ids[i]));
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+        
+        // get() rethrows a worker's failed assertion; every thread must see the same ids
+        int[] expected = results.get(0).get(10, TimeUnit.SECONDS);
+        for (Future<int[]> result : results) {
+            assertArrayEquals(expected, result.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        
+        assertEquals(64, shared.size());
+    }
+}
@@ -0,0 +1,183 @@
+package com.lowlatency.journal;
+
+import com.lowlatency.core.Event;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+class EventJournalTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private static Event newEvent(int symbolId, String symbol, long orderId) {
+        Event event = new Event();
+        event.assignSymbol(symbolId, symbol);
+        event.setPrice(100.0 + orderId * 0.01);
+        event.setQuantity(orderId * 10);
+        event.setTimestamp(1_000 + orderId);
+        event.setType(Event.EventType.ORDER);
+        event.setOrderId(orderId);
+        event.setSide(orderId % 2 == 0 ? Event.Side.BUY : Event.Side.SELL);
+        event.setAction(Event.OrderAction.NEW);
+        return event;
+    }
+    
+    private static long segmentCount(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+    
+    @Test
+    void testRoundTrip() throws IOException {
+        try (EventJournal journal = EventJournal.open(tempDir)) {
+            journal.onEvent(newEvent(0, "AAPL", 1), 0, false);
+            journal.onEvent(newEvent(1, "MSFT", 2), 1, false);
+            
+            Event quote = new Event();
+            quote.setType(Event.EventType.QUOTE);
+            journal.onEvent(quote, 2, true);
+            assertEquals(3, journal.getJournaledCount());
+        }
+        
+        try (JournalReader reader = JournalReader.open(tempDir)) {
+            Event event = new Event();
+            assertTrue(reader.next(event));
+            assertEquals(newEvent(0, "AAPL", 1).toString(), event.toString());
+            assertTrue(reader.next(event));
+            assertEquals("MSFT", event.getSymbol());
+            assertEquals(1, event.getSymbolId());
+            assertEquals(Event.Side.BUY, event.getSide());
+            assertEquals(1, event.getId());
+            assertTrue(reader.next(event));
+            assertEquals(Event.EventType.QUOTE, event.getType());
+            assertNull(event.getSymbol());
+            assertNull(event.getSide());
+            assertNull(event.getAction());
+            assertFalse(reader.next(event));
+            assertEquals(3, reader.getEventCount());
+        }
+    }
+    
+    @Test
+    void testRollsSegmentsAndResumesAfterReopen() throws IOException {
+        try (EventJournal journal = EventJournal.open(tempDir, 4096, false)) {
+            for (int i = 0; i < 500; i++) {
+                journal.onEvent(newEvent(i % 4, "SYM" + (i % 4), i), i, i % 16 == 15);
+            }
+        }
+        assertTrue(segmentCount(tempDir) > 5);
+        
+        // Reopen appends after the last record and defines its symbols again
+        try (EventJournal journal = EventJournal.open(tempDir, 4096, true)) {
+            for (int i = 500; i < 600; i++) {
+                journal.onEvent(newEvent(i % 4, "SYM" + (i % 4), i), i, true);
+            }
+        }
+        
+        try (JournalReader reader = JournalReader.open(tempDir)) {
+            Event event = new Event();
+            for (int i = 0; i < 600; i++) {
+                assertTrue(reader.next(event), "missing event " + i);
+                assertEquals(i, event.getOrderId());
+                assertEquals("SYM" + (i % 4), event.getSymbol());
+            }
+            assertFalse(reader.next(event));
+        }
+    }
+    
+    @Test
+    void testRestartWithDifferentSymbolIds() throws IOException {
+        try (EventJournal journal = EventJournal.open(tempDir)) {
+            journal.onEvent(newEvent(0, "AAPL", 1), 0, true);
+        }
+        // A fresh registry hands out IDs in a different order after the restart
+        try (EventJournal journal = EventJournal.open(tempDir)) {
+            journal.onEvent(newEvent(0, "MSFT", 2), 1, false);
+            journal.onEvent(newEvent(1, "AAPL", 3), 2, true);
+        }
+        
+        try (JournalReader reader = JournalReader.open(tempDir)) {
+            Event event = new Event();
+            assertTrue(reader.next(event));
+            assertEquals("AAPL", event.getSymbol());
+            assertTrue(reader.next(event));
+            assertEquals("MSFT", event.getSymbol());
+            assertEquals(0, event.getSymbolId());
+            assertTrue(reader.next(event));
+            assertEquals("AAPL", event.getSymbol());
+            assertEquals(1, event.getSymbolId());
+            assertFalse(reader.next(event));
+        }
+    }
+    
+    @Test
+    void testRestartsReuseTheEmptyNextSegment() throws IOException {
+        for (int restart = 0; restart < 5; restart++) {
+            try (EventJournal journal = EventJournal.open(tempDir, 4096, true)) {
+                journal.onEvent(newEvent(0, "AAPL", restart), restart, true);
+            }
+            // The segment being written plus, if the preparer got to it before close, the next one
+            assertTrue(segmentCount(tempDir) <= 2, "restart " + restart + " added a segment");
+        }
+        
+        try (JournalReader reader = JournalReader.open(tempDir)) {
+            Event event = new Event();
+            for (int i = 0; i < 5; i++) {
+                assertTrue(reader.next(event), "missing event " + i);
+                assertEquals(i, event.getOrderId());
+            }
+            assertFalse(reader.next(event));
+        }
+    }
+    
+    @Test
+    void testNonAsciiSymbolRoundTrip() throws IOException {
+        try (EventJournal journal = EventJournal.open(tempDir)) {
+            journal.onEvent(newEvent(0, "株式€", 1), 0, false);
+            journal.onEvent(newEvent(1, "ÄÖÜ", 2), 1, true);
+        }
+        
+        try (JournalReader reader = JournalReader.open(tempDir)) {
+            Event event = new Event();
+            assertTrue(reader.next(event));
+            assertEquals("株式€", event.getSymbol());
+            assertTrue(reader.next(event));
+            assertEquals("ÄÖÜ", event.getSymbol());
+            assertFalse(reader.next(event));
+        }
+    }
+    
+    @Test
+    void testSkipThrough() throws IOException {
+        try (EventJournal journal = EventJournal.open(tempDir)) {
+            journal.skipThrough(4);
+            for (int i = 0; i < 10; i++) {
+                journal.onEvent(newEvent(0, "AAPL", i), i, i == 9);
+            }
+            assertEquals(5, journal.getJournaledCount());
+        }
+        
+        try (JournalReader reader = JournalReader.open(tempDir)) {
+            assertEquals(2, reader.skip(2));
+            Event[] batch = {new Event(), new Event(), new Event(), new Event()};
+            assertEquals(3, reader.read(batch));
+            assertEquals(7, batch[0].getOrderId());
+            assertEquals(9, batch[2].getOrderId());
+            assertEquals("AAPL", batch[2].getSymbol());
+        }
+    }
+    
+    @Test
+    void testEmptyJournal() throws IOException {
+        try (JournalReader reader = JournalReader.open(tempDir.resolve("missing"))) {
+            assertFalse(reader.next(new Event()));
+        }
+        assertThrows(IllegalArgumentException.class, () -> EventJournal.open(tempDir, 1024, false));
+    }
+}
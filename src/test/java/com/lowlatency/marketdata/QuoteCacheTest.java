@@ -0,0 +1,107 @@
+package com.lowlatency.marketdata;
+
+import com.lowlatency.core.Event;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+class QuoteCacheTest {
+    
+    private QuoteCache cache;
+    private Quote quote;
+    
+    @BeforeEach
+    void setUp() {
+        cache = new QuoteCache(4);
+        quote = new Quote();
+    }
+    
+    private Event quoteEvent(int symbolId, Event.Side side, double price, long size, long sequence) {
+        Event event = new Event();
+        event.setId(sequence);
+        event.assignSymbol(symbolId, "SYM" + symbolId);
+        event.setType(Event.EventType.QUOTE);
+        event.setSide(side);
+        event.setPrice(price);
+        event.setQuantity(size);
+        event.setTimestamp(1000 + sequence);
+        return event;
+    }
+    
+    @Test
+    void testNeverQuoted() {
+        assertFalse(cache.read(0, quote));
+        assertFalse(cache.read(7, quote));
+        assertEquals(0, cache.getUpdateCount(0));
+    }
+    
+    @Test
+    void testOneSidedUpdates() {
+        cache.onQuote(quoteEvent(1, Event.Side.BUY, 99.5, 100, 1));
+        cache.onQuote(quoteEvent(1, Event.Side.SELL, 100.5, 200, 2));
+        
+        assertTrue(cache.read(1, quote));
+        assertEquals(1, quote.getSymbolId());
+        assertEquals(99.5, quote.getBidPrice());
+        assertEquals(100, quote.getBidSize());
+        assertEquals(100.5, quote.getAskPrice());
+        assertEquals(200, quote.getAskSize());
+        assertEquals(2, quote.getSequence());
+        assertEquals(1002, quote.getTimestamp());
+        assertEquals(100.0, quote.getMid());
+        assertEquals(1.0, quote.getSpread());
+        assertEquals(2, cache.getUpdateCount(1));
+    }
+    
+    @Test
+    void testQuoteWithoutSideIgnored() {
+        cache.onQuote(quoteEvent(0, null, 10.0, 1, 1));
+        assertFalse(cache.read(0, quote));
+    }
+    
+    @Test
+    void testTwoSidedUpdate() {
+        cache.update(2, 10.0, 5, 10.5, 6, 123L, 9L);
+        assertTrue(cache.read(2, quote));
+        assertEquals(10.0, quote.getBidPrice());
+        assertEquals(10.5, quote.getAskPrice());
+        assertEquals(9L, quote.getSequence());
+    }
+    
+    @Test
+    void testConcurrentReadersSeeWholeQuotes() throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[3];
+        
+        // Each update writes bid = n, ask = n + 1, sizes = n: a mix of generations is a torn read
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                Quote snapshot = new Quote();
+                while (running.get()) {
+                    if (cache.read(0, snapshot)) {
+                        long n = snapshot.getSequence();
+                        if (snapshot.getBidPrice() != n || snapshot.getAskPrice() != n + 1 
+                                || snapshot.getBidSize() != n || snapshot.getAskSize() != n) {
+                            failure.set("Torn read: " + snapshot);
+                        }
+                    }
+                }
+            });
+            readers[r].start();
+        }
+        
+        for (int n = 1; n <= 200_000; n++) {
+            cache.update(0, n, n, n + 1, n, n, n);
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        
+        assertNull(failure.get());
+        assertEquals(200_000, cache.getUpdateCount(0));
+    }
+}
@@ -0,0 +1,108 @@
+package com.lowlatency.marketdata;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+class TradeAnalyticsTest {
+    
+    private TradeAnalytics analytics;
+    private TradeStats stats;
+    
+    @BeforeEach
+    void setUp() {
+        analytics = new TradeAnalytics(4);
+        stats = new TradeStats();
+    }
+    
+    @Test
+    void testNoTrades() {
+        assertFalse(analytics.read(0, stats));
+        assertFalse(analytics.read(-1, stats));
+        assertFalse(analytics.read(4, stats));
+        assertTrue(Double.isNaN(stats.getVwap()));
+    }
+    
+    @Test
+    void testOhlcVolumeVwap() {
+        analytics.onTrade(1, 100.0, 10);
+        analytics.onTrade(1, 105.0, 20);
+        analytics.onTrade(1, 95.0, 30);
+        analytics.onTrade(1, 101.0, 40);
+        
+        assertTrue(analytics.read(1, stats));
+        assertEquals(1, stats.getSymbolId());
+        assertEquals(100.0, stats.getOpen());
+        assertEquals(105.0, stats.getHigh());
+        assertEquals(95.0, stats.getLow());
+        assertEquals(101.0, stats.getClose());
+        assertEquals(100, stats.getVolume());
+        assertEquals(4, stats.getTradeCount());
+        assertEquals((1000.0 + 2100.0 + 2850.0 + 4040.0) / 100, stats.getVwap(), 1e-9);
+    }
+    
+    @Test
+    void testSymbolsIndependent() {
+        analytics.onTrade(0, 10.0, 1);
+        analytics.onTrade(2, 20.0, 2);
+        
+        assertTrue(analytics.read(0, stats));
+        assertEquals(1, stats.getVolume());
+        assertFalse(analytics.read(1, stats));
+        assertTrue(analytics.read(2, stats));
+        assertEquals(20.0, stats.getClose());
+    }
+    
+    @Test
+    void testInvalidTradesIgnored() {
+        analytics.onTrade(0, 10.0, 0);
+        analytics.onTrade(9, 10.0, 5);
+        assertFalse(analytics.read(0, stats));
+    }
+    
+    @Test
+    void testReset() {
+        analytics.onTrade(0, 10.0, 1);
+        analytics.reset(0);
+        assertFalse(analytics.read(0, stats));
+        
+        analytics.onTrade(0, 12.0, 3);
+        assertTrue(analytics.read(0, stats));
+        assertEquals(12.0, stats.getOpen());
+        assertEquals(3, stats.getVolume());
+    }
+    
+    @Test
+    void testConcurrentReadsAreConsistent() throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        
+        // Every trade has quantity 1 at price == trade number, so a consistent snapshot
+        // always has volume == count, close == count and notional == count * (count + 1) / 2
+        Thread reader = new Thread(() -> {
+            TradeStats snapshot = new TradeStats();
+            while (running.get()) {
+                if (analytics.read(0, snapshot)) {
+                    long n = snapshot.getTradeCount();
+                    if (snapshot.getVolume() != n || snapshot.getClose() != n 
+                            || snapshot.getNotional() != n * (n + 1) / 2.0) {
+                        failure.set("Torn read: " + snapshot);
+                    }
+                }
+            }
+        });
+        reader.start();
+        
+        for (int i = 1; i <= 200_000; i++) {
+            analytics.onTrade(0, i, 1);
+        }
+        running.set(false);
+        reader.join();
+        
+        assertNull(failure.get());
+        assertTrue(analytics.read(0, stats));
+        assertEquals(200_000, stats.getTradeCount());
+    }
+}
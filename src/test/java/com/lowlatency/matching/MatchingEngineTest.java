@@ -0,0 +1,81 @@
+package com.lowlatency.matching;
+
+import com.lowlatency.core.Event;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+
+class MatchingEngineTest {
+    
+    private MatchingEngine matchingEngine;
+    private List<String> trades;
+    
+    @BeforeEach
+    void setUp() {
+        trades = new ArrayList<>();
+        matchingEngine = new MatchingEngine(8, (trade, restingOrderId) -> trades.add(
+            trade.getSymbol() + ":" + trade.getOrderId() + "x" + restingOrderId + "@" + trade.getPrice() + "/" + trade.getQuantity()
+        ));
+    }
+    
+    private Event order(int symbolId, long orderId, Event.Side side, Event.OrderAction action, double price, long quantity) {
+        Event event = new Event();
+        event.assignSymbol(symbolId, "SYM" + symbolId);
+        event.setType(Event.EventType.ORDER);
+        event.setOrderId(orderId);
+        event.setSide(side);
+        event.setAction(action);
+        event.setPrice(price);
+        event.setQuantity(quantity);
+        event.setTimestamp(System.nanoTime());
+        return event;
+    }
+    
+    @Test
+    void testCrossEmitsTrade() {
+        assertEquals(OrderBook.Result.ACCEPTED, matchingEngine.onOrder(order(1, 1, Event.Side.SELL, Event.OrderAction.NEW, 100.05, 10)));
+        assertEquals(OrderBook.Result.FILLED, matchingEngine.onOrder(order(1, 2, Event.Side.BUY, Event.OrderAction.NEW, 100.10, 4)));
+        
+        assertEquals(List.of("SYM1:2x1@100.05/4"), trades);
+        assertEquals(1, matchingEngine.getTradeCount());
+        assertEquals(matchingEngine.toTicks(100.05), matchingEngine.getOrderBook(1).getBestAsk());
+    }
+    
+    @Test
+    void testBooksArePerSymbol() {
+        matchingEngine.onOrder(order(1, 1, Event.Side.SELL, Event.OrderAction.NEW, 100.0, 10));
+        matchingEngine.onOrder(order(2, 2, Event.Side.BUY, Event.OrderAction.NEW, 100.0, 10));
+        
+        assertTrue(trades.isEmpty());
+        assertNull(matchingEngine.getOrderBook(3));
+    }
+    
+    @Test
+    void testCancelAndReplace() {
+        matchingEngine.onOrder(order(0, 1, Event.Side.BUY, Event.OrderAction.NEW, 99.0, 10));
+        assertEquals(OrderBook.Result.CANCELLED, matchingEngine.onOrder(order(0, 1, null, Event.OrderAction.CANCEL, 0, 0)));
+        assertEquals(OrderBook.Result.REJECTED_UNKNOWN_ORDER, matchingEngine.onOrder(order(0, 1, null, Event.OrderAction.CANCEL, 0, 0)));
+        
+        matchingEngine.onOrder(order(0, 2, Event.Side.BUY, Event.OrderAction.NEW, 99.0, 10));
+        matchingEngine.onOrder(order(0, 3, Event.Side.SELL, Event.OrderAction.NEW, 101.0, 10));
+        assertEquals(OrderBook.Result.FILLED, matchingEngine.onOrder(order(0, 3, null, Event.OrderAction.REPLACE, 99.0, 10)));
+        
+        assertEquals(List.of("SYM0:3x2@99.0/10"), trades);
+        assertEquals(1, matchingEngine.getRejectCount());
+    }
+    
+    @Test
+    void testInvalidOrdersRejected() {
+        assertEquals(OrderBook.Result.REJECTED_INVALID, matchingEngine.onOrder(order(-1, 1, Event.Side.BUY, null, 1.0, 1)));
+        assertEquals(OrderBook.Result.REJECTED_INVALID, matchingEngine.onOrder(order(8, 1, Event.Side.BUY, null, 1.0, 1)));
+        assertEquals(OrderBook.Result.REJECTED_INVALID, matchingEngine.onOrder(order(0, 1, null, null, 1.0, 1)));
+        assertEquals(3, matchingEngine.getRejectCount());
+    }
+    
+    @Test
+    void testNullActionIsNew() {
+        assertEquals(OrderBook.Result.ACCEPTED, matchingEngine.onOrder(order(0, 1, Event.Side.BUY, null, 1.0, 1)));
+    }
+}
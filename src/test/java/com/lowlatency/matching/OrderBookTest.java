@@ -0,0 +1,232 @@
+package com.lowlatency.matching;
+
+import com.lowlatency.core.Event;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+class OrderBookTest {
+    
+    private OrderBook book;
+    private List<long[]> fills;
+    private OrderBook.FillHandler fillHandler;
+    
+    @BeforeEach
+    void setUp() {
+        book = new OrderBook(16, 8);
+        fills = new ArrayList<>();
+        fillHandler = (restingOrderId, priceTicks, quantity) -> fills.add(new long[]{restingOrderId, priceTicks, quantity});
+    }
+    
+    @Test
+    void testRestingOrdersBuildBook() {
+        assertEquals(OrderBook.Result.ACCEPTED, book.submit(1, Event.Side.BUY, 100, 10, fillHandler));
+        assertEquals(OrderBook.Result.ACCEPTED, book.submit(2, Event.Side.BUY, 101, 5, fillHandler));
+        assertEquals(OrderBook.Result.ACCEPTED, book.submit(3, Event.Side.SELL, 103, 7, fillHandler));
+        assertEquals(OrderBook.Result.ACCEPTED, book.submit(4, Event.Side.SELL, 102, 3, fillHandler));
+        
+        assertEquals(101, book.getBestBid());
+        assertEquals(5, book.getBestBidQuantity());
+        assertEquals(102, book.getBestAsk());
+        assertEquals(3, book.getBestAskQuantity());
+        assertEquals(2, book.getBidLevels());
+        assertEquals(2, book.getAskLevels());
+        assertEquals(4, book.getOrderCount());
+        assertTrue(fills.isEmpty());
+    }
+    
+    @Test
+    void testEmptyBook() {
+        assertEquals(OrderBook.NO_PRICE, book.getBestBid());
+        assertEquals(OrderBook.NO_PRICE, book.getBestAsk());
+        assertEquals(0, book.getBestBidQuantity());
+    }
+    
+    @Test
+    void testPriceTimePriority() {
+        book.submit(1, Event.Side.SELL, 100, 5, fillHandler);
+        book.submit(2, Event.Side.SELL, 100, 5, fillHandler);
+        book.submit(3, Event.Side.SELL, 99, 5, fillHandler);
+        
+        assertEquals(OrderBook.Result.FILLED, book.submit(10, Event.Side.BUY, 100, 12, fillHandler));
+        
+        assertEquals(3, fills.size());
+        assertArrayEquals(new long[]{3, 99, 5}, fills.get(0)); // better price first
+        assertArrayEquals(new long[]{1, 100, 5}, fills.get(1)); // then time priority
+        assertArrayEquals(new long[]{2, 100, 2}, fills.get(2));
+        assertEquals(100, book.getBestAsk());
+        assertEquals(3, book.getBestAskQuantity());
+        assertTrue(book.containsOrder(2));
+        assertFalse(book.containsOrder(1));
+    }
+    
+    @Test
+    void testPartialFillRestsRemainder() {
+        book.submit(1, Event.Side.BUY, 100, 4, fillHandler);
+        
+        assertEquals(OrderBook.Result.ACCEPTED, book.submit(2, Event.Side.SELL, 99, 10, fillHandler));
+        
+        assertEquals(1, fills.size());
+        assertArrayEquals(new long[]{1, 100, 4}, fills.get(0));
+        assertEquals(OrderBook.NO_PRICE, book.getBestBid());
+        assertEquals(99, book.getBestAsk());
+        assertEquals(6, book.getBestAskQuantity());
+    }
+    
+    @Test
+    void testNoCrossNoFill() {
+        book.submit(1, Event.Side.SELL, 101, 5, fillHandler);
+        assertEquals(OrderBook.Result.ACCEPTED, book.submit(2, Event.Side.BUY, 100, 5, fillHandler));
+        assertTrue(fills.isEmpty());
+    }
+    
+    @Test
+    void testCancel() {
+        book.submit(1, Event.Side.BUY, 100, 5, fillHandler);
+        book.submit(2, Event.Side.BUY, 100, 7, fillHandler);
+        book.submit(3, Event.Side.BUY, 100, 9, fillHandler);
+        
+        assertEquals(OrderBook.Result.CANCELLED, book.cancel(2));
+        assertEquals(14, book.getQuantityAt(Event.Side.BUY, 100));
+        assertEquals(OrderBook.Result.REJECTED_UNKNOWN_ORDER, book.cancel(2));
+        
+        book.cancel(1);
+        book.cancel(3);
+        assertEquals(OrderBook.NO_PRICE, book.getBestBid());
+        assertEquals(0, book.getOrderCount());
+        
+        // FIFO intact after unlinking from the middle
+        book.submit(4, Event.Side.BUY, 100, 1, fillHandler);
+        book.submit(5, Event.Side.BUY, 100, 1, fillHandler);
+        book.submit(6, Event.Side.SELL, 100, 2, fillHandler);
+        assertEquals(4, fills.get(0)[0]);
+        assertEquals(5, fills.get(1)[0]);
+    }
+    
+    @Test
+    void testReplaceReduceKeepsPriority() {
+        book.submit(1, Event.Side.SELL, 100, 10, fillHandler);
+        book.submit(2, Event.Side.SELL, 100, 10, fillHandler);
+        
+        assertEquals(OrderBook.Result.REDUCED, book.replace(1, 100, 4, fillHandler));
+        assertEquals(14, book.getQuantityAt(Event.Side.SELL, 100));
+        
+        book.submit(3, Event.Side.BUY, 100, 4, fillHandler);
+        assertArrayEquals(new long[]{1, 100, 4}, fills.get(0));
+    }
+    
+    @Test
+    void testReplacePriceLosesPriorityAndCanMatch() {
+        book.submit(1, Event.Side.BUY, 99, 10, fillHandler);
+        book.submit(2, Event.Side.SELL, 101, 5, fillHandler);
+        
+        assertEquals(OrderBook.Result.ACCEPTED, book.replace(1, 101, 10, fillHandler));
+        
+        assertArrayEquals(new long[]{2, 101, 5}, fills.get(0));
+        assertEquals(101, book.getBestBid());
+        assertEquals(5, book.getBestBidQuantity());
+        assertEquals(0, book.getQuantityAt(Event.Side.BUY, 99));
+    }
+    
+    @Test
+    void testRejects() {
+        assertEquals(OrderBook.Result.REJECTED_INVALID, book.submit(1, null, 100, 5, fillHandler));
+        assertEquals(OrderBook.Result.REJECTED_INVALID, book.submit(1, Event.Side.BUY, 100, 0, fillHandler));
+        book.submit(1, Event.Side.BUY, 100, 5, fillHandler);
+        assertEquals(OrderBook.Result.REJECTED_DUPLICATE, book.submit(1, Event.Side.BUY, 100, 5, fillHandler));
+        assertEquals(OrderBook.Result.REJECTED_UNKNOWN_ORDER, book.replace(99, 100, 5, fillHandler));
+    }
+    
+    @Test
+    void testCapacityLimits() {
+        OrderBook small = new OrderBook(4, 2);
+        assertEquals(OrderBook.Result.ACCEPTED, small.submit(1, Event.Side.BUY, 100, 1, fillHandler));
+        assertEquals(OrderBook.Result.ACCEPTED, small.submit(2, Event.Side.BUY, 101, 1, fillHandler));
+        // Third price level on the same side
+        assertEquals(OrderBook.Result.REJECTED_BOOK_FULL, small.submit(3, Event.Side.BUY, 102, 1, fillHandler));
+        assertEquals(OrderBook.Result.ACCEPTED, small.submit(4, Event.Side.BUY, 101, 1, fillHandler));
+        assertEquals(OrderBook.Result.ACCEPTED, small.submit(5, Event.Side.SELL, 110, 1, fillHandler));
+        // Node pool exhausted
+        assertEquals(OrderBook.Result.REJECTED_BOOK_FULL, small.submit(6, Event.Side.SELL, 110, 1, fillHandler));
+        
+        // Freed nodes are reused
+        small.cancel(5);
+        assertEquals(OrderBook.Result.ACCEPTED, small.submit(7, Event.Side.SELL, 111, 1, fillHandler));
+    }
+    
+    @Test
+    void testReplaceIntoFullLadderKeepsOriginalOrder() {
+        OrderBook small = new OrderBook(8, 2);
+        small.submit(1, Event.Side.BUY, 100, 5, fillHandler);
+        small.submit(2, Event.Side.BUY, 101, 5, fillHandler);
+        small.submit(3, Event.Side.BUY, 101, 5, fillHandler);
+        
+        // 102 needs a third level, and 101 still holds order 3 after order 2 leaves it
+        assertEquals(OrderBook.Result.REJECTED_BOOK_FULL, small.replace(2, 102, 5, fillHandler));
+        assertTrue(small.containsOrder(2));
+        assertEquals(10, small.getQuantityAt(Event.Side.BUY, 101));
+        assertEquals(3, small.getOrderCount());
+        
+        // Order 1 is alone at 100, so moving it frees the level it needs
+        assertEquals(OrderBook.Result.ACCEPTED, small.replace(1, 99, 6, fillHandler));
+        assertEquals(6, small.getQuantityAt(Event.Side.BUY, 99));
+        assertEquals(0, small.getQuantityAt(Event.Side.BUY, 100));
+        assertTrue(fills.isEmpty());
+    }
+    
+    @Test
+    void testPartialFillWithoutRoomToRest() {
+        OrderBook small = new OrderBook(2, 1);
+        small.submit(1, Event.Side.SELL, 100, 5, fillHandler);
+        small.submit(2, Event.Side.BUY, 98, 5, fillHandler);
+        
+        // Fills 5 at 100, but the bid ladder has no level for 101
+        assertEquals(OrderBook.Result.PARTIALLY_FILLED_REST_REJECTED,
+                small.submit(3, Event.Side.BUY, 101, 8, fillHandler));
+        assertEquals(1, fills.size());
+        assertFalse(small.containsOrder(3));
+        assertEquals(98, small.getBestBid());
+    }
+    
+    @Test
+    void testChurnReusesNodes() {
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(OrderBook.Result.ACCEPTED, book.submit(i * 2L, Event.Side.SELL, 100 + (i % 5), 3, fillHandler));
+            assertEquals(OrderBook.Result.FILLED, book.submit(i * 2L + 1, Event.Side.BUY, 105, 3, fillHandler));
+        }
+        assertEquals(0, book.getOrderCount());
+        assertEquals(10_000, fills.size());
+    }
+    
+    @Test
+    void testSnapshotKeepsPriority() {
+        book.submit(1, Event.Side.BUY, 100, 10, fillHandler);
+        book.submit(2, Event.Side.BUY, 100, 20, fillHandler);
+        book.submit(3, Event.Side.BUY, 99, 5, fillHandler);
+        book.submit(4, Event.Side.SELL, 105, 7, fillHandler);
+        
+        ByteBuffer buffer = ByteBuffer.allocate(book.snapshotSize());
+        book.writeSnapshot(buffer);
+        assertFalse(buffer.hasRemaining());
+        buffer.flip();
+        
+        OrderBook restored = new OrderBook(16, 8);
+        restored.readSnapshot(buffer);
+        assertEquals(4, restored.getOrderCount());
+        assertEquals(100, restored.getBestBid());
+        assertEquals(30, restored.getBestBidQuantity());
+        assertEquals(105, restored.getBestAsk());
+        assertEquals(5, restored.getQuantityAt(Event.Side.BUY, 99));
+        
+        // Order 1 is still first in the queue
+        restored.submit(5, Event.Side.SELL, 100, 15, fillHandler);
+        assertEquals(1, fills.get(0)[0]);
+        assertEquals(2, fills.get(1)[0]);
+        
+        buffer.flip();
+        assertThrows(IllegalStateException.class, () -> restored.readSnapshot(buffer));
+    }
+}
@@ -0,0 +1,141 @@
+package com.lowlatency.pipeline;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+import com.lowlatency.core.Event;
+import com.lowlatency.core.LowLatencyEventFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class PipelineTest {
+    
+    private Disruptor<Event> disruptor;
+    
+    @AfterEach
+    void tearDown() {
+        if (disruptor != null) {
+            disruptor.halt();
+        }
+    }
+    
+    /** Records the last sequence it completed; optionally checks an upstream stage got there first */
+    private static class RecordingHandler implements EventHandler<Event> {
+        private final RecordingHandler upstream;
+        private final AtomicBoolean outOfOrder;
+        volatile long lastSequence = -1;
+        
+        RecordingHandler(RecordingHandler upstream, AtomicBoolean outOfOrder) {
+            this.upstream = upstream;
+            this.outOfOrder = outOfOrder;
+        }
+        
+        @Override
+        public void onEvent(Event event, long sequence, boolean endOfBatch) {
+            if (upstream != null && upstream.lastSequence < sequence) {
+                outOfOrder.set(true);
+            }
+            lastSequence = sequence;
+        }
+    }
+    
+    private Disruptor<Event> newDisruptor() {
+        disruptor = new Disruptor<>(new LowLatencyEventFactory(), 1024, DaemonThreadFactory.INSTANCE, 
+                ProducerType.SINGLE, new BlockingWaitStrategy());
+        return disruptor;
+    }
+    
+    private static void publish(RingBuffer<Event> ringBuffer, int count) {
+        for (int i = 0; i < count; i++) {
+            long sequence = ringBuffer.next();
+            ringBuffer.get(sequence).setId(sequence);
+            ringBuffer.publish(sequence);
+        }
+    }
+    
+    private static void awaitSequence(RecordingHandler handler, long sequence) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (handler.lastSequence < sequence && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStagesRunAfterTheirDependencies() throws InterruptedException {
+        AtomicBoolean outOfOrder = new AtomicBoolean();
+        RecordingHandler journal = new RecordingHandler(null, outOfOrder);
+        RecordingHandler engine = new RecordingHandler(journal, outOfOrder);
+        RecordingHandler replication = new RecordingHandler(engine, outOfOrder);
+        RecordingHandler egress = new RecordingHandler(engine, outOfOrder);
+        
+        Pipeline pipeline = Pipeline.fromSpec("journal > engine > replication, egress", 
+                Map.of("journal", journal, "replication", replication, "egress", egress));
+        assertEquals(4, pipeline.getStages().size());
+        assertEquals(List.of("engine"), pipeline.getStages().get(3).getAfter());
+        
+        Disruptor<Event> d = newDisruptor();
+        PipelineMonitor monitor = pipeline.wire(d, new EventHandler[] {engine}, false);
+        d.start();
+        publish(d.getRingBuffer(), 10_000);
+        awaitSequence(replication, 9_999);
+        awaitSequence(egress, 9_999);
+        
+        assertFalse(outOfOrder.get());
+        List<StageStats> stats = monitor.snapshot();
+        assertEquals(List.of("journal", "engine", "replication", "egress"), 
+                stats.stream().map(StageStats::getStageName).toList());
+        for (StageStats stage : stats) {
+            assertEquals(10_000, stage.getProcessed());
+            assertEquals(0, stage.getLag());
+            assertTrue(stage.getThroughput() > 0);
+        }
+        assertEquals(0, monitor.snapshot().get(0).getThroughput());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLagOfStalledStage() throws InterruptedException {
+        AtomicBoolean release = new AtomicBoolean();
+        EventHandler<Event> slow = (event, sequence, endOfBatch) -> {
+            while (!release.get()) {
+                Thread.onSpinWait();
+            }
+        };
+        RecordingHandler engine = new RecordingHandler(null, new AtomicBoolean());
+        
+        Disruptor<Event> d = newDisruptor();
+        PipelineMonitor monitor = Pipeline.builder()
+                .engineStage()
+                .stage("egress", List.of(Pipeline.ENGINE_STAGE), slow)
+                .build()
+                .wire(d, new EventHandler[] {engine}, false);
+        d.start();
+        publish(d.getRingBuffer(), 100);
+        awaitSequence(engine, 99);
+        
+        assertEquals(0, monitor.getLag(Pipeline.ENGINE_STAGE));
+        assertEquals(100, monitor.getLag("egress"));
+        assertThrows(IllegalArgumentException.class, () -> monitor.getLag("missing"));
+        release.set(true);
+    }
+    
+    @Test
+    void testInvalidDefinitions() {
+        EventHandler<Event> handler = (event, sequence, endOfBatch) -> { };
+        
+        assertThrows(IllegalArgumentException.class, () -> Pipeline.builder().stage("journal", handler).build());
+        assertThrows(IllegalArgumentException.class, () -> Pipeline.builder().stage("journal", handler).stage("journal", handler));
+        assertThrows(IllegalArgumentException.class, () -> Pipeline.builder().stage("egress", List.of("engine"), handler));
+        assertThrows(IllegalArgumentException.class, () -> Pipeline.builder().engineStage().stage("empty"));
+        assertThrows(IllegalArgumentException.class, () -> Pipeline.fromSpec("journal > engine", Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> Pipeline.fromSpec("engine > , egress", Map.of("egress", handler)));
+    }
+}
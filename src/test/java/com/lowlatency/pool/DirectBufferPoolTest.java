@@ -0,0 +1,207 @@
+package com.lowlatency.pool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import static org.junit.jupiter.api.Assertions.*;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class DirectBufferPoolTest {
+    
+    private DirectBufferPool pool;
+    
+    @BeforeEach
+    void setUp() {
+        pool = new DirectBufferPool(64, 4096, 64 * 1024, 1024 * 1024);
+    }
+    
+    @Test
+    void testAllocateRoundsUpToSizeClass() {
+        PooledBuffer pooled = pool.allocate(100);
+        ByteBuffer buffer = pooled.buffer();
+        
+        assertTrue(buffer.isDirect());
+        assertTrue(pooled.isPooled());
+        assertEquals(128, buffer.capacity());
+        assertEquals(0, buffer.position());
+        assertEquals(100, buffer.limit());
+        assertEquals(1, pooled.refCount());
+        assertEquals(64, pool.allocate(1).buffer().capacity());
+        assertEquals(4096, pool.allocate(4096).buffer().capacity());
+    }
+    
+    @Test
+    void testReleasedBlockIsReused() {
+        PooledBuffer first = pool.allocate(1000);
+        first.buffer().putLong(42L);
+        DirectBufferPoolStats stats = pool.stats();
+        assertEquals(64 * 1024, stats.getReservedBytes());
+        assertEquals(1024, stats.getUsedBytes());
+        assertEquals(1, stats.getRegions());
+        
+        assertTrue(first.release());
+        assertEquals(0, pool.stats().getUsedBytes());
+        
+        PooledBuffer second = pool.allocate(600);
+        assertSame(first, second);
+        assertEquals(600, second.buffer().limit());
+        assertEquals(64 * 1024, pool.stats().getReservedBytes());
+    }
+    
+    @Test
+    void testReferenceCounting() {
+        PooledBuffer pooled = pool.allocate(256);
+        assertSame(pooled, pooled.retain());
+        assertEquals(2, pooled.refCount());
+        
+        assertFalse(pooled.release());
+        assertEquals(256, pool.stats().getUsedBytes());
+        assertTrue(pooled.release());
+        assertEquals(0, pool.stats().getUsedBytes());
+        
+        assertThrows(IllegalStateException.class, pooled::release);
+        assertThrows(IllegalStateException.class, pooled::retain);
+    }
+    
+    @Test
+    void testOversizedAndOverReservationFallBackToUnpooled() {
+        PooledBuffer large = pool.allocate(10_000);
+        assertFalse(large.isPooled());
+        assertEquals(10_000, large.buffer().capacity());
+        assertEquals(10_000, pool.stats().getUnpooledBytes());
+        large.release();
+        assertEquals(0, pool.stats().getUnpooledBytes());
+        
+        // Two 4 KB regions of 64-byte blocks
+        DirectBufferPool small = new DirectBufferPool(64, 64, 4096, 8192);
+        List<PooledBuffer> held = new ArrayList<>();
+        for (int i = 0; i < 128; i++) {
+            held.add(small.allocate(64));
+        }
+        assertTrue(held.stream().allMatch(PooledBuffer::isPooled));
+        assertFalse(small.allocate(64).isPooled());
+        
+        DirectBufferPoolStats stats = small.stats();
+        assertEquals(8192, stats.getReservedBytes());
+        assertEquals(8192, stats.getUsedBytes());
+        assertEquals(128, stats.getPooledAllocations());
+        assertEquals(1, stats.getUnpooledAllocations());
+        assertEquals(1.0, stats.getUtilization());
+    }
+    
+    @Test
+    void testRegionTableGrowsOnDemand() {
+        // Effectively unbounded: nothing is sized from the cap up front
+        DirectBufferPool unbounded = new DirectBufferPool(64, 4096, 4096, Long.MAX_VALUE);
+        List<PooledBuffer> held = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            held.add(unbounded.allocate(4096));
+        }
+        assertTrue(held.stream().allMatch(PooledBuffer::isPooled));
+        assertEquals(20, unbounded.stats().getRegions());
+        assertEquals(20 * 4096, unbounded.stats().getReservedBytes());
+        
+        held.forEach(PooledBuffer::release);
+        unbounded.trimThreadCache();
+        for (int i = 0; i < 20; i++) {
+            assertTrue(held.contains(unbounded.allocate(4096)));
+        }
+        assertEquals(20, unbounded.stats().getRegions());
+    }
+    
+    @Test
+    void testConcurrentAllocateAndCrossThreadRelease() throws InterruptedException {
+        DirectBufferPool shared = new DirectBufferPool(64, 1024, 16 * 1024, 256 * 1024);
+        int threadCount = 4;
+        BlockingQueue<PooledBuffer> handoff = new ArrayBlockingQueue<>(1024);
+        AtomicInteger corrupted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount * 2);
+        CountDownLatch done = new CountDownLatch(threadCount * 2);
+        
+        for (int t = 0; t < threadCount; t++) {
+            long owner = t;
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < 20_000; i++) {
+                        PooledBuffer pooled = shared.allocate(64 << (i % 5));
+                        ByteBuffer buffer = pooled.buffer();
+                        buffer.putLong(0, owner);
+                        buffer.putLong(8, i);
+                        if (buffer.getLong(0) != owner || buffer.getLong(8) != i) {
+                            corrupted.incrementAndGet();
+                        }
+                        handoff.put(pooled);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            // Releases happen on other threads than the allocations
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < 20_000; i++) {
+                        handoff.take().release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        
+        assertEquals(0, corrupted.get());
+        DirectBufferPoolStats stats = shared.stats();
+        assertEquals(0, stats.getUsedBytes());
+        assertEquals(threadCount * 20_000L, stats.getPooledAllocations() + stats.getUnpooledAllocations());
+        assertTrue(stats.getReservedBytes() <= 256 * 1024);
+    }
+    
+    @Test
+    void testAllocateReleaseDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        // Carves a region per size class; that allocates the block handles once
+        for (int i = 0; i < 20_000; i++) {
+            pool.allocate(64 << (i & 3)).release();
+        }
+        
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            pool.allocate(64 << (i & 3)).release();
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+    
+    @Test
+    void testTrimThreadCacheSharesBlocks() throws InterruptedException {
+        PooledBuffer pooled = pool.allocate(2048);
+        pooled.release();
+        pool.trimThreadCache();
+        
+        PooledBuffer[] fromOtherThread = new PooledBuffer[1];
+        Thread other = new Thread(() -> fromOtherThread[0] = pool.allocate(2048));
+        other.start();
+        other.join();
+        
+        assertSame(pooled, fromOtherThread[0]);
+        assertEquals(1, pool.stats().getRegions());
+    }
+}
@@ -3,6 +3,7 @@ package com.lowlatency.pool;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import static org.junit.jupiter.api.Assertions.*;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
@@ -132,6 +133,161 @@ class ObjectPoolTest {
         assertTrue(stringBuilderPool.size() <= stringBuilderPool.getMaxSize());
     }
     
+    @Test
+    void testBoundHoldsUnderConcurrentRelease() throws InterruptedException {
+        ObjectPool<StringBuilder> pool = new ObjectPool<>(StringBuilder::new, 0, 100, 8);
+        int threadCount = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threadCount);
+        
+        for (int i = 0; i < threadCount; i++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < 1000; j++) {
+                        pool.release(new StringBuilder());
+                        if (j % 3 == 0) {
+                            pool.release(pool.acquire());
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        
+        assertEquals(100, pool.size());
+        for (int i = 0; i < 100; i++) {
+            pool.acquire();
+        }
+        assertEquals(0, pool.size());
+    }
+    
+    @Test
+    void testStripesAreBoundedByMaxSize() {
+        assertEquals(1, new ObjectPool<>(StringBuilder::new, 0, 1, 16).getStripeCount());
+        assertEquals(4, new ObjectPool<>(StringBuilder::new, 0, 10, 6).getStripeCount());
+        
+        // Every slot is reachable from any thread, whichever stripe it sits in
+        ObjectPool<StringBuilder> pool = new ObjectPool<>(StringBuilder::new, 10, 10, 4);
+        List<StringBuilder> acquired = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            acquired.add(pool.acquire());
+        }
+        assertEquals(0, pool.size());
+        acquired.forEach(pool::release);
+        assertEquals(10, pool.size());
+    }
+    
+    @Test
+    void testZeroMaxSizeNeverRetains() {
+        int[] created = {0};
+        ObjectPool<StringBuilder> pool = new ObjectPool<>(() -> {
+            created[0]++;
+            return new StringBuilder();
+        }, 0, 0);
+        assertEquals(0, created[0], "factory must only run to prefill");
+        
+        StringBuilder sb = pool.acquire();
+        pool.release(sb);
+        assertEquals(0, pool.size());
+        assertNotSame(sb, pool.acquire());
+        assertEquals(2, created[0]);
+        assertThrows(IllegalArgumentException.class, () -> new ObjectPool<>(StringBuilder::new, 0, -1));
+    }
+    
+    @Test
+    void testResetIsDecidedPerObject() {
+        // The first object the factory hands out says nothing about the rest
+        ObjectPool<Object> pool = new ObjectPool<>(Object::new, 1, 4, 1);
+        TestResetableObject resetable = new TestResetableObject();
+        resetable.setValue("dirty");
+        pool.release(resetable);
+        assertEquals("", resetable.getValue());
+    }
+    
+    @Test
+    void testStatsCountHitsMissesAndDiscards() {
+        ObjectPool<StringBuilder> pool = new ObjectPool<>(StringBuilder::new, 2, 3, 1);
+        List<StringBuilder> acquired = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            acquired.add(pool.acquire());
+        }
+        ObjectPoolStats stats = pool.stats();
+        assertEquals(3, stats.getAcquires());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0, stats.getIdle());
+        assertEquals(0, stats.getLowWaterMark());
+        assertEquals(2, stats.getHighWaterMark());
+        assertEquals(2.0 / 3, stats.getHitRate(), 1e-9);
+        
+        acquired.add(new StringBuilder());
+        acquired.forEach(pool::release);
+        pool.release(null);
+        stats = pool.stats();
+        assertEquals(4, stats.getReleases());
+        assertEquals(1, stats.getDiscards());
+        assertEquals(3, stats.getIdle());
+        assertEquals(3, stats.getHighWaterMark());
+        
+        pool.resetWaterMarks();
+        pool.acquire();
+        stats = pool.stats();
+        assertEquals(2, stats.getLowWaterMark());
+        assertEquals(3, stats.getHighWaterMark());
+        assertEquals(4, stats.getAcquires());
+    }
+    
+    @Test
+    void testStatsAddUpAcrossStripes() throws InterruptedException {
+        ObjectPool<StringBuilder> pool = new ObjectPool<>(StringBuilder::new, 0, 64, 8);
+        int threadCount = 4;
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    pool.release(pool.acquire());
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        ObjectPoolStats stats = pool.stats();
+        assertEquals(threadCount * 10_000L, stats.getAcquires());
+        assertEquals(stats.getAcquires(), stats.getReleases());
+        assertEquals(stats.getMisses(), stats.getIdle() + stats.getDiscards());
+        assertTrue(stats.getMisses() >= 1);
+        assertTrue(stats.getHighWaterMark() >= stats.getIdle());
+    }
+    
+    @Test
+    void testAcquireReleaseDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < 20_000; i++) {
+            stringBuilderPool.release(stringBuilderPool.acquire());
+        }
+        
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            stringBuilderPool.release(stringBuilderPool.acquire());
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        
+        // A queue node per release would be megabytes; allow for the measurement call itself
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+    
     // Test helper class
     private static class TestResetableObject implements ObjectPool.Resetable {
         private String value = "";
@@ -0,0 +1,128 @@
+package com.lowlatency.snapshot;
+
+import com.lowlatency.core.Event;
+import com.lowlatency.core.LowLatencyEventHandler;
+import com.lowlatency.core.SymbolRegistry;
+import com.lowlatency.marketdata.Quote;
+import com.lowlatency.marketdata.TradeStats;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+class SnapshotStoreTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private long sequence;
+    
+    private void apply(LowLatencyEventHandler handler, SymbolRegistry registry, Event.EventType type, String symbol, 
+                       long orderId, Event.Side side, double price, long quantity) throws Exception {
+        Event event = new Event();
+        event.setId(sequence);
+        event.assignSymbol(registry.resolve(symbol), registry.symbol(registry.resolve(symbol)));
+        event.setType(type);
+        event.setOrderId(orderId);
+        event.setSide(side);
+        event.setAction(type == Event.EventType.ORDER ? Event.OrderAction.NEW : null);
+        event.setPrice(price);
+        event.setQuantity(quantity);
+        handler.onEvent(event, sequence++, true);
+    }
+    
+    private void snapshotMarker(LowLatencyEventHandler handler) throws Exception {
+        Event marker = new Event();
+        marker.setType(Event.EventType.SNAPSHOT);
+        handler.onEvent(marker, sequence++, true);
+    }
+    
+    private long fileCount() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.count();
+        }
+    }
+    
+    @Test
+    void testCaptureAndRestore() throws Exception {
+        SymbolRegistry registry = new SymbolRegistry(16);
+        LowLatencyEventHandler handler = new LowLatencyEventHandler("Main", 16, 64, 16, 0.01, null);
+        try (SnapshotStore store = SnapshotStore.open(tempDir, 1, registry)) {
+            handler.attachSnapshotStore(store, 0);
+            apply(handler, registry, Event.EventType.TRADE, "AAPL", 0, null, 150.0, 100);
+            apply(handler, registry, Event.EventType.ORDER, "MSFT", 1, Event.Side.BUY, 300.0, 10);
+            apply(handler, registry, Event.EventType.QUOTE, "MSFT", 0, Event.Side.SELL, 300.5, 20);
+            snapshotMarker(handler);
+            // After the snapshot; must not be in it
+            apply(handler, registry, Event.EventType.TRADE, "AAPL", 0, null, 151.0, 100);
+        }
+        assertEquals(4, handler.getJournalPosition());
+        assertEquals(5, handler.getProcessedCount());
+        
+        SymbolRegistry restoredRegistry = new SymbolRegistry(16);
+        try (SnapshotStore store = SnapshotStore.open(tempDir, 1, restoredRegistry)) {
+            SnapshotStore.Snapshot snapshot = store.loadLatest();
+            assertNotNull(snapshot);
+            assertEquals(3, snapshot.getPosition());
+            assertEquals(List.of("AAPL", "MSFT"), snapshot.getSymbols());
+            
+            LowLatencyEventHandler restored = new LowLatencyEventHandler("Main", 16, 64, 16, 0.01, null);
+            restored.readSnapshot(snapshot.getStates()[0]);
+            assertEquals(3, restored.getJournalPosition());
+            
+            TradeStats stats = new TradeStats();
+            assertTrue(restored.getTradeAnalytics().read(0, stats));
+            assertEquals(1, stats.getTradeCount());
+            assertEquals(150.0, stats.getClose());
+            
+            Quote quote = new Quote();
+            assertTrue(restored.getQuoteCache().read(1, quote));
+            assertEquals(300.5, quote.getAskPrice());
+            assertEquals(30000, restored.getMatchingEngine().getOrderBook(1).getBestBid());
+            assertTrue(restored.getMatchingEngine().getOrderBook(1).containsOrder(1));
+        }
+    }
+    
+    @Test
+    void testOnlyCompleteSnapshotsAreLoaded() throws Exception {
+        SymbolRegistry registry = new SymbolRegistry(16);
+        LowLatencyEventHandler first = new LowLatencyEventHandler("A", 16, 64, 16, 0.01, null);
+        try (SnapshotStore store = SnapshotStore.open(tempDir, 2, registry)) {
+            first.attachSnapshotStore(store, 0);
+            snapshotMarker(first);
+        }
+        try (SnapshotStore store = SnapshotStore.open(tempDir, 2, registry)) {
+            assertNull(store.loadLatest());
+            assertEquals(0, store.getSnapshotCount());
+        }
+        // A different handler count never sees these files
+        try (SnapshotStore store = SnapshotStore.open(tempDir, 1, registry)) {
+            assertNull(store.loadLatest());
+        }
+    }
+    
+    @Test
+    void testOldSnapshotsArePruned() throws Exception {
+        SymbolRegistry registry = new SymbolRegistry(16);
+        LowLatencyEventHandler handler = new LowLatencyEventHandler("Main", 16, 64, 16, 0.01, null);
+        try (SnapshotStore store = SnapshotStore.open(tempDir, 1, registry)) {
+            handler.attachSnapshotStore(store, 0);
+            for (int i = 0; i < 5; i++) {
+                apply(handler, registry, Event.EventType.TRADE, "AAPL", 0, null, 100.0 + i, 1);
+                snapshotMarker(handler);
+                // Let each write finish so none is skipped
+                store.awaitWrites();
+            }
+            assertEquals(5, store.getSnapshotCount());
+            assertEquals(5, store.getLastSnapshotPosition());
+        }
+        assertEquals(2, fileCount());
+        try (SnapshotStore store = SnapshotStore.open(tempDir, 1, registry)) {
+            assertEquals(5, store.loadLatest().getPosition());
+        }
+    }
+}
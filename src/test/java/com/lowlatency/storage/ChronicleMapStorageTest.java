@@ -1,5 +1,6 @@
 package com.lowlatency.storage;
 
+import net.openhft.chronicle.values.Values;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
@@ -7,7 +8,16 @@ import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 class ChronicleMapStorageTest {
     
@@ -194,4 +204,365 @@ class ChronicleMapStorageTest {
             assertEquals("persistValue", secondStorage.get("persistKey"));
         }
     }
-}
\ No newline at end of file
+    
+    @Test
+    void testFixedSizeRecordValues() throws IOException {
+        File testFile = tempDir.resolve("positions.dat").toFile();
+        
+        try (ChronicleMapStorage<Long, Position> positions = 
+             ChronicleMapStorage.create(long.class, Position.class, 1000, testFile.getAbsolutePath())) {
+            
+            positions.put(42L, position(42, 100, 101.25));
+        }
+        
+        try (ChronicleMapStorage<Long, Position> positions = 
+             ChronicleMapStorage.create(long.class, Position.class, 1000, testFile.getAbsolutePath())) {
+            
+            assertEquals(position(42, 100, 101.25), positions.get(42L));
+            assertNull(positions.get(7L));
+        }
+    }
+    
+    @Test
+    void testIntKeysWithValueInterface() throws IOException {
+        try (ChronicleMapStorage<Integer, ReferenceData> referenceData = 
+             ChronicleMapStorage.createInMemory(int.class, ReferenceData.class, 1000)) {
+            
+            ReferenceData value = Values.newHeapInstance(ReferenceData.class);
+            value.setLotSize(100);
+            value.setTickSize(0.01);
+            referenceData.put(7, value);
+            
+            ReferenceData read = referenceData.get(7);
+            assertEquals(100, read.getLotSize());
+            assertEquals(0.01, read.getTickSize());
+        }
+    }
+    
+    @Test
+    void testGetUsingFillsCallerInstance() throws IOException {
+        try (ChronicleMapStorage<Long, Position> positions = 
+             ChronicleMapStorage.createInMemory(long.class, Position.class, 1000)) {
+            
+            positions.put(1L, position(1, 50, 99.5));
+            Position reusable = new Position();
+            
+            assertSame(reusable, positions.getUsing(1L, reusable));
+            assertEquals(position(1, 50, 99.5), reusable);
+            assertNull(positions.getUsing(2L, reusable));
+        }
+    }
+    
+    @Test
+    void testAcquireUsingInsertsDefault() throws IOException {
+        try (ChronicleMapStorage<Long, Position> positions = 
+             ChronicleMapStorage.createInMemory(long.class, Position.class, 1000)) {
+            
+            Position acquired = positions.acquireUsing(3L, new Position());
+            assertEquals(0, acquired.getQuantity());
+            assertTrue(positions.containsKey(3L));
+        }
+    }
+    
+    @Test
+    void testUpdateInPlace() throws IOException {
+        try (ChronicleMapStorage<Long, Position> positions = 
+             ChronicleMapStorage.createInMemory(long.class, Position.class, 1000)) {
+            
+            positions.put(1L, position(1, 50, 99.5));
+            Position reusable = new Position();
+            
+            assertTrue(positions.update(1L, reusable, p -> p.setQuantity(p.getQuantity() + 25)));
+            assertEquals(75, positions.get(1L).getQuantity());
+            assertEquals(99.5, positions.get(1L).getAveragePrice());
+            
+            assertFalse(positions.update(2L, reusable, p -> fail("absent key must not be updated")));
+            assertFalse(positions.containsKey(2L));
+        }
+    }
+    
+    @Test
+    void testForceFlushSyncsPersistedMapOnly() {
+        storage.put("key", "value");
+        storage.forceFlush();
+        inMemoryStorage.forceFlush();
+        
+        assertEquals(1, storage.getSyncCount());
+        assertTrue(storage.getSyncTimeNanos() > 0);
+        assertEquals(0, inMemoryStorage.getSyncCount());
+    }
+    
+    @Test
+    void testCommitBatchOnlySyncsUnderGroupCommit() throws IOException {
+        storage.put("key", "value");
+        storage.commitBatch();
+        assertEquals(StorageDurability.OS_MANAGED, storage.getDurability());
+        assertEquals(0, storage.getSyncCount());
+        
+        try (ChronicleMapStorage<String, String> grouped = ChronicleMapStorage.create(String.class, String.class, 
+                1000, tempDir.resolve("grouped.dat").toString(), StorageDurability.GROUP_COMMIT, 0)) {
+            
+            grouped.put("a", "1");
+            grouped.put("b", "2");
+            grouped.commitBatch();
+            assertEquals(1, grouped.getSyncCount());
+        }
+    }
+    
+    @Test
+    void testPeriodicSyncRunsInBackground() throws IOException, InterruptedException {
+        try (ChronicleMapStorage<String, String> periodic = ChronicleMapStorage.create(String.class, String.class, 
+                1000, tempDir.resolve("periodic.dat").toString(), StorageDurability.PERIODIC_SYNC, 10)) {
+            
+            periodic.put("key", "value");
+            long deadline = System.currentTimeMillis() + 5000;
+            while (periodic.getSyncCount() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(periodic.getSyncCount() >= 2);
+            periodic.commitBatch();
+        }
+    }
+    
+    @Test
+    void testPeriodicSyncNeedsInterval() {
+        assertThrows(IllegalArgumentException.class, () -> ChronicleMapStorage.create(String.class, String.class, 
+                1000, tempDir.resolve("bad.dat").toString(), StorageDurability.PERIODIC_SYNC, 0));
+    }
+    
+    @Test
+    void testGrowKeepsEntriesAndAcceptsMoreThanOriginalCapacity() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            storage.put("key" + i, "value" + i);
+        }
+        
+        storage.grow(20_000).get(10, TimeUnit.SECONDS);
+        
+        assertEquals(20_000, storage.getEntries());
+        assertEquals(1, storage.getMigrationCount());
+        assertFalse(storage.isMigrating());
+        assertTrue(storage.getMigratedSegments() > 0);
+        for (int i = 1000; i < 10_000; i++) {
+            storage.put("key" + i, "value" + i);
+        }
+        assertEquals(10_000, storage.size());
+        assertEquals("value0", storage.get("key0"));
+        assertEquals("value9999", storage.get("key9999"));
+    }
+    
+    @Test
+    void testGrowWhileWriting() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            inMemoryStorage.put("key" + i, "value" + i);
+        }
+        Map<String, String> expected = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            expected.put("key" + i, "value" + i);
+        }
+        AtomicBoolean migrated = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            // Overwrite, remove and insert until well after the switch
+            for (int round = 0; !migrated.get() || round < 5; round++) {
+                for (int i = 0; i < 1000; i++) {
+                    String key = "key" + ((i * 7 + round) % 1500);
+                    if (i % 5 == 0) {
+                        inMemoryStorage.remove(key);
+                        expected.remove(key);
+                    } else {
+                        inMemoryStorage.put(key, "round" + round);
+                        expected.put(key, "round" + round);
+                    }
+                }
+            }
+        });
+        writer.start();
+        inMemoryStorage.grow(10_000).get(10, TimeUnit.SECONDS);
+        migrated.set(true);
+        writer.join();
+        
+        assertEquals(expected.size(), inMemoryStorage.size());
+        expected.forEach((key, value) -> assertEquals(value, inMemoryStorage.get(key), key));
+    }
+    
+    @Test
+    void testGrownFileReplacesOriginal() throws Exception {
+        String fileName = tempDir.resolve("grown.dat").toString();
+        try (ChronicleMapStorage<String, String> small = ChronicleMapStorage.create(String.class, String.class, 
+                100, fileName)) {
+            for (int i = 0; i < 100; i++) {
+                small.put("key" + i, "value" + i);
+            }
+            small.grow(50_000).get(10, TimeUnit.SECONDS);
+        }
+        
+        assertFalse(new File(fileName + ".migrating").exists());
+        try (ChronicleMapStorage<String, String> reopened = ChronicleMapStorage.create(String.class, String.class, 
+                100, fileName)) {
+            assertEquals(100, reopened.size());
+            // Far beyond what a 100-entry map can hold, so the file must carry the grown sizing
+            for (int i = 100; i < 20_000; i++) {
+                reopened.put("key" + i, "value" + i);
+            }
+            assertEquals("value50", reopened.get("key50"));
+        }
+    }
+    
+    @Test
+    void testAutoGrowthTriggersOnThreshold() throws InterruptedException {
+        inMemoryStorage.enableAutoGrowth(0.5, 4, 10);
+        for (int i = 0; i < 600; i++) {
+            inMemoryStorage.put("key" + i, "value" + i);
+        }
+        
+        long deadline = System.currentTimeMillis() + 5000;
+        while (inMemoryStorage.getMigrationCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, inMemoryStorage.getMigrationCount());
+        assertTrue(inMemoryStorage.getEntries() >= 4000);
+        assertEquals(600, inMemoryStorage.size());
+    }
+    
+    @Test
+    void testSortedIndexPrefixAndRangeQueries() {
+        for (int i = 0; i < 100; i++) {
+            storage.put("batch" + i, "value" + i);
+        }
+        storage.enableSortedIndex();
+        storage.put("batch100", "value100");
+        storage.put("other", "value");
+        storage.remove("batch5");
+        
+        List<String> keys = new ArrayList<>();
+        assertEquals(12, storage.forEachKeyWithPrefix("batch1", keys::add));
+        assertEquals(List.of("batch1", "batch10", "batch100", "batch11"), keys.subList(0, 4));
+        assertEquals(100, storage.forEachKeyWithPrefix("batch", key -> true));
+        
+        keys.clear();
+        storage.forEachKeyInRange("batch50", "batch53", keys::add);
+        assertEquals(List.of("batch50", "batch51", "batch52"), keys);
+        assertTrue(storage.getSortedIndexBytes() > 0);
+        
+        storage.clear();
+        assertEquals(0, storage.forEachKeyInRange(null, null, key -> true));
+    }
+    
+    @Test
+    void testSortedIndexNeedsStringKeys() throws IOException {
+        assertThrows(IllegalStateException.class, () -> storage.forEachKeyWithPrefix("a", key -> true));
+        try (ChronicleMapStorage<Long, Position> positions = 
+             ChronicleMapStorage.createInMemory(long.class, Position.class, 100)) {
+            assertThrows(IllegalStateException.class, positions::enableSortedIndex);
+        }
+    }
+    
+    @Test
+    void testExportImportRoundTrip() throws IOException {
+        for (int i = 0; i < 500; i++) {
+            storage.put("key" + i, "value" + i);
+        }
+        String exportFile = tempDir.resolve("export.bin").toString();
+        List<Long> progress = new CopyOnWriteArrayList<>();
+        
+        assertEquals(500, storage.exportTo(exportFile, ForkJoinPool.commonPool(),
+                (done, total) -> progress.add(done)));
+        assertFalse(progress.isEmpty());
+        assertEquals(500L, progress.stream().mapToLong(Long::longValue).max().getAsLong());
+        
+        inMemoryStorage.put("key1", "stale");
+        inMemoryStorage.put("extra", "kept");
+        assertEquals(500, inMemoryStorage.importFrom(exportFile));
+        assertEquals(501, inMemoryStorage.size());
+        assertEquals("value1", inMemoryStorage.get("key1"));
+        assertEquals("value499", inMemoryStorage.get("key499"));
+        assertEquals("kept", inMemoryStorage.get("extra"));
+    }
+    
+    @Test
+    void testImportUpdatesSortedIndex() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            inMemoryStorage.put("sym" + i, "value" + i);
+        }
+        String exportFile = tempDir.resolve("export.bin").toString();
+        inMemoryStorage.exportTo(exportFile);
+        
+        storage.enableSortedIndex();
+        storage.importFrom(exportFile, new ForkJoinPool(4), BulkProgressListener.NONE);
+        assertEquals(11, storage.forEachKeyWithPrefix("sym1", key -> true));
+    }
+    
+    @Test
+    void testImportRejectsOtherTypesAndIncompleteFiles() throws IOException {
+        storage.put("key", "value");
+        Path exportFile = tempDir.resolve("export.bin");
+        storage.exportTo(exportFile.toString());
+        
+        try (ChronicleMapStorage<Long, Position> positions =
+             ChronicleMapStorage.createInMemory(long.class, Position.class, 100)) {
+            assertThrows(IllegalArgumentException.class, () -> positions.importFrom(exportFile.toString()));
+        }
+        
+        Path truncated = tempDir.resolve("truncated.bin");
+        Files.write(truncated, new byte[16]);
+        assertThrows(IOException.class, () -> inMemoryStorage.importFrom(truncated.toString()));
+    }
+    
+    @Test
+    void testParallelCountSumAndFilter() {
+        for (int i = 0; i < 500; i++) {
+            storage.put("key" + i, "value" + i);
+        }
+        
+        assertEquals(50, storage.count(entry -> entry.value().endsWith("7")));
+        assertEquals(500L * 499 / 2, storage.sum(entry -> Long.parseLong(entry.key().substring(3))));
+        
+        List<String> keys = storage.filterKeys(entry -> entry.key().startsWith("key4") && entry.key().length() == 5);
+        keys.sort(null);
+        assertEquals(List.of("key40", "key41", "key42", "key43", "key44", "key45", "key46", "key47", "key48",
+                "key49"), keys);
+        assertEquals(0, inMemoryStorage.count(entry -> true));
+    }
+    
+    @Test
+    void testAggregateReadsSerializedValueBytes() throws IOException {
+        try (ChronicleMapStorage<Long, Position> positions = 
+             ChronicleMapStorage.createInMemory(long.class, Position.class, 1000)) {
+            
+            for (int i = 0; i < 200; i++) {
+                positions.put((long) i, position(i, i % 2 == 0 ? i : -i, 100.0));
+            }
+            
+            // quantity follows the int symbolId in Position's layout
+            long[] longShort = positions.aggregate(new ForkJoinPool(4), () -> new long[2], (totals, entry) -> {
+                long quantity = entry.valueBytes().readLong(entry.valueOffset() + Integer.BYTES);
+                totals[quantity >= 0 ? 0 : 1] += quantity;
+            }, (left, right) -> new long[] {left[0] + right[0], left[1] + right[1]});
+            
+            assertEquals(9900, longShort[0]);
+            assertEquals(-10000, longShort[1]);
+            assertEquals(9900 - 10000, positions.sum(entry -> entry.value().getQuantity()));
+        }
+    }
+    
+    private static Position position(int symbolId, long quantity, double averagePrice) {
+        Position position = new Position();
+        position.setSymbolId(symbolId);
+        position.setQuantity(quantity);
+        position.setAveragePrice(averagePrice);
+        position.setTimestamp(123L);
+        return position;
+    }
+    
+    /**
+     * Chronicle Values interface; Chronicle Map generates the fixed-layout implementation
+     */
+    public interface ReferenceData {
+        int getLotSize();
+        
+        void setLotSize(int lotSize);
+        
+        double getTickSize();
+        
+        void setTickSize(double tickSize);
+    }
+}
@@ -0,0 +1,122 @@
+package com.lowlatency.storage;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+class NearCacheTest {
+    
+    private final Map<String, String> backing = new HashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    
+    private NearCache<String, String> cache(int capacity) {
+        return new NearCache<>(capacity, key -> {
+            loads.incrementAndGet();
+            return backing.get(key);
+        });
+    }
+    
+    @Test
+    void testHitAfterMiss() {
+        backing.put("a", "1");
+        NearCache<String, String> cache = cache(4);
+        
+        assertEquals("1", cache.get("a"));
+        assertEquals("1", cache.get("a"));
+        
+        assertEquals(1, loads.get());
+        NearCacheStats stats = cache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0.5, stats.getHitRate());
+    }
+    
+    @Test
+    void testAbsentKeysAreNotCached() {
+        NearCache<String, String> cache = cache(4);
+        
+        assertNull(cache.get("missing"));
+        assertNull(cache.get("missing"));
+        
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+    
+    @Test
+    void testCapacityIsBounded() {
+        NearCache<String, String> cache = cache(8);
+        for (int i = 0; i < 100; i++) {
+            backing.put("k" + i, "v" + i);
+            assertEquals("v" + i, cache.get("k" + i));
+        }
+        
+        assertEquals(8, cache.size());
+        assertEquals(92, cache.stats().getEvictions());
+    }
+    
+    @Test
+    void testClockKeepsReferencedEntries() {
+        NearCache<String, String> cache = cache(4);
+        for (int i = 0; i < 4; i++) {
+            backing.put("k" + i, "v" + i);
+            cache.get("k" + i);
+        }
+        // Second chance for k0: the next miss evicts k1, the first unreferenced entry
+        cache.get("k0");
+        backing.put("new", "x");
+        cache.get("new");
+        
+        int before = loads.get();
+        cache.get("k0");
+        assertEquals(before, loads.get());
+        cache.get("k1");
+        assertEquals(before + 1, loads.get());
+    }
+    
+    @Test
+    void testInvalidateReloadsNewValue() {
+        backing.put("a", "old");
+        NearCache<String, String> cache = cache(4);
+        assertEquals("old", cache.get("a"));
+        
+        backing.put("a", "new");
+        assertEquals("old", cache.get("a"));
+        cache.invalidate("a");
+        
+        assertEquals("new", cache.get("a"));
+    }
+    
+    @Test
+    void testLoadRacingInvalidationIsNotCached() {
+        backing.put("a", "old");
+        AtomicReference<NearCache<String, String>> holder = new AtomicReference<>();
+        holder.set(new NearCache<>(4, key -> {
+            String value = backing.get(key);
+            // A writer updates the store and invalidates while this load is in flight
+            backing.put(key, "new");
+            holder.get().invalidate(key);
+            return value;
+        }));
+        
+        assertEquals("old", holder.get().get("a"));
+        assertEquals(0, holder.get().size());
+    }
+    
+    @Test
+    void testInvalidateAll() {
+        backing.put("a", "1");
+        backing.put("b", "2");
+        NearCache<String, String> cache = cache(4);
+        cache.get("a");
+        cache.get("b");
+        
+        cache.invalidateAll();
+        
+        assertEquals(0, cache.size());
+        cache.get("a");
+        assertEquals(3, loads.get());
+    }
+}
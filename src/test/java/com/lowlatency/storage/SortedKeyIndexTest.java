@@ -0,0 +1,153 @@
+package com.lowlatency.storage;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+class SortedKeyIndexTest {
+    
+    private final Set<String> present = new HashSet<>();
+    private final SortedKeyIndex index = new SortedKeyIndex(present::contains);
+    
+    private void add(String key) {
+        present.add(key);
+        index.reconcile(key);
+    }
+    
+    private void remove(String key) {
+        present.remove(key);
+        index.reconcile(key);
+    }
+    
+    private List<String> range(String from, String to) {
+        List<String> keys = new ArrayList<>();
+        index.forEachInRange(from, to, keys::add);
+        return keys;
+    }
+    
+    private List<String> prefix(String prefix) {
+        List<String> keys = new ArrayList<>();
+        index.forEachWithPrefix(prefix, keys::add);
+        return keys;
+    }
+    
+    @Test
+    void testKeysAreVisitedInOrder() {
+        for (String key : new String[] {"delta", "alpha", "charlie", "bravo", "echo"}) {
+            add(key);
+        }
+        
+        assertEquals(List.of("alpha", "bravo", "charlie", "delta", "echo"), range(null, null));
+        assertEquals(List.of("bravo", "charlie"), range("b", "d"));
+        assertEquals(List.of("charlie", "delta", "echo"), range("charlie", null));
+        assertEquals(5, index.size());
+    }
+    
+    @Test
+    void testReconcileFollowsMembership() {
+        add("a");
+        add("b");
+        add("a");
+        remove("b");
+        // Not in the map, so reconciling does not add it
+        index.reconcile("c");
+        
+        assertEquals(List.of("a"), range(null, null));
+        assertEquals(1, index.size());
+    }
+    
+    @Test
+    void testPrefixMatchesOnlyThatPrefix() {
+        for (int i = 0; i < 1000; i++) {
+            add("batch" + i);
+            add("order" + i);
+        }
+        add("batc");
+        add("batch");
+        
+        List<String> keys = prefix("batch1");
+        assertEquals(111, keys.size());
+        assertEquals("batch1", keys.get(0));
+        assertTrue(keys.stream().allMatch(key -> key.startsWith("batch1")));
+        assertEquals(1001, prefix("batch").size());
+    }
+    
+    @Test
+    void testScanAcrossBatchesMatchesSortedSet() {
+        TreeSet<String> expected = new TreeSet<>();
+        for (int i = 0; i < 5000; i++) {
+            String key = "key" + (i * 7919 % 5000);
+            add(key);
+            expected.add(key);
+        }
+        for (int i = 0; i < 5000; i += 3) {
+            remove("key" + i);
+            expected.remove("key" + i);
+        }
+        
+        assertEquals(new ArrayList<>(expected), range(null, null));
+        assertEquals(new ArrayList<>(expected.subSet("key2", "key4")), range("key2", "key4"));
+    }
+    
+    @Test
+    void testVisitorCanStopEarly() {
+        for (int i = 0; i < 1000; i++) {
+            add(String.format("k%04d", i));
+        }
+        List<String> keys = new ArrayList<>();
+        
+        long visited = index.forEachInRange(null, null, key -> keys.add(key) && keys.size() < 300);
+        
+        assertEquals(300, visited);
+        assertEquals("k0299", keys.get(299));
+    }
+    
+    @Test
+    void testRemovedNodesAreReused() {
+        for (int i = 0; i < 1000; i++) {
+            add("key" + i);
+        }
+        long used = index.usedBytes();
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 1000; i++) {
+                remove("key" + i);
+            }
+            for (int i = 0; i < 1000; i++) {
+                add("key" + i);
+            }
+        }
+        
+        assertEquals(1000, index.size());
+        // Levels are random per insert, so sizes shift a little but nothing accumulates
+        assertTrue(index.usedBytes() < used * 2);
+        assertEquals(index.reservedBytes(), 1L << 22);
+    }
+    
+    @Test
+    void testCodePointOrderAndPrefixEnd() {
+        add("z");
+        add("été");
+        add("😀");
+        
+        assertEquals(List.of("z", "été", "😀"), range(null, null));
+        assertNull(SortedKeyIndex.prefixEnd(new byte[] {(byte) 0xFF, (byte) 0xFF}));
+        assertArrayEquals("ac".getBytes(StandardCharsets.UTF_8), 
+                SortedKeyIndex.prefixEnd(new byte[] {'a', 'b', (byte) 0xFF}));
+    }
+    
+    @Test
+    void testClear() {
+        add("a");
+        add("b");
+        
+        index.clear(present::clear);
+        add("c");
+        
+        assertEquals(List.of("c"), range(null, null));
+    }
+}
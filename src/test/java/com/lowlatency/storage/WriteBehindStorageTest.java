@@ -0,0 +1,151 @@
+package com.lowlatency.storage;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+class WriteBehindStorageTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private ChronicleMapStorage<String, String> storage;
+    private WriteBehindStorage<String, String> writeBehind;
+    // Holds the persistence thread back so everything published before release() is one batch
+    private final CountDownLatch consumerGate = new CountDownLatch(1);
+    
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = ChronicleMapStorage.createInMemory(String.class, String.class, 1000);
+        writeBehind = WriteBehindStorage.start(storage, 1024, gatedThreadFactory(), new BlockingWaitStrategy());
+    }
+    
+    private ThreadFactory gatedThreadFactory() {
+        return runnable -> {
+            Thread thread = new Thread(() -> {
+                try {
+                    consumerGate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                runnable.run();
+            });
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    @AfterEach
+    void tearDown() {
+        consumerGate.countDown();
+        writeBehind.close();
+        storage.close();
+    }
+    
+    @Test
+    void testWritesAreAppliedAsynchronously() {
+        long ticket = writeBehind.put("key", "value");
+        
+        assertNull(writeBehind.get("key"));
+        assertFalse(writeBehind.awaitDurable(ticket, 10, TimeUnit.MILLISECONDS));
+        
+        consumerGate.countDown();
+        assertTrue(writeBehind.awaitDurable(ticket, 5, TimeUnit.SECONDS));
+        assertEquals("value", writeBehind.get("key"));
+        assertEquals(ticket, writeBehind.getAppliedSequence());
+    }
+    
+    @Test
+    void testRepeatedKeysCoalescedWithinBatch() {
+        long last = 0;
+        for (int i = 0; i < 100; i++) {
+            last = writeBehind.put("key" + (i % 10), "value" + i);
+        }
+        
+        consumerGate.countDown();
+        assertTrue(writeBehind.awaitDurable(last, 5, TimeUnit.SECONDS));
+        
+        assertEquals(100, writeBehind.getWriteCount());
+        assertEquals(10, writeBehind.getMapWriteCount());
+        for (int k = 0; k < 10; k++) {
+            assertEquals("value" + (90 + k), storage.get("key" + k));
+        }
+    }
+    
+    @Test
+    void testRemoveAfterPutInSameBatch() {
+        storage.put("existing", "old");
+        writeBehind.put("fresh", "value");
+        writeBehind.remove("fresh");
+        long ticket = writeBehind.remove("existing");
+        
+        consumerGate.countDown();
+        assertTrue(writeBehind.awaitDurable(ticket, 5, TimeUnit.SECONDS));
+        
+        assertFalse(storage.containsKey("fresh"));
+        assertFalse(storage.containsKey("existing"));
+        assertEquals(2, writeBehind.getMapWriteCount());
+    }
+    
+    @Test
+    void testAppliedTicketIsAlwaysDurable() {
+        assertTrue(writeBehind.awaitDurable(WriteBehindStorage.APPLIED, 0, TimeUnit.MILLISECONDS));
+    }
+    
+    @Test
+    void testFailedBatchFailsItsTickets() throws IOException {
+        ChronicleMapStorage<String, String> failing = ChronicleMapStorage.createInMemory(String.class, String.class, 100);
+        try (WriteBehindStorage<String, String> failingWriteBehind = WriteBehindStorage.start(failing, 1024, 
+                runnable -> new Thread(runnable), new BlockingWaitStrategy())) {
+            long good = failingWriteBehind.put("key", "value");
+            assertTrue(failingWriteBehind.awaitDurable(good, 5, TimeUnit.SECONDS));
+            
+            // Every later map write throws
+            failing.close();
+            long bad = failingWriteBehind.put("other", "value");
+            assertThrows(IllegalStateException.class, () -> failingWriteBehind.awaitDurable(bad, 5, TimeUnit.SECONDS));
+            assertEquals(1, failingWriteBehind.getFailedWriteCount());
+            
+            // Tickets from the earlier, successful batch stay durable
+            assertTrue(failingWriteBehind.awaitDurable(good, 0, TimeUnit.MILLISECONDS));
+        }
+    }
+    
+    @Test
+    void testCloseAppliesPendingWrites() {
+        writeBehind.put("key", "value");
+        consumerGate.countDown();
+        
+        writeBehind.close();
+        
+        assertEquals("value", storage.get("key"));
+    }
+    
+    @Test
+    void testGroupCommitSyncsOncePerBatch() throws IOException {
+        try (ChronicleMapStorage<String, String> persisted = ChronicleMapStorage.create(String.class, String.class, 
+                1000, tempDir.resolve("group-commit.dat").toString(), StorageDurability.GROUP_COMMIT, 0);
+             WriteBehindStorage<String, String> grouped = WriteBehindStorage.start(persisted, 1024, 
+                     gatedThreadFactory(), new BlockingWaitStrategy())) {
+            
+            long last = 0;
+            for (int i = 0; i < 50; i++) {
+                last = grouped.put("key" + i, "value" + i);
+            }
+            
+            consumerGate.countDown();
+            assertTrue(grouped.awaitDurable(last, 5, TimeUnit.SECONDS));
+            assertEquals(50, persisted.size());
+            assertEquals(1, persisted.getSyncCount());
+        }
+    }
+}